@@ -0,0 +1,31 @@
+package ru.anyline.repoapi;
+
+/**
+ * Repository objects shaped like the ones GitHub lists: the few fields {@code UserRepos} maps plus a
+ * representative part of the rest, which the mapper has to skip.
+ */
+final class GitHubJson {
+
+    private GitHubJson() {
+    }
+
+    static String repository(String login, int index) {
+        String name = "repository-" + index;
+        String url = "https://api.github.com/repos/" + login + "/" + name;
+        return "{\"id\":" + (100_000 + index) + ",\"node_id\":\"R_kgDOB" + index + "\",\"name\":\"" + name + "\","
+                + "\"full_name\":\"" + login + "/" + name + "\",\"private\":false,"
+                + "\"owner\":{\"login\":\"" + login + "\",\"id\":583231,\"node_id\":\"MDQ6VXNlcjU4MzIzMQ==\","
+                + "\"avatar_url\":\"https://avatars.githubusercontent.com/u/583231?v=4\",\"gravatar_id\":\"\","
+                + "\"url\":\"https://api.github.com/users/" + login + "\",\"type\":\"User\",\"site_admin\":false},"
+                + "\"html_url\":\"https://github.com/" + login + "/" + name + "\","
+                + "\"description\":\"Sample repository number " + index + "\",\"fork\":false,\"url\":\"" + url + "\","
+                + "\"created_at\":\"2011-01-26T19:01:12Z\",\"updated_at\":\"2024-05-01T10:00:00Z\","
+                + "\"pushed_at\":\"2024-04-30T18:20:00Z\",\"homepage\":null,\"size\":" + (index * 7 % 9000) + ","
+                + "\"stargazers_count\":" + (index % 500) + ",\"watchers_count\":" + (index % 500) + ","
+                + "\"language\":\"Java\",\"has_issues\":true,\"has_projects\":true,\"has_wiki\":true,"
+                + "\"forks_count\":" + (index % 40) + ",\"archived\":false,\"disabled\":false,"
+                + "\"open_issues_count\":" + (index % 9) + ",\"license\":{\"key\":\"mit\",\"name\":\"MIT License\","
+                + "\"spdx_id\":\"MIT\"},\"topics\":[\"java\",\"spring\"],\"visibility\":\"public\","
+                + "\"default_branch\":\"main\"}";
+    }
+}
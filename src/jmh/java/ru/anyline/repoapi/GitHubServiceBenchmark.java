@@ -0,0 +1,136 @@
+package ru.anyline.repoapi;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.web.client.RestTemplate;
+import ru.anyline.repoapi.config.GitHubProperties;
+import ru.anyline.repoapi.model.UserRepos;
+import ru.anyline.repoapi.repository.FetchStateRepository;
+import ru.anyline.repoapi.repository.Repository;
+import ru.anyline.repoapi.service.GitHubClient;
+import ru.anyline.repoapi.service.GitHubMetrics;
+import ru.anyline.repoapi.service.GitHubRateLimiter;
+import ru.anyline.repoapi.service.GitHubServiceImpl;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link GitHubServiceImpl#getRepositories} on its three paths: an L1 cache hit through the application's
+ * cached bean, a fresh listing read from the table, and a miss that fetches the listing from GitHub and stores
+ * it. GitHub is a {@code RestTemplate} answering in-process with a canned listing of {@link #repoCount}
+ * repositories, so the miss measures our side of the fetch (deserialization, rows, fetch state) only.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GitHubServiceBenchmark {
+
+    @Param({"30", "100"})
+    public int repoCount;
+
+    private ConfigurableApplicationContext app;
+    private GitHubServiceImpl cachedService;
+    private GitHubServiceImpl service;
+    private JdbcTemplate jdbcTemplate;
+    private long misses;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // command-line arguments, so that they take precedence over application.properties
+        app = new SpringApplicationBuilder(RepoApiApplication.class).web(WebApplicationType.NONE).run(
+                "--spring.datasource.url=jdbc:h2:mem:service-benchmark",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN",
+                "--repoapi.github.revalidation.enabled=false",
+                "--repoapi.cache.redis-enabled=false");
+        jdbcTemplate = app.getBean(JdbcTemplate.class);
+
+        GitHubProperties properties = app.getBean(GitHubProperties.class);
+        GitHubMetrics metrics = app.getBean(GitHubMetrics.class);
+        GitHubClient gitHubClient = new GitHubClient(stubGitHub(listing(repoCount)), properties,
+                app.getBean("gitHubPageExecutor", ExecutorService.class), app.getBean(GitHubRateLimiter.class), metrics);
+        // no cache manager, so that every call reaches the table
+        service = new GitHubServiceImpl(app.getBean(Repository.class), app.getBean(FetchStateRepository.class),
+                gitHubClient, metrics, properties, Runnable::run, new NoOpCacheManager());
+
+        // stored through the stub, so the application's own bean finds it fresh and never calls GitHub
+        service.getRepositories("octocat");
+        cachedService = app.getBean(GitHubServiceImpl.class);
+        cachedService.getRepositories("octocat");
+    }
+
+    @TearDown(Level.Iteration)
+    public void dropMisses() {
+        jdbcTemplate.update("delete from user_repos where username_key like 'miss-%'");
+        jdbcTemplate.update("delete from fetch_state where username like 'miss-%'");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        app.close();
+    }
+
+    @Benchmark
+    public List<UserRepos> l1CacheHit() {
+        return cachedService.getRepositories("octocat");
+    }
+
+    @Benchmark
+    public List<UserRepos> tableHit() {
+        return service.getRepositories("octocat");
+    }
+
+    @Benchmark
+    public List<UserRepos> miss() {
+        return service.getRepositories("miss-" + misses++);
+    }
+
+    /** Answers every listing request with {@code listing}, owned by the user in the request path. */
+    private static RestTemplate stubGitHub(String listing) {
+        return new RestTemplateBuilder().requestFactory(() -> (uri, method) -> {
+            String login = uri.getPath().split("/")[2];
+            MockClientHttpRequest request = new MockClientHttpRequest(method, uri);
+            MockClientHttpResponse response = new MockClientHttpResponse(
+                    listing.replace("{login}", login).getBytes(StandardCharsets.UTF_8), HttpStatus.OK);
+            response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+            response.getHeaders().setETag("\"" + login + "\"");
+            request.setResponse(response);
+            return request;
+        }).build();
+    }
+
+    private static String listing(int repoCount) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < repoCount; i++) {
+            json.append(i == 0 ? "" : ",").append(GitHubJson.repository("{login}", i));
+        }
+        return json.append(']').toString();
+    }
+}
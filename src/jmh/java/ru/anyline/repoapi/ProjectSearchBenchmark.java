@@ -0,0 +1,138 @@
+package ru.anyline.repoapi;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.anyline.repoapi.model.UserProject;
+import ru.anyline.repoapi.repository.UserProjectRepository;
+import ru.anyline.repoapi.service.ProjectSearchIndex;
+import ru.anyline.repoapi.service.UserProjectServiceImpl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Searches generated projects through the trigram index and through the {@code like '%x%'} query it
+ * replaces. Names and descriptions are drawn from a few thousand made-up words, so a word matches a few
+ * thousand projects per million (most in descriptions, which the query does not search), and a phrase a
+ * handful.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ProjectSearchBenchmark {
+
+    private static final int VOCABULARY = 5000;
+
+    @Param({"100000", "1000000"})
+    public int projectCount;
+
+    @Param({"word", "phrase", "rare"})
+    public String queryKind;
+
+    private ConfigurableApplicationContext app;
+    private UserProjectRepository repository;
+    private ProjectSearchIndex index;
+    private UserProjectServiceImpl service;
+    private String query;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // command-line arguments, so that they take precedence over application.properties
+        app = new SpringApplicationBuilder(RepoApiApplication.class).web(WebApplicationType.NONE).run(
+                "--spring.datasource.url=jdbc:h2:mem:search-benchmark",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN",
+                "--repoapi.github.revalidation.enabled=false",
+                "--repoapi.cache.redis-enabled=false");
+        repository = app.getBean(UserProjectRepository.class);
+        index = app.getBean(ProjectSearchIndex.class);
+        service = app.getBean(UserProjectServiceImpl.class);
+
+        List<String> words = words();
+        Random random = new Random(42);
+        List<Object[]> rows = new ArrayList<>(projectCount);
+        for (int i = 0; i < projectCount; i++) {
+            rows.add(new Object[]{i + 1L, sentence(words, random, 3), sentence(words, random, 8), (long) (i % 5000)});
+        }
+        JdbcTemplate jdbcTemplate = app.getBean(JdbcTemplate.class);
+        jdbcTemplate.batchUpdate("insert into user_project (id, name, description, user_id) values (?, ?, ?, ?)", rows);
+        index.rebuild(repository::forEachStored);
+
+        String sample = (String) rows.get(projectCount / 2)[1];
+        query = switch (queryKind) {
+            case "word" -> sample.split(" ")[1];
+            case "phrase" -> sample.substring(0, sample.lastIndexOf(' '));
+            default -> sample;
+        };
+        System.out.printf("%nquery \"%s\": index %d matches, like %d matches%n", query,
+                index.search(query, Integer.MAX_VALUE).size(),
+                repository.findByNameContainingIgnoreCase(query, Limit.unlimited()).size());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        app.close();
+    }
+
+    @Benchmark
+    public List<UserProject> trigramIndex() {
+        return index.search(query, 20);
+    }
+
+    // the index lookup plus what the service adds around it, as the search endpoint calls it
+    @Benchmark
+    public List<UserProject> service() {
+        return service.searchProjects(query, 20);
+    }
+
+    @Benchmark
+    public List<UserProject> likeQuery() {
+        return repository.findByNameContainingIgnoreCase(query, Limit.of(20));
+    }
+
+    // random letters rather than syllables: text built from a handful of syllables shares every trigram
+    private static List<String> words() {
+        Random random = new Random(7);
+        List<String> words = new ArrayList<>(VOCABULARY);
+        for (int i = 0; i < VOCABULARY; i++) {
+            StringBuilder word = new StringBuilder();
+            for (int length = 4 + random.nextInt(6); word.length() < length; ) {
+                word.append((char) ('a' + random.nextInt(26)));
+            }
+            words.add(word.toString());
+        }
+        return words;
+    }
+
+    private static String sentence(List<String> words, Random random, int length) {
+        StringBuilder sentence = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            if (i > 0) {
+                sentence.append(' ');
+            }
+            sentence.append(words.get(random.nextInt(words.size())));
+        }
+        return sentence.toString();
+    }
+}
@@ -0,0 +1,68 @@
+package ru.anyline.repoapi;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import ru.anyline.repoapi.model.UserRepos;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The two JSON conversions on the {@code /repos} path: reading a GitHub listing into {@code UserRepos[]}, most
+ * of which is skipping the fields we do not map, and writing {@code UserRepos[]} as the API response. The
+ * mapper is configured the way Spring Boot configures the application's.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserReposJsonBenchmark {
+
+    @Param({"30", "1000", "10000"})
+    public int repoCount;
+
+    private ObjectMapper objectMapper;
+    private byte[] gitHubListing;
+    private UserRepos[] repos;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < repoCount; i++) {
+            json.append(i == 0 ? "" : ",").append(GitHubJson.repository("octocat", i));
+        }
+        gitHubListing = json.append(']').toString().getBytes(StandardCharsets.UTF_8);
+        repos = objectMapper.readValue(gitHubListing, UserRepos[].class);
+        for (int i = 0; i < repos.length; i++) {
+            repos[i].setId(i + 1L);
+        }
+        System.out.printf("%nGitHub listing %d bytes, API response %d bytes%n",
+                gitHubListing.length, objectMapper.writeValueAsBytes(repos).length);
+    }
+
+    @Benchmark
+    public UserRepos[] deserializeGitHubListing() throws IOException {
+        return objectMapper.readValue(gitHubListing, UserRepos[].class);
+    }
+
+    @Benchmark
+    public byte[] serializeApiResponse() throws IOException {
+        return objectMapper.writeValueAsBytes(repos);
+    }
+}
@@ -0,0 +1,136 @@
+package ru.anyline.repoapi;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.ResponseEntity;
+import org.springframework.ui.ExtendedModelMap;
+import org.springframework.ui.Model;
+import org.springframework.web.client.RestTemplate;
+import ru.anyline.repoapi.controller.UserReposController;
+import ru.anyline.repoapi.model.UserRepos;
+import ru.anyline.repoapi.service.GitHubService;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Renders the repositories page model under concurrent load, the old way (a loopback request to
+ * {@code /repos/{username}} on a local server that serializes the cached list on a second thread) and the
+ * current way (calling the service in-process). Both sides serve the list from memory so the difference is
+ * the HTTP hop alone.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(16)
+// without TCP_NODELAY the JDK server stalls each response on delayed ACKs, which Tomcat does not, and
+// HttpURLConnection only keeps 5 idle connections unless told otherwise
+@Fork(value = 1, jvmArgsAppend = {"-Dsun.net.httpserver.nodelay=true", "-Dhttp.maxConnections=32"})
+public class UserReposPageBenchmark {
+
+    @Param({"30", "300"})
+    public int repoCount;
+
+    private List<UserRepos> repos;
+    private HttpServer server;
+    private ExecutorService serverThreads;
+    private RestTemplate restTemplate;
+    private String loopbackUrl;
+    private UserReposController controller;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        repos = new ArrayList<>(repoCount);
+        for (int i = 0; i < repoCount; i++) {
+            repos.add(new UserRepos((long) i + 1, "octocat", "repository-" + i,
+                    "https://github.com/octocat/repository-" + i));
+        }
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 128);
+        server.createContext("/repos/", exchange -> {
+            byte[] body = objectMapper.writeValueAsBytes(repos);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        // Tomcat's default worker pool size
+        serverThreads = Executors.newFixedThreadPool(200);
+        server.setExecutor(serverThreads);
+        server.start();
+        loopbackUrl = "http://127.0.0.1:" + server.getAddress().getPort() + "/repos/octocat";
+        restTemplate = new RestTemplate();
+
+        controller = new UserReposController(new GitHubService() {
+            @Override
+            public List<UserRepos> getRepositories(String username) {
+                return repos;
+            }
+
+            @Override
+            public List<UserRepos> getCachedRepos(Long afterId, int limit) {
+                return repos;
+            }
+
+            @Override
+            public void streamCachedRepos(Consumer<UserRepos> action) {
+                repos.forEach(action);
+            }
+
+            @Override
+            public UserRepos getRepository(String username, String reponame) {
+                return repos.get(0);
+            }
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        server.stop(0);
+        serverThreads.shutdownNow();
+    }
+
+    @Benchmark
+    public Model loopback() {
+        Model model = new ExtendedModelMap();
+        ResponseEntity<UserRepos[]> response = restTemplate.getForEntity(loopbackUrl, UserRepos[].class);
+        UserRepos[] body = response.getBody();
+        if (body != null) {
+            model.addAttribute("repos", List.of(body));
+        }
+        model.addAttribute("username", "octocat");
+        return model;
+    }
+
+    @Benchmark
+    public Model inProcess() {
+        Model model = new ExtendedModelMap();
+        controller.getUserRepos("octocat", model);
+        return model;
+    }
+}
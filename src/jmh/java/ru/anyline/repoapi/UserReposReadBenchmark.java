@@ -0,0 +1,77 @@
+package ru.anyline.repoapi;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.anyline.repoapi.model.UserRepos;
+import ru.anyline.repoapi.repository.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads one user's stored listing from H2 as managed entities (the {@code find*} methods) and through the
+ * read-only constructor projections the request path uses. Run with {@code -prof gc} to compare the
+ * allocation per read as well as the time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserReposReadBenchmark {
+
+    @Param({"30", "300"})
+    public int repoCount;
+
+    private ConfigurableApplicationContext app;
+    private Repository repository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // command-line arguments, so that they take precedence over application.properties
+        app = new SpringApplicationBuilder(RepoApiApplication.class).web(WebApplicationType.NONE).run(
+                "--spring.datasource.url=jdbc:h2:mem:read-benchmark",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN",
+                "--repoapi.github.revalidation.enabled=false",
+                "--repoapi.cache.redis-enabled=false");
+        repository = app.getBean(Repository.class);
+
+        List<UserRepos> repos = new ArrayList<>(repoCount);
+        for (int i = 0; i < repoCount; i++) {
+            repos.add(new UserRepos(null, "octocat", "repository-" + i, "https://github.com/octocat/repository-" + i));
+        }
+        repository.saveAll(repos);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        app.close();
+    }
+
+    @Benchmark
+    public List<UserRepos> managedEntities() {
+        return repository.findByUsernameKey("octocat");
+    }
+
+    @Benchmark
+    public List<UserRepos> readOnlyProjection() {
+        return repository.readByUsernameKey("octocat");
+    }
+}
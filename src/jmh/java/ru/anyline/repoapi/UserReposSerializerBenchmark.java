@@ -0,0 +1,76 @@
+package ru.anyline.repoapi;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import ru.anyline.repoapi.cache.UserReposRedisSerializer;
+import ru.anyline.repoapi.model.UserRepos;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the binary cache encoding with the JSON one it replaces for listings of typical and large users.
+ * Payload sizes are printed once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserReposSerializerBenchmark {
+
+    @Param({"30", "1000", "10000"})
+    public int repoCount;
+
+    private final GenericJackson2JsonRedisSerializer json = new GenericJackson2JsonRedisSerializer();
+    private final UserReposRedisSerializer binary = new UserReposRedisSerializer(1024);
+
+    private List<UserRepos> repos;
+    private byte[] jsonBytes;
+    private byte[] binaryBytes;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        repos = new ArrayList<>(repoCount);
+        for (int i = 0; i < repoCount; i++) {
+            repos.add(new UserRepos((long) i + 1, "octocat", "repository-" + i,
+                    "https://github.com/octocat/repository-" + i));
+        }
+        jsonBytes = json.serialize(repos);
+        binaryBytes = binary.serialize(repos);
+        System.out.printf("%n%d repos: json %d bytes, binary %d bytes%n", repoCount, jsonBytes.length, binaryBytes.length);
+    }
+
+    @Benchmark
+    public byte[] serializeJson() {
+        return json.serialize(repos);
+    }
+
+    @Benchmark
+    public byte[] serializeBinary() {
+        return binary.serialize(repos);
+    }
+
+    @Benchmark
+    public Object deserializeJson() {
+        return json.deserialize(jsonBytes);
+    }
+
+    @Benchmark
+    public Object deserializeBinary() {
+        return binary.deserialize(binaryBytes);
+    }
+}
@@ -0,0 +1,98 @@
+package ru.anyline.repoapi;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.anyline.repoapi.model.UserRepos;
+import ru.anyline.repoapi.repository.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stores and reads one user's listing while {@code user_repos} holds a growing number of other users' rows,
+ * thirty each, to show what the table size costs the lookup by {@code username_key} and the batched insert.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class UserReposTableBenchmark {
+
+    private static final int REPOS_PER_USER = 30;
+
+    @Param({"1000", "100000", "1000000"})
+    public int tableSize;
+
+    private ConfigurableApplicationContext app;
+    private Repository repository;
+    private JdbcTemplate jdbcTemplate;
+    private String storedUser;
+    private int savedUsers;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // command-line arguments, so that they take precedence over application.properties
+        app = new SpringApplicationBuilder(RepoApiApplication.class).web(WebApplicationType.NONE).run(
+                "--spring.datasource.url=jdbc:h2:mem:table-benchmark",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN",
+                "--repoapi.github.revalidation.enabled=false",
+                "--repoapi.cache.redis-enabled=false");
+        repository = app.getBean(Repository.class);
+        jdbcTemplate = app.getBean(JdbcTemplate.class);
+
+        List<Object[]> rows = new ArrayList<>(tableSize);
+        for (int i = 0; i < tableSize; i++) {
+            String username = "user-" + i / REPOS_PER_USER;
+            String repoName = "repository-" + i % REPOS_PER_USER;
+            rows.add(new Object[]{i + 1L, username, username, repoName, "https://github.com/" + username + "/" + repoName});
+        }
+        jdbcTemplate.batchUpdate("insert into user_repos (id, username, username_key, repo_name, url) values (?, ?, ?, ?, ?)", rows);
+        // past the preloaded ids; the pooled optimizer hands out the block of 100 ending at the value it reads
+        jdbcTemplate.execute("alter sequence user_repos_seq restart with " + (tableSize + 101));
+        storedUser = "user-" + (tableSize - 1) / REPOS_PER_USER / 2;
+    }
+
+    @TearDown(Level.Iteration)
+    public void dropSaved() {
+        jdbcTemplate.update("delete from user_repos where username_key like 'saved-%'");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        app.close();
+    }
+
+    @Benchmark
+    public List<UserRepos> readByUsernameKey() {
+        return repository.readByUsernameKey(storedUser);
+    }
+
+    @Benchmark
+    public List<UserRepos> saveAll() {
+        String username = "saved-" + savedUsers++;
+        List<UserRepos> repos = new ArrayList<>(REPOS_PER_USER);
+        for (int i = 0; i < REPOS_PER_USER; i++) {
+            repos.add(new UserRepos(null, username, "repository-" + i, "https://github.com/" + username + "/repository-" + i));
+        }
+        return repository.saveAll(repos);
+    }
+}
@@ -0,0 +1,79 @@
+package ru.anyline.repoapi;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * An HTTP client for the load tests, logged in through the form login and sending the CSRF token the login page
+ * hands out, so that it reaches the endpoints behind the login as well as the public ones.
+ */
+class LoadTestClient implements AutoCloseable {
+
+    private static final Pattern CSRF_FIELD = Pattern.compile("name=\"_csrf\"[^>]*value=\"([^\"]+)\"");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient httpClient;
+    private final String baseUrl;
+    private final String csrfToken;
+
+    LoadTestClient(ConfigurableApplicationContext app) throws IOException, InterruptedException {
+        baseUrl = "http://127.0.0.1:" + ((WebServerApplicationContext) app).getWebServer().getPort();
+        httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .cookieHandler(new CookieManager())
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        String form = "username=q&password=q&_csrf=" + loginPageCsrfToken();
+        httpClient.send(HttpRequest.newBuilder(URI.create(baseUrl + "/login"))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(form)).build(), HttpResponse.BodyHandlers.discarding());
+        // logging in replaces the token, so ask for the new one
+        csrfToken = loginPageCsrfToken();
+    }
+
+    <T> T send(String method, String path, Object body, int expectedStatus, TypeReference<T> type)
+            throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = httpClient.send(HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofMinutes(5))
+                .header("Content-Type", "application/json")
+                .header("X-XSRF-TOKEN", csrfToken)
+                .method(method, HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                .build(), HttpResponse.BodyHandlers.ofByteArray());
+        assertEquals(expectedStatus, response.statusCode(), method + " " + path);
+        return objectMapper.readValue(response.body(), type);
+    }
+
+    /** Sends a {@code GET} and returns the response, body included. */
+    HttpResponse<byte[]> get(String path) throws IOException, InterruptedException {
+        return httpClient.send(HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30)).build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private String loginPageCsrfToken() throws IOException, InterruptedException {
+        String page = httpClient.send(HttpRequest.newBuilder(URI.create(baseUrl + "/login")).build(),
+                HttpResponse.BodyHandlers.ofString()).body();
+        Matcher matcher = CSRF_FIELD.matcher(page);
+        assertTrue(matcher.find(), "no CSRF token on the login page");
+        return matcher.group(1);
+    }
+
+    @Override
+    public void close() {
+        httpClient.close();
+    }
+}
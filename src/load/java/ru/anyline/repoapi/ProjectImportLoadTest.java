@@ -0,0 +1,122 @@
+package ru.anyline.repoapi;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.anyline.repoapi.model.UserProject;
+import ru.anyline.repoapi.service.ProjectBatchRequest;
+import ru.anyline.repoapi.service.ProjectBatchResult;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Imports projects over HTTP and then renames all of them, once with a request per project ({@code POST} and
+ * {@code PUT /api/projects}) and once through {@code POST /api/projects/batch} in requests of {@link #BATCH_SIZE},
+ * each into a fresh database. Requests are sent one after another, as the importer does.
+ * <p>
+ * The batch import covers all {@link #PROJECTS}; a request per project is timed over the first
+ * {@link #SINGLE_PROJECTS} only, as at its rate the full import would run for the better part of an hour.
+ * Run with {@code ./mvnw -Pload-test test}; the {@code load.import-*} system properties change the model.
+ */
+@Tag("load")
+class ProjectImportLoadTest {
+
+    private static final int PROJECTS = Integer.getInteger("load.import-projects", 100_000);
+    private static final int SINGLE_PROJECTS = Math.min(PROJECTS, Integer.getInteger("load.import-single-projects", 10_000));
+    private static final int BATCH_SIZE = Integer.getInteger("load.import-batch-size", 10_000);
+
+    @Test
+    void batchImport_shouldBeAnOrderOfMagnitudeFasterThanARequestPerProject() throws Exception {
+        Rates single = importOneByOne();
+        Rates batch = importInBatches();
+
+        System.out.printf("request per project: create %8.0f projects/s, update %8.0f projects/s%n", single.create(), single.update());
+        System.out.printf("batches of %-8d: create %8.0f projects/s, update %8.0f projects/s%n", BATCH_SIZE, batch.create(), batch.update());
+        assertTrue(batch.create() >= 10 * single.create(), "create: " + batch.create() + " vs " + single.create());
+        assertTrue(batch.update() >= 10 * single.update(), "update: " + batch.update() + " vs " + single.update());
+    }
+
+    private Rates importOneByOne() throws Exception {
+        try (ConfigurableApplicationContext app = start("single");
+             LoadTestClient client = new LoadTestClient(app)) {
+            List<Long> ids = new ArrayList<>(SINGLE_PROJECTS);
+
+            long start = System.nanoTime();
+            for (UserProject project : projects("Imported", SINGLE_PROJECTS, null)) {
+                UserProject created = client.send("POST", "/api/projects", project, 201, new TypeReference<>() {});
+                ids.add(created.getId());
+            }
+            double create = rate(SINGLE_PROJECTS, start);
+
+            start = System.nanoTime();
+            for (UserProject project : projects("Renamed", SINGLE_PROJECTS, ids)) {
+                client.send("PUT", "/api/projects/" + project.getId(), project, 200, new TypeReference<UserProject>() {});
+            }
+            return new Rates(create, rate(SINGLE_PROJECTS, start));
+        }
+    }
+
+    private Rates importInBatches() throws Exception {
+        try (ConfigurableApplicationContext app = start("batch");
+             LoadTestClient client = new LoadTestClient(app)) {
+            List<Long> ids = new ArrayList<>(PROJECTS);
+
+            List<UserProject> creates = projects("Imported", PROJECTS, null);
+            long start = System.nanoTime();
+            for (int offset = 0; offset < PROJECTS; offset += BATCH_SIZE) {
+                ProjectBatchResult result = client.send("POST", "/api/projects/batch", new ProjectBatchRequest(
+                        creates.subList(offset, Math.min(offset + BATCH_SIZE, PROJECTS)), null, null), 200, new TypeReference<>() {});
+                result.create().forEach(item -> ids.add(item.id()));
+            }
+            double create = rate(PROJECTS, start);
+
+            List<UserProject> updates = projects("Renamed", PROJECTS, ids);
+            start = System.nanoTime();
+            for (int offset = 0; offset < PROJECTS; offset += BATCH_SIZE) {
+                ProjectBatchResult result = client.send("POST", "/api/projects/batch", new ProjectBatchRequest(
+                        null, updates.subList(offset, Math.min(offset + BATCH_SIZE, PROJECTS)), null), 200, new TypeReference<>() {});
+                assertTrue(result.update().stream().allMatch(item -> item.outcome() == ProjectBatchResult.Outcome.UPDATED));
+            }
+            return new Rates(create, rate(PROJECTS, start));
+        }
+    }
+
+    private static List<UserProject> projects(String prefix, int count, List<Long> ids) {
+        List<UserProject> projects = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            UserProject project = new UserProject();
+            project.setId(ids == null ? null : ids.get(i));
+            project.setName(prefix + " project " + i);
+            project.setDescription("Project number " + i + " from the importer");
+            project.setUserId((long) (i % 1000));
+            projects.add(project);
+        }
+        return projects;
+    }
+
+    private static double rate(int projects, long start) {
+        return projects / ((System.nanoTime() - start) / 1e9);
+    }
+
+    private static ConfigurableApplicationContext start(String mode) {
+        // command-line arguments, so that they take precedence over application.properties
+        return new SpringApplicationBuilder(RepoApiApplication.class).run(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:import-" + mode,
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN",
+                "--logging.level.org.springframework.web=WARN",
+                "--repoapi.github.revalidation.enabled=false",
+                "--repoapi.cache.redis-enabled=false",
+                // keep the login session in memory rather than in Redis
+                "--spring.autoconfigure.exclude=org.springframework.boot.autoconfigure.session.SessionAutoConfiguration");
+    }
+
+    private record Rates(double create, double update) {
+    }
+}
@@ -0,0 +1,400 @@
+package ru.anyline.repoapi;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.anyline.repoapi.repository.UserProjectRepository;
+import ru.anyline.repoapi.service.ProjectSearchIndex;
+
+import java.io.IOException;
+import java.net.http.HttpResponse;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Drives {@code /repos/{username}}, {@code /repos/{username}/{repoName}}, {@code /cached} and {@code /api/projects}
+ * with the traffic mixes in {@link Mix}, each in a freshly started application against a fresh GitHub stub, and
+ * reports throughput, p50/p99/p999 latency per endpoint and the calls that reached GitHub. Every listing served has
+ * to hold all of the user's repositories.
+ * <p>
+ * Usernames follow a Zipf distribution over {@link #USERS} users, so that a few users get most of the requests.
+ * A user owns between 1 and {@link #MAX_REPOS_PER_USER} repositories, most of them few, which GitHub hands out in
+ * pages of 100. When a mix starts, the listings of {@link #STORED_SHARE} of the users, picked at random, are
+ * already stored and fresh. Each of {@link #CLIENTS} clients sends its next request as soon as the last one is
+ * answered.
+ * <p>
+ * Run with {@code ./mvnw -Pload-test test -Dtest=TrafficMixLoadTest}; {@code -Dload.mixes=LISTINGS,MIXED} picks
+ * the mixes and the other {@code load.*} system properties below change the model.
+ */
+@Tag("load")
+class TrafficMixLoadTest {
+
+    private static final Duration UPSTREAM_LATENCY = Duration.ofMillis(Long.getLong("load.upstream-latency-ms", 100));
+    private static final double UPSTREAM_ERROR_RATE = Double.parseDouble(System.getProperty("load.upstream-error-rate", "0"));
+    // calls GitHub allows in the current window; negative leaves rate limiting out
+    private static final int UPSTREAM_RATE_LIMIT = Integer.getInteger("load.upstream-rate-limit", -1);
+    private static final int USERS = Integer.getInteger("load.users", 10_000);
+    private static final double ZIPF_EXPONENT = Double.parseDouble(System.getProperty("load.zipf-exponent", "1.0"));
+    private static final int MAX_REPOS_PER_USER = Integer.getInteger("load.max-repos-per-user", 300);
+    private static final double STORED_SHARE = Double.parseDouble(System.getProperty("load.stored-share", "0.5"));
+    private static final int PROJECTS = Integer.getInteger("load.projects", 100_000);
+    private static final int CLIENTS = Integer.getInteger("load.clients", 32);
+    private static final boolean VIRTUAL_THREADS = Boolean.getBoolean("load.virtual-threads");
+    private static final Duration WARMUP = Duration.ofSeconds(Long.getLong("load.warmup-seconds", 5));
+    private static final Duration MEASUREMENT = Duration.ofSeconds(Long.getLong("load.mix-seconds", 20));
+    private static final List<Mix> MIXES = Arrays.stream(System.getProperty("load.mixes", "LISTINGS,REPOSITORIES,CACHED,PROJECTS,MIXED")
+            .split(",")).map(String::trim).map(Mix::valueOf).toList();
+
+    private static final int PAGE_SIZE = 100;
+    private static final int PROJECT_OWNERS = 1000;
+    private static final List<String> WORDS = words();
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final double[] zipfCdf = zipfCdf(USERS, ZIPF_EXPONENT);
+    private int storedRepos;
+
+    @Test
+    void trafficMixes_shouldServeWholeListingsWithoutFetchingThemFromGitHubRepeatedly() throws Exception {
+        for (Mix mix : MIXES) {
+            try (GitHubStubServer gitHub = startGitHub();
+                 ConfigurableApplicationContext app = start(mix, gitHub);
+                 LoadTestClient client = new LoadTestClient(app)) {
+                seed(app, mix);
+
+                run(client, mix, WARMUP);
+                int upstreamBefore = gitHub.totalRequestCount();
+                MixResult result = run(client, mix, MEASUREMENT);
+                report(mix, result, gitHub.totalRequestCount() - upstreamBefore);
+
+                // a failed upstream call fails the request; it never cuts a listing short
+                result.endpoints().forEach((endpoint, latencies) ->
+                        assertEquals(0, latencies.incomplete(), mix + " " + endpoint + " incomplete responses"));
+                if (UPSTREAM_ERROR_RATE == 0 && UPSTREAM_RATE_LIMIT < 0) {
+                    result.endpoints().forEach((endpoint, latencies) ->
+                            assertEquals(0, latencies.errors(), mix + " " + endpoint + " errors"));
+                    assertNotFetchedRepeatedly(gitHub, mix);
+                }
+            }
+        }
+    }
+
+    // within one mix, far shorter than the freshness TTL, the cache and the single-flight in front of GitHub leave
+    // one fetch of every listing page; a repository stored with its owner's listing carries no fetch state of its
+    // own and is revalidated once as well
+    private static void assertNotFetchedRepeatedly(GitHubStubServer gitHub, Mix mix) {
+        for (String path : gitHub.requestedPaths()) {
+            String[] segments = path.split("/");
+            int limit = path.startsWith("/users/") ? pages(userIndex(segments[2])) : 2;
+            assertTrue(gitHub.requestCount(path) <= limit, mix + ": " + path + " fetched " + gitHub.requestCount(path) + " times");
+        }
+    }
+
+    private MixResult run(LoadTestClient client, Mix mix, Duration duration) throws InterruptedException {
+        Map<Endpoint, ConcurrentLinkedQueue<Long>> latencies = new EnumMap<>(Endpoint.class);
+        Map<Endpoint, AtomicInteger> errors = new EnumMap<>(Endpoint.class);
+        Map<Endpoint, AtomicInteger> incomplete = new EnumMap<>(Endpoint.class);
+        for (Endpoint endpoint : mix.endpoints()) {
+            latencies.put(endpoint, new ConcurrentLinkedQueue<>());
+            errors.put(endpoint, new AtomicInteger());
+            incomplete.put(endpoint, new AtomicInteger());
+        }
+        long start = System.nanoTime();
+        long deadline = start + duration.toNanos();
+
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int i = 0; i < CLIENTS; i++) {
+                workers.add(clients.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        Endpoint endpoint = mix.next();
+                        String path = endpoint.path(this);
+                        long sent = System.nanoTime();
+                        try {
+                            HttpResponse<byte[]> response = client.get(path);
+                            if (response.statusCode() / 100 != 2) {
+                                errors.get(endpoint).incrementAndGet();
+                            } else if (!endpoint.complete(path, response.body())) {
+                                incomplete.get(endpoint).incrementAndGet();
+                            }
+                        } catch (IOException e) {
+                            errors.get(endpoint).incrementAndGet();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            return;
+                        }
+                        latencies.get(endpoint).add(System.nanoTime() - sent);
+                    }
+                }));
+            }
+            for (Future<?> worker : workers) {
+                try {
+                    worker.get();
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException(e.getCause());
+                }
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        Map<Endpoint, Latencies> endpoints = new EnumMap<>(Endpoint.class);
+        latencies.forEach((endpoint, samples) -> {
+            List<Long> sorted = new ArrayList<>(samples);
+            Collections.sort(sorted);
+            endpoints.put(endpoint, new Latencies(sorted, errors.get(endpoint).get(), incomplete.get(endpoint).get()));
+        });
+        return new MixResult(endpoints, seconds);
+    }
+
+    private static void report(Mix mix, MixResult result, int upstreamCalls) {
+        int requests = result.endpoints().values().stream().mapToInt(latencies -> latencies.sorted().size()).sum();
+        System.out.printf("%-12s %8.0f req/s, %7d requests, %6d GitHub calls (%.3f per request)%n", mix,
+                requests / result.seconds(), requests, upstreamCalls, requests == 0 ? 0.0 : (double) upstreamCalls / requests);
+        result.endpoints().forEach((endpoint, latencies) ->
+                System.out.printf("  %-16s %7d requests, p50 %8.2f ms, p99 %8.2f ms, p999 %8.2f ms, errors %d, incomplete %d%n",
+                        endpoint, latencies.sorted().size(), latencies.millis(0.50), latencies.millis(0.99),
+                        latencies.millis(0.999), latencies.errors(), latencies.incomplete()));
+    }
+
+    private String zipfUser() {
+        int rank = Arrays.binarySearch(zipfCdf, ThreadLocalRandom.current().nextDouble());
+        return "user-" + Math.min(rank < 0 ? -rank - 1 : rank, USERS - 1);
+    }
+
+    private static GitHubStubServer startGitHub() throws IOException {
+        GitHubStubServer gitHub = new GitHubStubServer()
+                .generate(TrafficMixLoadTest::gitHubPages)
+                .latency(UPSTREAM_LATENCY)
+                .errorRate(UPSTREAM_ERROR_RATE);
+        if (UPSTREAM_RATE_LIMIT >= 0) {
+            gitHub.rateLimit(UPSTREAM_RATE_LIMIT, Instant.now().plus(Duration.ofHours(1)).getEpochSecond());
+        }
+        return gitHub;
+    }
+
+    /** What GitHub answers for {@code /users/{login}/repos} and {@code /repos/{login}/{name}} of a generated user. */
+    private static List<String> gitHubPages(String path) {
+        String[] segments = path.split("/");
+        if (segments.length == 4 && segments[1].equals("users") && segments[3].equals("repos")) {
+            int repoCount = repoCount(userIndex(segments[2]));
+            List<String> pages = new ArrayList<>();
+            for (int first = 0; first < repoCount; first += PAGE_SIZE) {
+                StringBuilder page = new StringBuilder("[");
+                for (int i = first; i < Math.min(first + PAGE_SIZE, repoCount); i++) {
+                    page.append(i == first ? "" : ",").append(repositoryJson(segments[2], i));
+                }
+                pages.add(page.append(']').toString());
+            }
+            return pages;
+        }
+        if (segments.length == 4 && segments[1].equals("repos") && segments[3].startsWith("repository-")) {
+            int index = Integer.parseInt(segments[3].substring("repository-".length()));
+            return index < repoCount(userIndex(segments[2])) ? List.of(repositoryJson(segments[2], index)) : null;
+        }
+        return null;
+    }
+
+    private static String repositoryJson(String login, int index) {
+        return "{\"id\":" + index + ",\"name\":\"repository-" + index + "\",\"owner\":{\"login\":\"" + login + "\"},"
+                + "\"html_url\":\"https://github.com/" + login + "/repository-" + index + "\",\"fork\":false,"
+                + "\"description\":\"Repository number " + index + "\",\"stargazers_count\":" + index % 100 + "}";
+    }
+
+    private static int userIndex(String login) {
+        return Integer.parseInt(login.substring("user-".length()));
+    }
+
+    // fixed per user, so that the stub and the clients agree; cubed, so that most users own a few repositories
+    private static int repoCount(int user) {
+        return 1 + (int) ((MAX_REPOS_PER_USER - 1) * Math.pow(new SplittableRandom(user).nextDouble(), 3));
+    }
+
+    private static int pages(int user) {
+        return (repoCount(user) + PAGE_SIZE - 1) / PAGE_SIZE;
+    }
+
+    private void seed(ConfigurableApplicationContext app, Mix mix) {
+        JdbcTemplate jdbcTemplate = app.getBean(JdbcTemplate.class);
+        Random random = new Random(42);
+        Timestamp now = Timestamp.from(Instant.now());
+        List<Object[]> repos = new ArrayList<>();
+        List<Object[]> fetchStates = new ArrayList<>();
+        for (int user = 0; user < USERS; user++) {
+            if (random.nextDouble() >= STORED_SHARE) {
+                continue;
+            }
+            String login = "user-" + user;
+            for (int i = 0; i < repoCount(user); i++) {
+                repos.add(new Object[]{repos.size() + 1L, login, login, "repository-" + i, "https://github.com/" + login + "/repository-" + i});
+            }
+            fetchStates.add(new Object[]{"users/" + login + "/repos", login, "\"seeded\"", now});
+        }
+        jdbcTemplate.batchUpdate("insert into user_repos (id, username, username_key, repo_name, url) values (?, ?, ?, ?, ?)", repos);
+        jdbcTemplate.batchUpdate("insert into fetch_state (fetch_key, username, etag, fetched_at) values (?, ?, ?, ?)", fetchStates);
+        // past the seeded ids; the pooled optimizer hands out the block of 100 ending at the value it reads
+        jdbcTemplate.execute("alter sequence user_repos_seq restart with " + (repos.size() + 101));
+        storedRepos = repos.size();
+
+        if (mix.endpoints().contains(Endpoint.PROJECT_PAGE) || mix.endpoints().contains(Endpoint.PROJECT_SEARCH)) {
+            List<Object[]> projects = new ArrayList<>(PROJECTS);
+            for (int i = 0; i < PROJECTS; i++) {
+                projects.add(new Object[]{i + 1L, word(random) + " " + word(random) + " " + i,
+                        "Project " + word(random) + " " + word(random), (long) random.nextInt(PROJECT_OWNERS)});
+            }
+            jdbcTemplate.batchUpdate("insert into user_project (id, name, description, user_id) values (?, ?, ?, ?)", projects);
+            app.getBean(ProjectSearchIndex.class).rebuild(app.getBean(UserProjectRepository.class)::forEachStored);
+        }
+    }
+
+    private static String word(Random random) {
+        return WORDS.get(random.nextInt(WORDS.size()));
+    }
+
+    private static List<String> words() {
+        Random random = new Random(7);
+        List<String> words = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            StringBuilder word = new StringBuilder();
+            for (int length = 4 + random.nextInt(6); word.length() < length; ) {
+                word.append((char) ('a' + random.nextInt(26)));
+            }
+            words.add(word.toString());
+        }
+        return words;
+    }
+
+    private static double[] zipfCdf(int size, double exponent) {
+        double[] cdf = new double[size];
+        double sum = 0;
+        for (int rank = 0; rank < size; rank++) {
+            sum += 1 / Math.pow(rank + 1, exponent);
+            cdf[rank] = sum;
+        }
+        for (int rank = 0; rank < size; rank++) {
+            cdf[rank] /= sum;
+        }
+        return cdf;
+    }
+
+    private static ConfigurableApplicationContext start(Mix mix, GitHubStubServer gitHub) {
+        // command-line arguments, so that they take precedence over application.properties
+        return new SpringApplicationBuilder(RepoApiApplication.class).run(
+                "--server.port=0",
+                "--spring.threads.virtual.enabled=" + VIRTUAL_THREADS,
+                "--spring.datasource.url=jdbc:h2:mem:traffic-" + mix.name().toLowerCase(Locale.ROOT),
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN",
+                "--repoapi.github.base-url=" + gitHub.baseUrl(),
+                "--repoapi.github.revalidation.enabled=false",
+                "--repoapi.cache.redis-enabled=false",
+                // keep the login session in memory rather than in Redis
+                "--spring.autoconfigure.exclude=org.springframework.boot.autoconfigure.session.SessionAutoConfiguration");
+    }
+
+    private enum Endpoint {
+        LISTING {
+            @Override
+            String path(TrafficMixLoadTest test) {
+                return "/repos/" + test.zipfUser();
+            }
+
+            // every repository the user owns, not the few stored by REPOSITORY requests before the listing
+            @Override
+            boolean complete(String path, byte[] body) throws IOException {
+                return OBJECT_MAPPER.readTree(body).size() == repoCount(userIndex(path.substring("/repos/".length())));
+            }
+        },
+        REPOSITORY {
+            @Override
+            String path(TrafficMixLoadTest test) {
+                String login = test.zipfUser();
+                return "/repos/" + login + "/repository-" + ThreadLocalRandom.current().nextInt(repoCount(userIndex(login)));
+            }
+        },
+        CACHED_PAGE {
+            @Override
+            String path(TrafficMixLoadTest test) {
+                // from a random point of the stored rows, as a client resuming from its last cursor
+                return "/cached?limit=" + PAGE_SIZE + "&after=" + ThreadLocalRandom.current().nextInt(Math.max(1, test.storedRepos));
+            }
+        },
+        PROJECT_PAGE {
+            @Override
+            String path(TrafficMixLoadTest test) {
+                return "/api/projects/user/" + (1 + ThreadLocalRandom.current().nextInt(PROJECT_OWNERS - 1)) + "?limit=" + PAGE_SIZE;
+            }
+        },
+        PROJECT_SEARCH {
+            @Override
+            String path(TrafficMixLoadTest test) {
+                return "/api/projects/search?q=" + WORDS.get(ThreadLocalRandom.current().nextInt(WORDS.size()));
+            }
+        };
+
+        abstract String path(TrafficMixLoadTest test);
+
+        boolean complete(String path, byte[] body) throws IOException {
+            return true;
+        }
+    }
+
+    private enum Mix {
+        LISTINGS(Map.of(Endpoint.LISTING, 1)),
+        REPOSITORIES(Map.of(Endpoint.REPOSITORY, 1)),
+        CACHED(Map.of(Endpoint.CACHED_PAGE, 1)),
+        PROJECTS(Map.of(Endpoint.PROJECT_PAGE, 1, Endpoint.PROJECT_SEARCH, 1)),
+        MIXED(Map.of(Endpoint.LISTING, 60, Endpoint.REPOSITORY, 20, Endpoint.CACHED_PAGE, 10,
+                Endpoint.PROJECT_PAGE, 5, Endpoint.PROJECT_SEARCH, 5));
+
+        private final Endpoint[] weighted;
+
+        Mix(Map<Endpoint, Integer> weights) {
+            List<Endpoint> weighted = new ArrayList<>();
+            weights.forEach((endpoint, weight) -> weighted.addAll(Collections.nCopies(weight, endpoint)));
+            this.weighted = weighted.toArray(Endpoint[]::new);
+        }
+
+        List<Endpoint> endpoints() {
+            return Arrays.stream(weighted).distinct().toList();
+        }
+
+        Endpoint next() {
+            return weighted[ThreadLocalRandom.current().nextInt(weighted.length)];
+        }
+    }
+
+    private record MixResult(Map<Endpoint, Latencies> endpoints, double seconds) {
+    }
+
+    private record Latencies(List<Long> sorted, int errors, int incomplete) {
+
+        double millis(double percentile) {
+            if (sorted.isEmpty()) {
+                return Double.NaN;
+            }
+            int index = (int) Math.ceil(percentile * sorted.size()) - 1;
+            return sorted.get(Math.max(0, index)) / 1e6;
+        }
+    }
+}
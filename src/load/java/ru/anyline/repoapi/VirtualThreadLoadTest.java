@@ -0,0 +1,198 @@
+package ru.anyline.repoapi;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Boots the application on platform threads, with {@code spring.threads.virtual.enabled}, and on platform threads with
+ * {@code repoapi.github.reactive.enabled} against a GitHub stub that takes {@link #UPSTREAM_LATENCY} per call, and
+ * drives {@code /repos/{username}} with a growing number of concurrent clients. Every request asks for a different
+ * user so none of them is served from cache.
+ * <p>
+ * A concurrency level counts as sustained while it completes without errors and its p99 stays under twice the
+ * upstream latency. Run with {@code ./mvnw -Pload-test test}; the {@code load.*} system properties below
+ * change the model.
+ */
+@Tag("load")
+class VirtualThreadLoadTest {
+
+    // a scaled-down model of production (200 Tomcat threads, GitHub at 250 ms-1 s) that stays I/O bound on a
+    // laptop; on a small machine raise the latency and lower the levels so CPU does not saturate first
+    private static final Duration UPSTREAM_LATENCY = Duration.ofMillis(Long.getLong("load.upstream-latency-ms", 1000));
+    private static final Duration STEP_DURATION = Duration.ofSeconds(Long.getLong("load.step-seconds", 5));
+    private static final int TOMCAT_THREADS = Integer.getInteger("load.tomcat-threads", 50);
+    private static final int[] CONCURRENCY_LEVELS = Arrays.stream(System.getProperty("load.levels", "25,50,100,200").split(","))
+            .mapToInt(Integer::parseInt).toArray();
+
+    private static GitHubStubServer gitHub;
+    private static Integer platformSustained;
+
+    @BeforeAll
+    static void startGitHub() throws IOException {
+        gitHub = new GitHubStubServer()
+                .fallback("[{\"name\":\"hello-world\",\"html_url\":\"https://github.com/octocat/hello-world\"}]")
+                .latency(UPSTREAM_LATENCY);
+    }
+
+    @AfterAll
+    static void stopGitHub() {
+        gitHub.close();
+    }
+
+    @Test
+    void virtualThreads_shouldSustainMoreConcurrentSlowRequestsThanThePlatformPool() throws Exception {
+        int platform = platformSustained();
+        int virtual = maxSustainedConcurrency(Mode.VIRTUAL);
+
+        System.out.printf("max sustained concurrency: platform threads %d, virtual threads %d%n", platform, virtual);
+        assertTrue(virtual >= 2 * platform, "virtual threads sustained " + virtual + " vs " + platform);
+    }
+
+    // the Tomcat pool stays at its platform size; the servlet thread is released while WebClient waits for GitHub
+    @Test
+    void reactiveClient_shouldSustainMoreConcurrentSlowRequestsThanThePlatformPool() throws Exception {
+        int platform = platformSustained();
+        int reactive = maxSustainedConcurrency(Mode.REACTIVE);
+
+        System.out.printf("max sustained concurrency: platform threads %d, reactive client %d%n", platform, reactive);
+        assertTrue(reactive >= 2 * platform, "reactive client sustained " + reactive + " vs " + platform);
+    }
+
+    private static synchronized int platformSustained() throws Exception {
+        if (platformSustained == null) {
+            platformSustained = maxSustainedConcurrency(Mode.PLATFORM);
+            assertTrue(platformSustained <= TOMCAT_THREADS, "platform threads should saturate at the Tomcat pool size");
+        }
+        return platformSustained;
+    }
+
+    private static int maxSustainedConcurrency(Mode serving) throws Exception {
+        String mode = serving.name().toLowerCase();
+        try (ConfigurableApplicationContext app = start(serving);
+             ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor();
+             HttpClient httpClient = HttpClient.newBuilder()
+                     .version(HttpClient.Version.HTTP_1_1)
+                     .executor(clients)
+                     .connectTimeout(Duration.ofSeconds(10))
+                     .build()) {
+            int port = ((WebServerApplicationContext) app).getWebServer().getPort();
+            AtomicLong usernames = new AtomicLong();
+
+            // warm up the JIT, the connection pools and Hibernate on a small load first
+            runStep(httpClient, clients, port, 20, Duration.ofSeconds(2), usernames, mode + "-warmup");
+
+            int sustained = 0;
+            for (int concurrency : CONCURRENCY_LEVELS) {
+                StepResult result = runStep(httpClient, clients, port, concurrency, STEP_DURATION, usernames, mode);
+                System.out.printf("%-8s concurrency %4d: %6.0f req/s, p50 %4d ms, p99 %5d ms, errors %d%n", mode,
+                        concurrency, result.throughput(), result.percentile(0.50), result.percentile(0.99), result.errors());
+                if (result.errors() > 0 || result.percentile(0.99) > 2 * UPSTREAM_LATENCY.toMillis()) {
+                    break;
+                }
+                sustained = concurrency;
+            }
+            return sustained;
+        }
+    }
+
+    private static StepResult runStep(HttpClient httpClient, ExecutorService clients, int port, int concurrency,
+                                      Duration duration, AtomicLong usernames, String mode) throws InterruptedException {
+        ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+        AtomicInteger errors = new AtomicInteger();
+        long start = System.nanoTime();
+        long deadline = start + duration.toNanos();
+
+        List<Future<?>> workers = new ArrayList<>();
+        for (int i = 0; i < concurrency; i++) {
+            workers.add(clients.submit(() -> {
+                while (System.nanoTime() < deadline) {
+                    URI uri = URI.create("http://127.0.0.1:" + port + "/repos/" + mode + "-" + usernames.incrementAndGet());
+                    long sent = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = httpClient.send(HttpRequest.newBuilder(uri)
+                                .timeout(Duration.ofSeconds(30)).build(), HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() != 200) {
+                            errors.incrementAndGet();
+                        }
+                    } catch (IOException e) {
+                        errors.incrementAndGet();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    latencies.add(System.nanoTime() - sent);
+                }
+            }));
+        }
+        for (Future<?> worker : workers) {
+            try {
+                worker.get();
+            } catch (ExecutionException e) {
+                errors.incrementAndGet();
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        List<Long> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+        return new StepResult(sorted, sorted.size() / seconds, errors.get());
+    }
+
+    private static ConfigurableApplicationContext start(Mode serving) {
+        String mode = serving.name().toLowerCase();
+        // command-line arguments, so that they take precedence over application.properties
+        return new SpringApplicationBuilder(RepoApiApplication.class).run(
+                "--server.port=0",
+                "--server.tomcat.threads.max=" + TOMCAT_THREADS,
+                "--spring.threads.virtual.enabled=" + (serving == Mode.VIRTUAL),
+                "--repoapi.github.reactive.enabled=" + (serving == Mode.REACTIVE),
+                "--spring.datasource.url=jdbc:h2:mem:load-" + mode,
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN",
+                "--logging.level.org.springframework.web=WARN",
+                "--repoapi.github.base-url=" + gitHub.baseUrl(),
+                "--repoapi.github.revalidation.enabled=false",
+                "--repoapi.cache.redis-enabled=false",
+                // the HTTP pool must not become the bottleneck being measured
+                "--repoapi.http.max-connections=2000",
+                "--repoapi.http.max-connections-per-route=2000",
+                "--repoapi.http.connection-request-timeout=PT30S");
+    }
+
+    private enum Mode { PLATFORM, VIRTUAL, REACTIVE }
+
+    private record StepResult(List<Long> sortedLatencies, double throughput, int errors) {
+
+        long percentile(double percentile) {
+            if (sortedLatencies.isEmpty()) {
+                return Long.MAX_VALUE;
+            }
+            int index = (int) Math.ceil(percentile * sortedLatencies.size()) - 1;
+            return Duration.ofNanos(sortedLatencies.get(Math.max(0, index))).toMillis();
+        }
+    }
+}
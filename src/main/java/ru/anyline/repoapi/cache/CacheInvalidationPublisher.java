@@ -0,0 +1,13 @@
+package ru.anyline.repoapi.cache;
+
+/**
+ * Tells the other nodes to drop their local copy of an entry after this node changed it.
+ */
+public interface CacheInvalidationPublisher {
+
+    /**
+     * @param key the changed key, or {@code null} when the whole cache was cleared
+     */
+    void publish(String cacheName, Object key);
+
+}
@@ -0,0 +1,16 @@
+package ru.anyline.repoapi.cache;
+
+public final class CacheNames {
+
+    /** {@code GitHubServiceImpl.getRepositories} and its reactive counterpart, keyed by username. */
+    public static final String REPOS = "repos";
+
+    /** {@code GitHubServiceImpl.getRepository} and its reactive counterpart, keyed by {@code username/repoName}. */
+    public static final String REPO = "repo";
+
+    /** {@code GitHubServiceImpl.getReposByUsername}, keyed by username. */
+    public static final String CACHED_REPOS = "cachedRepos";
+
+    private CacheNames() {
+    }
+}
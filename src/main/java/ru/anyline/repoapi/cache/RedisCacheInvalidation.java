@@ -0,0 +1,45 @@
+package ru.anyline.repoapi.cache;
+
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+
+/**
+ * Broadcasts L1 invalidations over a Redis pub/sub channel and applies the ones published by other nodes.
+ * Messages are {@code nodeId \n cacheName [\n key]}; a missing key means the whole cache.
+ */
+public class RedisCacheInvalidation implements CacheInvalidationPublisher, MessageListener {
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final StringRedisTemplate redisTemplate;
+    private final String channel;
+    private volatile BiConsumer<String, Object> handler = (cacheName, key) -> { };
+
+    public RedisCacheInvalidation(StringRedisTemplate redisTemplate, String channel) {
+        this.redisTemplate = redisTemplate;
+        this.channel = channel;
+    }
+
+    public void setHandler(BiConsumer<String, Object> handler) {
+        this.handler = handler;
+    }
+
+    @Override
+    public void publish(String cacheName, Object key) {
+        String message = nodeId + "\n" + cacheName + (key == null ? "" : "\n" + key);
+        redisTemplate.convertAndSend(channel, message);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\n", 3);
+        if (parts.length < 2 || parts[0].equals(nodeId)) {
+            return;
+        }
+        handler.accept(parts[1], parts.length == 3 ? parts[2] : null);
+    }
+}
@@ -0,0 +1,33 @@
+package ru.anyline.repoapi.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Keeps the invalidation listener subscribed without making Redis a startup dependency: the container is
+ * started by the first scheduled check and restarted whenever it is found not listening. Until then the
+ * node simply serves its L1 entries up to their TTL.
+ */
+@Slf4j
+public class RedisInvalidationSubscription {
+
+    private final RedisMessageListenerContainer container;
+
+    public RedisInvalidationSubscription(RedisMessageListenerContainer container) {
+        this.container = container;
+    }
+
+    @Scheduled(fixedDelayString = "${repoapi.cache.resubscribe-interval:PT30S}")
+    public void ensureSubscribed() {
+        if (container.isListening()) {
+            return;
+        }
+        try {
+            container.stop();
+            container.start();
+        } catch (RuntimeException e) {
+            log.warn("Cache invalidation channel is not subscribed, L1 entries will only expire by TTL: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package ru.anyline.repoapi.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import ru.anyline.repoapi.service.SingleFlight;
+
+import java.util.concurrent.Callable;
+
+/**
+ * A bounded in-process cache (L1) in front of a shared cache (L2). Reads fall through L1 to L2 and
+ * populate L1 on the way back; writes go to both tiers and are broadcast so other nodes drop their L1 copy.
+ * The shared tier is optional at runtime: if it fails the cache keeps working from L1 alone.
+ * <p>
+ * Every read is counted in {@code repoapi.cache.gets} by cache, tier and result: a hit or miss in L1, then for
+ * each L1 miss a hit, miss or error (unavailable) in L2.
+ */
+@Slf4j
+public class TwoTierCache implements Cache {
+
+    private final String name;
+    private final Cache local;
+    private final Cache remote;
+    private final CacheInvalidationPublisher invalidationPublisher;
+    private final SingleFlight<Object, Object> loads = new SingleFlight<>();
+    private final Counter localHits;
+    private final Counter localMisses;
+    private final Counter remoteHits;
+    private final Counter remoteMisses;
+    private final Counter remoteErrors;
+
+    public TwoTierCache(String name, Cache local, Cache remote, CacheInvalidationPublisher invalidationPublisher,
+                        MeterRegistry meterRegistry) {
+        this.name = name;
+        this.local = local;
+        this.remote = remote;
+        this.invalidationPublisher = invalidationPublisher;
+        localHits = getCounter(meterRegistry, "l1", "hit");
+        localMisses = getCounter(meterRegistry, "l1", "miss");
+        remoteHits = remote == null ? null : getCounter(meterRegistry, "l2", "hit");
+        remoteMisses = remote == null ? null : getCounter(meterRegistry, "l2", "miss");
+        remoteErrors = remote == null ? null : getCounter(meterRegistry, "l2", "error");
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return this;
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        ValueWrapper value = local.get(key);
+        if (value != null) {
+            localHits.increment();
+            return value;
+        }
+        localMisses.increment();
+        value = getRemote(key);
+        if (value != null) {
+            local.put(key, value.get());
+        }
+        return value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper value = get(key);
+        Object stored = value == null ? null : value.get();
+        if (stored != null && type != null && !type.isInstance(stored)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + stored);
+        }
+        return (T) stored;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper value = get(key);
+        if (value != null) {
+            return (T) value.get();
+        }
+        // loaded outside Caffeine's compute, which holds a synchronized map bin and would pin a virtual
+        // thread for the whole Redis round trip and load
+        return (T) loads.execute(key, () -> {
+            ValueWrapper raced = get(key);
+            if (raced != null) {
+                return raced.get();
+            }
+            Object loaded;
+            try {
+                loaded = valueLoader.call();
+            } catch (Exception e) {
+                throw new ValueRetrievalException(key, valueLoader, e);
+            }
+            put(key, loaded);
+            return loaded;
+        });
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        putRemote(key, value);
+        local.put(key, value);
+    }
+
+    @Override
+    public void evict(Object key) {
+        if (remote != null) {
+            try {
+                remote.evict(key);
+            } catch (RuntimeException e) {
+                log.warn("Shared cache {} is unavailable, evicting {} locally only: {}", name, key, e.getMessage());
+            }
+        }
+        local.evict(key);
+        publish(key);
+    }
+
+    @Override
+    public void clear() {
+        if (remote != null) {
+            try {
+                remote.clear();
+            } catch (RuntimeException e) {
+                log.warn("Shared cache {} is unavailable, clearing locally only: {}", name, e.getMessage());
+            }
+        }
+        local.clear();
+        publish(null);
+    }
+
+    void evictLocal(Object key) {
+        local.evict(key);
+    }
+
+    void clearLocal() {
+        local.clear();
+    }
+
+    private ValueWrapper getRemote(Object key) {
+        if (remote == null) {
+            return null;
+        }
+        try {
+            ValueWrapper value = remote.get(key);
+            (value == null ? remoteMisses : remoteHits).increment();
+            return value;
+        } catch (RuntimeException e) {
+            remoteErrors.increment();
+            log.warn("Shared cache {} is unavailable, reading {} from L1 only: {}", name, key, e.getMessage());
+            return null;
+        }
+    }
+
+    private void putRemote(Object key, Object value) {
+        if (remote == null) {
+            return;
+        }
+        try {
+            remote.put(key, value);
+            publish(key);
+        } catch (RuntimeException e) {
+            log.warn("Shared cache {} is unavailable, keeping {} in L1 only: {}", name, key, e.getMessage());
+        }
+    }
+
+    private Counter getCounter(MeterRegistry meterRegistry, String tier, String result) {
+        return Counter.builder("repoapi.cache.gets")
+                .description("Cache reads by tier and result")
+                .tag("cache", name)
+                .tag("tier", tier)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private void publish(Object key) {
+        try {
+            invalidationPublisher.publish(name, key);
+        } catch (RuntimeException e) {
+            log.warn("Could not broadcast invalidation of {} in {}: {}", key, name, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package ru.anyline.repoapi.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import ru.anyline.repoapi.config.RepoCacheProperties;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * Creates a {@link TwoTierCache} per cache name. L1 is a Caffeine cache bounded by the number of repositories
+ * it holds (a listing weighs as much as its size) and expiring with the cache TTL; L2 comes from
+ * {@code remoteCaches}, or is absent when that is {@code null}.
+ */
+public class TwoTierCacheManager implements CacheManager {
+
+    private final ConcurrentMap<String, TwoTierCache> caches = new ConcurrentHashMap<>();
+    private final RepoCacheProperties cacheProperties;
+    private final Function<String, Cache> remoteCaches;
+    private final CacheInvalidationPublisher invalidationPublisher;
+    private final MeterRegistry meterRegistry;
+
+    public TwoTierCacheManager(RepoCacheProperties cacheProperties, Function<String, Cache> remoteCaches,
+                               CacheInvalidationPublisher invalidationPublisher, MeterRegistry meterRegistry) {
+        this.cacheProperties = cacheProperties;
+        this.remoteCaches = remoteCaches;
+        this.invalidationPublisher = invalidationPublisher;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return caches.computeIfAbsent(name, this::createCache);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return Collections.unmodifiableSet(caches.keySet());
+    }
+
+    /**
+     * Applies an invalidation broadcast by another node to the local tier only.
+     */
+    public void onRemoteInvalidation(String cacheName, Object key) {
+        TwoTierCache cache = caches.get(cacheName);
+        if (cache == null) {
+            return;
+        }
+        if (key == null) {
+            cache.clearLocal();
+        } else {
+            cache.evictLocal(key);
+        }
+    }
+
+    private TwoTierCache createCache(String name) {
+        CaffeineCache local = new CaffeineCache(name, Caffeine.newBuilder()
+                .maximumWeight(cacheProperties.l1MaxSize(name))
+                .weigher((Object key, Object value) -> value instanceof Collection<?> values ? Math.max(1, values.size()) : 1)
+                .expireAfterWrite(cacheProperties.ttl(name))
+                .build());
+        Cache remote = remoteCaches == null ? null : remoteCaches.apply(name);
+        return new TwoTierCache(name, local, remote, invalidationPublisher, meterRegistry);
+    }
+}
@@ -0,0 +1,292 @@
+package ru.anyline.repoapi.cache;
+
+import org.springframework.cache.support.NullValue;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+import ru.anyline.repoapi.model.UserRepos;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Binary encoding for the {@code UserRepos} caches, replacing per-element JSON type metadata with a fixed layout:
+ * <pre>
+ * version:u8 flags:u8 [rawLength:varint if deflated] body
+ * body   = kind:u8 (0 single, 1 list, 2 cached null) [count:varint] repo*
+ * repo   = id:varint (0 = null, else id + 1) username repoName url
+ * string = varint 0 = null, 1 = same as the previous value of this field, n = (n - 2) UTF-8 bytes follow
+ * </pre>
+ * Bodies above the compression threshold are deflated. Readers reject versions they do not know, which
+ * the cache treats as a miss.
+ */
+public class UserReposRedisSerializer implements RedisSerializer<Object> {
+
+    static final byte VERSION = 1;
+
+    private static final int FLAG_DEFLATED = 1;
+
+    private static final int KIND_SINGLE = 0;
+    private static final int KIND_LIST = 1;
+    private static final int KIND_NULL = 2;
+
+    private static final int NULL_STRING = 0;
+    private static final int SAME_STRING = 1;
+
+    // a repo is at least its id and three string varints
+    private static final int MIN_REPO_BYTES = 4;
+    // deflate cannot expand its input by more than this
+    private static final int MAX_INFLATE_RATIO = 1032;
+    // a corrupt count must not size the list before the entry runs out
+    private static final int MAX_INITIAL_CAPACITY = 1024;
+
+    private final int compressionThreshold;
+
+    public UserReposRedisSerializer(int compressionThreshold) {
+        this.compressionThreshold = compressionThreshold;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return new byte[0];
+        }
+        Writer body = new Writer();
+        if (value instanceof UserRepos repo) {
+            body.writeByte(KIND_SINGLE);
+            body.writeRepo(repo);
+        } else if (value instanceof List<?> list) {
+            body.writeByte(KIND_LIST);
+            body.writeVarint(list.size());
+            for (Object element : list) {
+                if (!(element instanceof UserRepos repo)) {
+                    throw new SerializationException("Cannot serialize list element of type " + typeOf(element));
+                }
+                body.writeRepo(repo);
+            }
+        } else if (value instanceof NullValue) {
+            body.writeByte(KIND_NULL);
+        } else {
+            throw new SerializationException("Cannot serialize value of type " + typeOf(value));
+        }
+
+        Writer out = new Writer();
+        out.writeByte(VERSION);
+        if (body.size() > compressionThreshold) {
+            out.writeByte(FLAG_DEFLATED);
+            out.writeVarint(body.size());
+            out.writeBytes(deflate(body.toByteArray()));
+        } else {
+            out.writeByte(0);
+            out.writeBytes(body.toByteArray());
+        }
+        return out.toByteArray();
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        Reader header = new Reader(bytes, 0);
+        int version = header.readByte();
+        if (version != VERSION) {
+            throw new SerializationException("Unsupported UserRepos cache format version " + version);
+        }
+        int flags = header.readByte();
+        Reader body;
+        if ((flags & FLAG_DEFLATED) != 0) {
+            int rawLength = header.readVarint();
+            body = new Reader(inflate(bytes, header.position, rawLength), 0);
+        } else {
+            body = new Reader(bytes, header.position);
+        }
+
+        int kind = body.readByte();
+        switch (kind) {
+            case KIND_SINGLE:
+                return body.readRepo();
+            case KIND_LIST:
+                int count = body.readVarint();
+                if (count > body.remaining() / MIN_REPO_BYTES) {
+                    throw new SerializationException("Truncated UserRepos cache entry");
+                }
+                List<UserRepos> repos = new ArrayList<>(Math.min(count, MAX_INITIAL_CAPACITY));
+                for (int i = 0; i < count; i++) {
+                    repos.add(body.readRepo());
+                }
+                return repos;
+            case KIND_NULL:
+                return NullValue.INSTANCE;
+            default:
+                throw new SerializationException("Unknown UserRepos cache entry kind " + kind);
+        }
+    }
+
+    private static byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 2);
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] bytes, int offset, int rawLength) {
+        if (rawLength > (long) (bytes.length - offset) * MAX_INFLATE_RATIO) {
+            throw new SerializationException("Corrupt UserRepos cache entry");
+        }
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(bytes, offset, bytes.length - offset);
+            byte[] raw = new byte[rawLength];
+            int read = 0;
+            while (read < rawLength && !inflater.finished()) {
+                int inflated = inflater.inflate(raw, read, rawLength - read);
+                if (inflated == 0 && inflater.needsInput()) {
+                    break;
+                }
+                read += inflated;
+            }
+            if (read != rawLength) {
+                throw new SerializationException("Truncated UserRepos cache entry");
+            }
+            return raw;
+        } catch (DataFormatException e) {
+            throw new SerializationException("Corrupt UserRepos cache entry", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static String typeOf(Object value) {
+        return value == null ? "null" : value.getClass().getName();
+    }
+
+    private static final class Writer extends ByteArrayOutputStream {
+
+        private String previousUsername;
+        private String previousRepoName;
+        private String previousUrl;
+
+        Writer() {
+            super(256);
+        }
+
+        void writeRepo(UserRepos repo) {
+            writeVarint(repo.getId() == null ? 0 : repo.getId() + 1);
+            writeString(repo.getUsername(), previousUsername);
+            writeString(repo.getRepoName(), previousRepoName);
+            writeString(repo.getUrl(), previousUrl);
+            previousUsername = repo.getUsername();
+            previousRepoName = repo.getRepoName();
+            previousUrl = repo.getUrl();
+        }
+
+        void writeString(String value, String previous) {
+            if (value == null) {
+                writeVarint(NULL_STRING);
+            } else if (value.equals(previous)) {
+                writeVarint(SAME_STRING);
+            } else {
+                byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+                writeVarint(utf8.length + 2L);
+                writeBytes(utf8);
+            }
+        }
+
+        void writeByte(int value) {
+            write(value);
+        }
+
+        void writeVarint(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+    }
+
+    private static final class Reader {
+
+        private final byte[] bytes;
+        private int position;
+
+        private String previousUsername;
+        private String previousRepoName;
+        private String previousUrl;
+
+        Reader(byte[] bytes, int position) {
+            this.bytes = bytes;
+            this.position = position;
+        }
+
+        UserRepos readRepo() {
+            long id = readLong();
+            previousUsername = readString(previousUsername);
+            previousRepoName = readString(previousRepoName);
+            previousUrl = readString(previousUrl);
+            return new UserRepos(id == 0 ? null : id - 1, previousUsername, previousRepoName, previousUrl);
+        }
+
+        String readString(String previous) {
+            long code = readLong();
+            if (code == NULL_STRING) {
+                return null;
+            }
+            if (code == SAME_STRING) {
+                return previous;
+            }
+            long length = code - 2;
+            if (length < 0 || length > remaining()) {
+                throw new SerializationException("Truncated UserRepos cache entry");
+            }
+            String value = new String(bytes, position, (int) length, StandardCharsets.UTF_8);
+            position += (int) length;
+            return value;
+        }
+
+        int readByte() {
+            if (position >= bytes.length) {
+                throw new SerializationException("Truncated UserRepos cache entry");
+            }
+            return bytes[position++] & 0xFF;
+        }
+
+        int readVarint() {
+            long value = readLong();
+            if (value < 0 || value > Integer.MAX_VALUE) {
+                throw new SerializationException("Varint out of range in UserRepos cache entry: " + value);
+            }
+            return (int) value;
+        }
+
+        int remaining() {
+            return bytes.length - position;
+        }
+
+        long readLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new SerializationException("Malformed varint in UserRepos cache entry");
+        }
+    }
+}
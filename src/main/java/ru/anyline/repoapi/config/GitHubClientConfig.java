@@ -0,0 +1,64 @@
+package ru.anyline.repoapi.config;
+
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The pools below exist to bound how much GitHub work runs at once, not to save threads. With
+ * {@code spring.threads.virtual.enabled} they keep their sizes and queues but run their tasks on virtual threads,
+ * matching the virtual request threads that submit to them.
+ */
+@Configuration
+public class GitHubClientConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService gitHubPageExecutor(GitHubProperties gitHubProperties, Environment environment) {
+        return Executors.newFixedThreadPool(gitHubProperties.getPageConcurrency(),
+                threadFactory("github-page-", environment));
+    }
+
+    // a pool of its own: batch tasks wait on listing pages, which would deadlock sharing the page pool
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService gitHubBatchExecutor(GitHubProperties gitHubProperties, Environment environment) {
+        return Executors.newFixedThreadPool(gitHubProperties.getBatchConcurrency(),
+                threadFactory("github-batch-", environment));
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService gitHubRefreshExecutor(GitHubProperties gitHubProperties, Environment environment) {
+        GitHubProperties.Freshness freshness = gitHubProperties.getFreshness();
+        return new ThreadPoolExecutor(freshness.getRefreshConcurrency(), freshness.getRefreshConcurrency(),
+                0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(freshness.getRefreshQueueCapacity()),
+                threadFactory("github-refresh-", environment));
+    }
+
+    private static ThreadFactory threadFactory(String namePrefix, Environment environment) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            return virtualThreadFactory(namePrefix);
+        }
+        return new CustomizableThreadFactory(namePrefix);
+    }
+
+    // Thread.ofVirtual().name(namePrefix, 1).factory(), looked up at runtime: the build targets Java 17, and
+    // Threading.VIRTUAL is only active on Java 21
+    private static ThreadFactory virtualThreadFactory(String namePrefix) {
+        try {
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, namePrefix, 1L);
+            return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Virtual threads are not available on this JVM", e);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package ru.anyline.repoapi.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "repoapi.github")
+public class GitHubProperties {
+
+    private String baseUrl = "https://api.github.com";
+
+    /** Page size requested from list endpoints; GitHub caps it at 100. */
+    private int perPage = 100;
+
+    /** Upper bound on listing pages fetched from GitHub at the same time. */
+    private int pageConcurrency = 8;
+
+    /** Upper bound on users fetched from GitHub at the same time for batch lookups, across all requests. */
+    private int batchConcurrency = 8;
+
+    private final Freshness freshness = new Freshness();
+
+    private final Revalidation revalidation = new Revalidation();
+
+    private final RateLimit rateLimit = new RateLimit();
+
+    private final Reactive reactive = new Reactive();
+
+    @Data
+    public static class Freshness {
+
+        /** Cached entries younger than this are served without contacting GitHub. */
+        private Duration softTtl = Duration.ofMinutes(10);
+
+        /** Entries between the soft and hard TTL are served stale and refreshed in the background; older ones block on a refresh. */
+        private Duration hardTtl = Duration.ofHours(24);
+
+        /** For this long after startup, entries that expired while the service was down are served stale instead of blocking. */
+        private Duration restartGrace = Duration.ZERO;
+
+        /** Threads available to background refreshes. */
+        private int refreshConcurrency = 4;
+
+        /** Background refreshes allowed to wait for a thread before new ones are dropped. */
+        private int refreshQueueCapacity = 1000;
+    }
+
+    @Data
+    public static class Revalidation {
+
+        private boolean enabled = true;
+
+        /** How old a fetch has to be before the background job revalidates it. */
+        private Duration interval = Duration.ofMinutes(30);
+
+        /** Maximum number of entries revalidated per run. */
+        private int batchSize = 100;
+
+        /** How long an entry whose revalidation failed is left out of the following runs. */
+        private Duration failureBackoff = Duration.ofHours(6);
+    }
+
+    @Data
+    public static class RateLimit {
+
+        /** Whether outbound calls are metered against the X-RateLimit budget GitHub reports. */
+        private boolean enabled = true;
+
+        /** Share of each rate-limit window that only interactive requests may spend. */
+        private double interactiveReserve = 0.2;
+
+        /** Longest a background call waits for its paced slot before it is skipped. */
+        private Duration maxBackgroundWait = Duration.ofSeconds(10);
+
+        /** Backoff after a secondary rate limit that came without a Retry-After header. */
+        private Duration secondaryBackoff = Duration.ofMinutes(1);
+    }
+
+    @Data
+    public static class Reactive {
+
+        /** Serve /repos/{username} and /repos/{username}/{repoName} through WebClient and Reactor instead of the blocking client. */
+        private boolean enabled = false;
+
+        /** Threads that run table and cache work for reactive requests; keep it at the JDBC pool size. */
+        private int persistenceConcurrency = 10;
+
+        /** Table and cache tasks allowed to wait for one of those threads before new ones are rejected. */
+        private int persistenceQueueCapacity = 10000;
+    }
+
+}
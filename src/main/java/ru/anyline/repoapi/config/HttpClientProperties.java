@@ -0,0 +1,43 @@
+package ru.anyline.repoapi.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "repoapi.http")
+public class HttpClientProperties {
+
+    /** Upper bound on pooled connections across all hosts. */
+    private int maxConnections = 50;
+
+    /** Upper bound on pooled connections to a single host; keep it at or above the GitHub page concurrency. */
+    private int maxConnectionsPerRoute = 20;
+
+    private Duration connectTimeout = Duration.ofSeconds(5);
+
+    /** Maximum time to wait for response data once the request is sent. */
+    private Duration responseTimeout = Duration.ofSeconds(30);
+
+    /** Maximum time to wait for a free connection from the pool before failing the request. */
+    private Duration connectionRequestTimeout = Duration.ofSeconds(2);
+
+    /** Idle keep-alive connections are closed after this long. */
+    private Duration idleTimeout = Duration.ofSeconds(30);
+
+    /**
+     * Connections older than this are not reused, so DNS changes are picked up. The age is only checked when a
+     * connection is leased from or released back to the pool; a connection in use is never closed under a request.
+     */
+    private Duration connectionTimeToLive = Duration.ofMinutes(5);
+
+    /** Send Accept-Encoding: gzip, deflate and decompress responses transparently. */
+    private boolean compression = true;
+
+    /**
+     * Use the JDK HttpClient with HTTP/2 instead of the pooled HTTP/1.1 client. The JDK client multiplexes
+     * requests over its own connections, so the pool settings, compression and pool metrics do not apply.
+     */
+    private boolean http2 = false;
+}
@@ -0,0 +1,62 @@
+package ru.anyline.repoapi.config;
+
+import io.netty.channel.ChannelOption;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * The non-blocking side of the GitHub client, created only with {@code repoapi.github.reactive.enabled}. Requests
+ * run on Reactor Netty's event loops; the table and cache work around them runs on a bounded scheduler, since
+ * JDBC still blocks.
+ * <p>
+ * The pool takes its sizes and timeouts from {@code repoapi.http.*}. Reactor pools per host, so the per-route limit
+ * is the one that applies; {@code http2} has no effect here.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "repoapi.github.reactive", name = "enabled", havingValue = "true")
+public class ReactiveGitHubClientConfig {
+
+    // one listing page of 100 repositories is several times the 256 KB codecs buffer by default
+    private static final int MAX_RESPONSE_SIZE = 16 * 1024 * 1024;
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider gitHubConnectionProvider(HttpClientProperties httpProperties) {
+        return ConnectionProvider.builder("github")
+                .maxConnections(httpProperties.getMaxConnectionsPerRoute())
+                // waiting callers hold no thread, so only the wait is bounded, not the queue
+                .pendingAcquireMaxCount(-1)
+                .pendingAcquireTimeout(httpProperties.getConnectionRequestTimeout())
+                .maxIdleTime(httpProperties.getIdleTimeout())
+                .maxLifeTime(httpProperties.getConnectionTimeToLive())
+                .metrics(true)
+                .build();
+    }
+
+    @Bean
+    public WebClient gitHubWebClient(WebClient.Builder webClientBuilder, ConnectionProvider gitHubConnectionProvider,
+                                     HttpClientProperties httpProperties) {
+        HttpClient httpClient = HttpClient.create(gitHubConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) httpProperties.getConnectTimeout().toMillis())
+                .responseTimeout(httpProperties.getResponseTimeout())
+                .compress(httpProperties.isCompression());
+        // the builder brings Boot's codecs and the http.client.requests observation
+        return webClientBuilder
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(MAX_RESPONSE_SIZE))
+                .build();
+    }
+
+    @Bean(destroyMethod = "dispose")
+    public Scheduler gitHubPersistenceScheduler(GitHubProperties gitHubProperties) {
+        GitHubProperties.Reactive reactive = gitHubProperties.getReactive();
+        return Schedulers.newBoundedElastic(reactive.getPersistenceConcurrency(),
+                reactive.getPersistenceQueueCapacity(), "github-persistence");
+    }
+}
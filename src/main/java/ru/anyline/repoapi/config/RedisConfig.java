@@ -1,5 +1,8 @@
 package ru.anyline.repoapi.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
@@ -7,30 +10,92 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
+import ru.anyline.repoapi.cache.RedisCacheInvalidation;
+import ru.anyline.repoapi.cache.RedisInvalidationSubscription;
+import ru.anyline.repoapi.cache.TwoTierCacheManager;
+import ru.anyline.repoapi.cache.UserReposRedisSerializer;
+
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @EnableCaching
 @Configuration
 public class RedisConfig {
     @Bean
-    public CacheManager cacheManager(RedisConnectionFactory redisConnectionFactory){
+    public CacheManager cacheManager(ObjectProvider<RedisConnectionFactory> redisConnectionFactory,
+                                     ObjectProvider<RedisCacheInvalidation> cacheInvalidation,
+                                     RepoCacheProperties cacheProperties, MeterRegistry meterRegistry){
+        if (!cacheProperties.isRedisEnabled()) {
+            return new TwoTierCacheManager(cacheProperties, null, (cacheName, key) -> { }, meterRegistry);
+        }
+
         RedisCacheConfiguration config = RedisCacheConfiguration
                 .defaultCacheConfig()
                 .serializeKeysWith(
                         RedisSerializationContext
                                 .SerializationPair
                                 .fromSerializer(new StringRedisSerializer())
-                )
-                .serializeValuesWith(
-                        RedisSerializationContext
-                                .SerializationPair
-                                .fromSerializer(new GenericJackson2JsonRedisSerializer())
                 );
-        return RedisCacheManager.builder(redisConnectionFactory)
-                .cacheDefaults(config)
+        Map<String, RedisCacheConfiguration> perCacheConfig = cacheProperties.getCaches().keySet().stream()
+                .collect(Collectors.toMap(Function.identity(), name -> config
+                        .entryTtl(cacheProperties.ttl(name))
+                        .serializeValuesWith(valueSerializer(cacheProperties.valueFormat(name), cacheProperties))));
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(redisConnectionFactory.getObject())
+                .cacheDefaults(config
+                        .entryTtl(cacheProperties.getDefaultTtl())
+                        .serializeValuesWith(valueSerializer(cacheProperties.getDefaultValueFormat(), cacheProperties)))
+                .withInitialCacheConfigurations(perCacheConfig)
                 .build();
+        redisCacheManager.afterPropertiesSet();
+
+        RedisCacheInvalidation invalidation = cacheInvalidation.getObject();
+        TwoTierCacheManager cacheManager = new TwoTierCacheManager(cacheProperties, redisCacheManager::getCache, invalidation, meterRegistry);
+        invalidation.setHandler(cacheManager::onRemoteInvalidation);
+        return cacheManager;
+    }
+
+    private static RedisSerializationContext.SerializationPair<Object> valueSerializer(RepoCacheProperties.ValueFormat format,
+                                                                                     RepoCacheProperties cacheProperties) {
+        RedisSerializer<Object> serializer = format == RepoCacheProperties.ValueFormat.BINARY
+                ? new UserReposRedisSerializer(cacheProperties.getCompressionThreshold())
+                : new GenericJackson2JsonRedisSerializer();
+        return RedisSerializationContext.SerializationPair.fromSerializer(serializer);
     }
-}
 
+    @Bean
+    @ConditionalOnProperty(prefix = "repoapi.cache", name = "redis-enabled", havingValue = "true", matchIfMissing = true)
+    public RedisCacheInvalidation cacheInvalidation(StringRedisTemplate redisTemplate, RepoCacheProperties cacheProperties) {
+        return new RedisCacheInvalidation(redisTemplate, cacheProperties.getInvalidationChannel());
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "repoapi.cache", name = "redis-enabled", havingValue = "true", matchIfMissing = true)
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(RedisConnectionFactory redisConnectionFactory,
+                                                                           RedisCacheInvalidation cacheInvalidation,
+                                                                           RepoCacheProperties cacheProperties) {
+        // started by RedisInvalidationSubscription so that Redis being down does not fail startup
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer() {
+            @Override
+            public boolean isAutoStartup() {
+                return false;
+            }
+        };
+        container.setConnectionFactory(redisConnectionFactory);
+        container.addMessageListener(cacheInvalidation, new ChannelTopic(cacheProperties.getInvalidationChannel()));
+        return container;
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "repoapi.cache", name = "redis-enabled", havingValue = "true", matchIfMissing = true)
+    public RedisInvalidationSubscription cacheInvalidationSubscription(RedisMessageListenerContainer cacheInvalidationListenerContainer) {
+        return new RedisInvalidationSubscription(cacheInvalidationListenerContainer);
+    }
+}
@@ -0,0 +1,65 @@
+package ru.anyline.repoapi.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "repoapi.cache")
+public class RepoCacheProperties {
+
+    /** Whether Redis backs the shared (L2) tier; with it off every node only has its own L1. */
+    private boolean redisEnabled = true;
+
+    /** Redis pub/sub channel used to keep the L1 tiers of all nodes coherent. */
+    private String invalidationChannel = "repoapi:cache-invalidation";
+
+    private Duration defaultTtl = Duration.ofMinutes(1);
+
+    /** Default L1 bound, counted in repositories: a cached listing weighs as much as its size. */
+    private long defaultL1MaxSize = 100_000;
+
+    /** How values are written to Redis for caches that do not override it. */
+    private ValueFormat defaultValueFormat = ValueFormat.JSON;
+
+    /** Binary values whose encoded body is larger than this many bytes are deflated. */
+    private int compressionThreshold = 1024;
+
+    /** Per-cache overrides, keyed by cache name. */
+    private Map<String, Spec> caches = new LinkedHashMap<>();
+
+    public Duration ttl(String cacheName) {
+        Spec spec = caches.get(cacheName);
+        return spec != null && spec.getTtl() != null ? spec.getTtl() : defaultTtl;
+    }
+
+    public long l1MaxSize(String cacheName) {
+        Spec spec = caches.get(cacheName);
+        return spec != null && spec.getL1MaxSize() != null ? spec.getL1MaxSize() : defaultL1MaxSize;
+    }
+
+    public ValueFormat valueFormat(String cacheName) {
+        Spec spec = caches.get(cacheName);
+        return spec != null && spec.getValueFormat() != null ? spec.getValueFormat() : defaultValueFormat;
+    }
+
+    public enum ValueFormat {
+        /** Self-describing JSON with type hints; works for any cached value. */
+        JSON,
+        /** Compact encoding from {@code UserReposRedisSerializer}; only for {@code UserRepos} values and lists. */
+        BINARY
+    }
+
+    @Data
+    public static class Spec {
+
+        private Duration ttl;
+
+        private Long l1MaxSize;
+
+        private ValueFormat valueFormat;
+    }
+}
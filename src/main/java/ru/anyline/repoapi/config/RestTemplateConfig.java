@@ -1,18 +1,86 @@
 package ru.anyline.repoapi.config;
 
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClientBuilder;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+import java.net.http.HttpClient;
+
 @Configuration
 public class RestTemplateConfig {
 
     @Bean
-    public RestTemplate restTemplate() {
-        RestTemplate restTemplate = new RestTemplate();
-        restTemplate.getMessageConverters().add(new MappingJackson2HttpMessageConverter());
-        return restTemplate;
+    public RestTemplate restTemplate(RestTemplateBuilder restTemplateBuilder, HttpClientProperties httpProperties,
+                                     PoolingHttpClientConnectionManager httpConnectionManager) {
+        // the builder brings Boot's message converters and the http.client.requests observation
+        return restTemplateBuilder
+                .requestFactory(() -> requestFactory(httpProperties, httpConnectionManager))
+                .build();
+    }
+
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager httpConnectionManager(HttpClientProperties httpProperties) {
+        return PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(httpProperties.getMaxConnections())
+                .setMaxConnPerRoute(httpProperties.getMaxConnectionsPerRoute())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(httpProperties.getConnectTimeout()))
+                        .setSocketTimeout(Timeout.of(httpProperties.getResponseTimeout()))
+                        .setTimeToLive(TimeValue.of(httpProperties.getConnectionTimeToLive()))
+                        .build())
+                .build();
+    }
+
+    /**
+     * Publishes httpcomponents.httpclient.pool.* gauges for sizing the pool: leased, available and pending
+     * connections. Pending counts the requests waiting for a connection; how long they wait is not measured.
+     */
+    @Bean
+    public MeterBinder httpConnectionPoolMetrics(PoolingHttpClientConnectionManager httpConnectionManager) {
+        return new PoolingHttpClientConnectionManagerMetricsBinder(httpConnectionManager, "github");
     }
 
+    private static ClientHttpRequestFactory requestFactory(HttpClientProperties httpProperties,
+                                                           PoolingHttpClientConnectionManager httpConnectionManager) {
+        if (httpProperties.isHttp2()) {
+            HttpClient httpClient = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_2)
+                    .connectTimeout(httpProperties.getConnectTimeout())
+                    .build();
+            JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+            requestFactory.setReadTimeout(httpProperties.getResponseTimeout());
+            return requestFactory;
+        }
+
+        HttpClientBuilder httpClient = HttpClients.custom()
+                .setConnectionManager(httpConnectionManager)
+                // the pool outlives the RestTemplate's factory, so closing a client must not close it
+                .setConnectionManagerShared(true)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.of(httpProperties.getConnectionRequestTimeout()))
+                        .setResponseTimeout(Timeout.of(httpProperties.getResponseTimeout()))
+                        .build())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.of(httpProperties.getIdleTimeout()));
+        if (!httpProperties.isCompression()) {
+            httpClient.disableContentCompression();
+        }
+        CloseableHttpClient client = httpClient.build();
+        return new HttpComponentsClientHttpRequestFactory(client);
+    }
 }
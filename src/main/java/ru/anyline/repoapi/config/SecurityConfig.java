@@ -24,6 +24,8 @@ public class SecurityConfig {
         http
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers("/login", "/swagger", "/repos/**").permitAll()
+                        // for the load balancer and the Prometheus scraper; keep the port off the public network
+                        .requestMatchers("/actuator/health", "/actuator/prometheus").permitAll()
                         .anyRequest().authenticated()
                 )
                 .formLogin(form -> form
@@ -1,20 +1,35 @@
 package ru.anyline.repoapi.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.tags.Tag;
-import lombok.AllArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import ru.anyline.repoapi.model.UserRepos;
+import ru.anyline.repoapi.service.GitHubBatchService;
+import ru.anyline.repoapi.service.GitHubMetrics;
 import ru.anyline.repoapi.service.GitHubServiceImpl;
+import ru.anyline.repoapi.service.UserReposResult;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 @RestController
-@AllArgsConstructor
+@ConditionalOnProperty(prefix = "repoapi.github.reactive", name = "enabled", havingValue = "false", matchIfMissing = true)
 @Tag(name = "GitHub public repos",description = "API для получения списка публичных репо")
-public class GitHubController {
+public class GitHubController extends StoredReposController {
 
-    private final GitHubServiceImpl gitHubServiceImpl;
+    static final int MAX_BATCH_USERNAMES = 100;
+
+    private final GitHubMetrics gitHubMetrics;
+    private final GitHubBatchService gitHubBatchService;
+
+    public GitHubController(GitHubServiceImpl gitHubServiceImpl, ObjectMapper objectMapper, GitHubMetrics gitHubMetrics,
+                            GitHubBatchService gitHubBatchService) {
+        super(gitHubServiceImpl, objectMapper);
+        this.gitHubMetrics = gitHubMetrics;
+        this.gitHubBatchService = gitHubBatchService;
+    }
 
     @GetMapping("/repos/{username}")
     @Tag(name = "GitHub public repos", description = "API для получения списка публичных репо")
@@ -25,49 +40,50 @@ public class GitHubController {
 
         try {
             List<UserRepos> repos = gitHubServiceImpl.getRepositories(username);
+            if (repos != null) {
+                gitHubMetrics.reposPerResponse(repos.size());
+            }
             return ResponseEntity.ok(repos);
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(null);
+        } catch (RuntimeException e) {
+            return upstreamFailure(e);
         }
     }
 
-    @GetMapping("/repos/{username}/{repoName}")
-    @Tag(name = "Get a specific repo", description = "API для получения определенного репозитория пользователя")
-    public ResponseEntity<UserRepos> getCustomRepository(@PathVariable String username, @PathVariable String repoName) {
-        if (username == null || username.isEmpty() || repoName == null || repoName.isEmpty()) {
+    /**
+     * The repositories of several users in one call, keyed by username as given. A user that could not be looked
+     * up gets an error entry and does not fail the others. Takes precedence over the {@code /repos} page when
+     * {@code usernames} is present.
+     */
+    @GetMapping(value = "/repos", params = "usernames")
+    @Tag(name = "Get repos of several users", description = "API для получения списков публичных репо нескольких пользователей")
+    public ResponseEntity<Map<String, UserReposResult>> getRepositoriesOfUsers(@RequestParam List<String> usernames) {
+        if (!validUsernames(usernames)) {
             return ResponseEntity.badRequest().body(null);
         }
         try {
-            UserRepos repo = gitHubServiceImpl.getRepository(username, repoName);
-            return ResponseEntity.ok(repo);
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(null);
-        }
-    }
-
-    @GetMapping("/cached")
-    @Tag(name = "Get all repos from DB",description = "Выводит JSON список всех сохраненных репо")
-    public ResponseEntity<List<UserRepos>> getAllRepos() {
-        try {
-            List<UserRepos> cachedRepos = gitHubServiceImpl.getCachedRepos();
-            return ResponseEntity.ok(cachedRepos);
+            return ResponseEntity.ok(gitHubBatchService.getRepositories(usernames));
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
 
-    @GetMapping("/cached/{username}")
-    @Tag(name = "Get repos from DB by username",description = "Выводит JSON список репозиториев пользователя из БД")
-    public ResponseEntity<List<UserRepos>> getReposByUsername(@PathVariable String username) {
-        if (username == null || username.isEmpty()) {
+    @GetMapping("/repos/{username}/{repoName}")
+    @Tag(name = "Get a specific repo", description = "API для получения определенного репозитория пользователя")
+    public ResponseEntity<UserRepos> getCustomRepository(@PathVariable String username, @PathVariable String repoName) {
+        if (username == null || username.isEmpty() || repoName == null || repoName.isEmpty()) {
             return ResponseEntity.badRequest().body(null);
         }
         try {
-            List<UserRepos> cachedRepos = gitHubServiceImpl.getReposByUsername(username);
-            return ResponseEntity.ok(cachedRepos);
+            UserRepos repo = gitHubServiceImpl.getRepository(username, repoName);
+            return ResponseEntity.ok(repo);
         } catch (RuntimeException e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+            return upstreamFailure(e);
         }
     }
 
-}
\ No newline at end of file
+    static boolean validUsernames(List<String> usernames) {
+        return usernames != null && !usernames.isEmpty() && usernames.size() <= MAX_BATCH_USERNAMES
+                && usernames.stream().allMatch(username -> username != null && !username.isBlank());
+    }
+
+}
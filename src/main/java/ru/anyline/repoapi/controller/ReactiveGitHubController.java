@@ -0,0 +1,82 @@
+package ru.anyline.repoapi.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import ru.anyline.repoapi.model.UserRepos;
+import ru.anyline.repoapi.service.GitHubBatchService;
+import ru.anyline.repoapi.service.GitHubMetrics;
+import ru.anyline.repoapi.service.GitHubServiceImpl;
+import ru.anyline.repoapi.service.ReactiveGitHubService;
+import ru.anyline.repoapi.service.UserReposResult;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link GitHubController}'s {@code /repos} endpoints on {@link ReactiveGitHubService}, used with
+ * {@code repoapi.github.reactive.enabled}. Spring MVC completes the returned {@link Mono} asynchronously, so the
+ * servlet thread is released while GitHub answers.
+ */
+@RestController
+@ConditionalOnProperty(prefix = "repoapi.github.reactive", name = "enabled", havingValue = "true")
+@Tag(name = "GitHub public repos",description = "API для получения списка публичных репо")
+public class ReactiveGitHubController extends StoredReposController {
+
+    private final ReactiveGitHubService reactiveGitHubService;
+    private final GitHubMetrics gitHubMetrics;
+    private final GitHubBatchService gitHubBatchService;
+
+    public ReactiveGitHubController(ReactiveGitHubService reactiveGitHubService, GitHubServiceImpl gitHubServiceImpl,
+                                    ObjectMapper objectMapper, GitHubMetrics gitHubMetrics,
+                                    GitHubBatchService gitHubBatchService) {
+        super(gitHubServiceImpl, objectMapper);
+        this.reactiveGitHubService = reactiveGitHubService;
+        this.gitHubMetrics = gitHubMetrics;
+        this.gitHubBatchService = gitHubBatchService;
+    }
+
+    @GetMapping("/repos/{username}")
+    @Tag(name = "GitHub public repos", description = "API для получения списка публичных репо")
+    public Mono<ResponseEntity<List<UserRepos>>> getRepositories(@PathVariable String username) {
+        if (username == null || username.isEmpty()) {
+            return Mono.just(ResponseEntity.badRequest().body(null));
+        }
+        return reactiveGitHubService.getRepositories(username)
+                .doOnNext(repos -> gitHubMetrics.reposPerResponse(repos.size()))
+                .map(ResponseEntity::ok)
+                .onErrorResume(e -> Mono.just(upstreamFailure(e)));
+    }
+
+    // the batch waits on its own bounded executor; only the wait is moved off the servlet thread
+    @GetMapping(value = "/repos", params = "usernames")
+    @Tag(name = "Get repos of several users", description = "API для получения списков публичных репо нескольких пользователей")
+    public Mono<ResponseEntity<Map<String, UserReposResult>>> getRepositoriesOfUsers(@RequestParam List<String> usernames) {
+        if (!GitHubController.validUsernames(usernames)) {
+            return Mono.just(ResponseEntity.badRequest().body(null));
+        }
+        return Mono.fromCallable(() -> ResponseEntity.ok(gitHubBatchService.getRepositories(usernames)))
+                .subscribeOn(Schedulers.boundedElastic())
+                .onErrorReturn(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
+    }
+
+    @GetMapping("/repos/{username}/{repoName}")
+    @Tag(name = "Get a specific repo", description = "API для получения определенного репозитория пользователя")
+    public Mono<ResponseEntity<UserRepos>> getCustomRepository(@PathVariable String username, @PathVariable String repoName) {
+        if (username == null || username.isEmpty() || repoName == null || repoName.isEmpty()) {
+            return Mono.just(ResponseEntity.badRequest().body(null));
+        }
+        return reactiveGitHubService.getRepository(username, repoName)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.ok().build())
+                .onErrorResume(e -> Mono.just(upstreamFailure(e)));
+    }
+}
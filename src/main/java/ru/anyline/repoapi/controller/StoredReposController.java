@@ -0,0 +1,119 @@
+package ru.anyline.repoapi.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.reactive.function.client.WebClientException;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.anyline.repoapi.exceptions.RateLimitExceededException;
+import ru.anyline.repoapi.model.UserRepos;
+import ru.anyline.repoapi.service.GitHubServiceImpl;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * The {@code /cached} endpoints, which only read the table and so are the same whether {@code /repos} is served by
+ * {@link GitHubController} or {@link ReactiveGitHubController}.
+ */
+public abstract class StoredReposController {
+
+    static final int DEFAULT_PAGE_SIZE = 100;
+    static final int MAX_PAGE_SIZE = 1000;
+
+    protected final GitHubServiceImpl gitHubServiceImpl;
+    private final ObjectMapper objectMapper;
+
+    protected StoredReposController(GitHubServiceImpl gitHubServiceImpl, ObjectMapper objectMapper) {
+        this.gitHubServiceImpl = gitHubServiceImpl;
+        this.objectMapper = objectMapper;
+    }
+
+    @GetMapping("/cached")
+    @Tag(name = "Get all repos from DB",description = "Выводит JSON список сохраненных репо постранично")
+    public ResponseEntity<List<UserRepos>> getAllRepos(@RequestParam(required = false) Long after,
+                                                       @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().body(null);
+        }
+        try {
+            List<UserRepos> cachedRepos = gitHubServiceImpl.getCachedRepos(after, limit);
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            if (cachedRepos.size() == limit) {
+                // the same Link header GitHub pages with; the cursor is the last id of this page
+                Long lastId = cachedRepos.get(cachedRepos.size() - 1).getId();
+                response.header(HttpHeaders.LINK, "</cached?after=" + lastId + "&limit=" + limit + ">; rel=\"next\"");
+            }
+            return response.body(cachedRepos);
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @GetMapping(value = "/cached", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Tag(name = "Stream all repos from DB", description = "Выводит все сохраненные репо в формате NDJSON, по одному на строку")
+    public ResponseEntity<StreamingResponseBody> streamAllRepos() {
+        StreamingResponseBody body = out -> {
+            try (SequenceWriter writer = objectMapper.writer().withRootValueSeparator("\n").writeValues(out)) {
+                gitHubServiceImpl.streamCachedRepos(repo -> {
+                    try {
+                        writer.write(repo);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    @GetMapping("/cached/{username}")
+    @Tag(name = "Get repos from DB by username",description = "Выводит JSON список репозиториев пользователя из БД")
+    public ResponseEntity<List<UserRepos>> getReposByUsername(@PathVariable String username) {
+        if (username == null || username.isEmpty()) {
+            return ResponseEntity.badRequest().body(null);
+        }
+        try {
+            List<UserRepos> cachedRepos = gitHubServiceImpl.getReposByUsername(username);
+            return ResponseEntity.ok(cachedRepos);
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * The response for a failed GitHub lookup: 429 with {@code Retry-After} when rate limited, 404 when GitHub has no
+     * such user or repository, 503 when GitHub could not be reached and 502 when it answered with any other error.
+     */
+    protected static <T> ResponseEntity<T> upstreamFailure(Throwable e) {
+        if (e instanceof RateLimitExceededException rateLimited) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(rateLimited.getRetryAfterSeconds())).body(null);
+        }
+        if (e instanceof HttpClientErrorException.NotFound || e instanceof WebClientResponseException.NotFound) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
+        }
+        if (e instanceof ResourceAccessException || e instanceof WebClientRequestException) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(null);
+        }
+        if (e instanceof RestClientException || e instanceof WebClientException) {
+            return ResponseEntity.status(HttpStatus.BAD_GATEWAY).body(null);
+        }
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+    }
+}
@@ -4,20 +4,38 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import ru.anyline.repoapi.exceptions.ProjectNotFoundException;
 import ru.anyline.repoapi.model.UserProject;
+import ru.anyline.repoapi.repository.ProjectSort;
+import ru.anyline.repoapi.service.ParticipantPage;
+import ru.anyline.repoapi.service.ProjectBatchRequest;
+import ru.anyline.repoapi.service.ProjectBatchResult;
+import ru.anyline.repoapi.service.ProjectBatchService;
+import ru.anyline.repoapi.service.ProjectPage;
+import ru.anyline.repoapi.service.ProjectSearchIndex;
 import ru.anyline.repoapi.service.UserProjectServiceImpl;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/projects")
 public class UserProjectController {
 
+    static final int DEFAULT_PAGE_SIZE = 100;
+    static final int MAX_PAGE_SIZE = 1000;
+    static final int DEFAULT_SEARCH_LIMIT = 20;
+    static final int MAX_SEARCH_LIMIT = 100;
+    static final int MAX_PARTICIPANTS_PER_REQUEST = 10_000;
+    static final int MAX_BATCH_ITEMS = 10_000;
+
     private final UserProjectServiceImpl userProjectService;
+    private final ProjectBatchService projectBatchService;
 
-    public UserProjectController(UserProjectServiceImpl userProjectService) {
+    public UserProjectController(UserProjectServiceImpl userProjectService, ProjectBatchService projectBatchService) {
         this.userProjectService = userProjectService;
+        this.projectBatchService = projectBatchService;
     }
 
     @PostMapping
@@ -34,13 +52,40 @@ public class UserProjectController {
     }
 
     @GetMapping
-    public ResponseEntity<List<UserProject>> getAllProjects() {
-        List<UserProject> projects = userProjectService.getAllProjects();
-        return new ResponseEntity<>(projects, HttpStatus.OK);
+    public ResponseEntity<ProjectPage> getAllProjects(@RequestParam(defaultValue = "id") String sort,
+                                                      @RequestParam(defaultValue = "asc") String order,
+                                                      @RequestParam(required = false) String cursor,
+                                                      @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit) {
+        return listProjects(null, sort, order, cursor, limit);
+    }
+
+    /**
+     * Creates, updates and deletes many projects in one call. The response holds a result per item; an item
+     * that could not be applied does not fail the others.
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<ProjectBatchResult> applyBatch(@RequestBody ProjectBatchRequest request) {
+        if (request == null || request.size() == 0 || request.size() > MAX_BATCH_ITEMS) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(projectBatchService.apply(request));
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<List<UserProject>> searchProjects(@RequestParam String q,
+                                                            @RequestParam(defaultValue = "" + DEFAULT_SEARCH_LIMIT) int limit) {
+        if (q == null || q.trim().length() < ProjectSearchIndex.MIN_QUERY_LENGTH || limit < 1 || limit > MAX_SEARCH_LIMIT) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.ok(userProjectService.searchProjects(q, limit));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<UserProject> updateProject(String id, UserProject project) {
+    public ResponseEntity<UserProject> updateProject(@PathVariable String id, @RequestBody UserProject project) {
         if (project == null || project.getName() == null || project.getName().trim().isEmpty()) {
             return ResponseEntity.badRequest().build();
         }
@@ -72,8 +117,79 @@ public class UserProjectController {
     }
 
     @GetMapping("/user/{userId}")
-    public ResponseEntity<Optional<UserProject>> getProjectsByUserId(@PathVariable Long userId) {
-        Optional<UserProject> projects = userProjectService.getUserProjectById(userId);
-        return new ResponseEntity<>(projects, HttpStatus.OK);
+    public ResponseEntity<ProjectPage> getProjectsByUserId(@PathVariable Long userId,
+                                                           @RequestParam(defaultValue = "id") String sort,
+                                                           @RequestParam(defaultValue = "asc") String order,
+                                                           @RequestParam(required = false) String cursor,
+                                                           @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit) {
+        if (userId == null || userId <= 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        return listProjects(userId, sort, order, cursor, limit);
+    }
+
+    @GetMapping("/{id}/participants")
+    public ResponseEntity<ParticipantPage> getParticipants(@PathVariable Long id,
+                                                           @RequestParam(required = false) Long after,
+                                                           @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.ok(userProjectService.getProjectParticipants(id, after, limit));
+        } catch (ProjectNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @PostMapping("/{id}/participants")
+    public ResponseEntity<Map<String, Integer>> addParticipants(@PathVariable Long id, @RequestBody List<Long> userIds) {
+        if (!validUserIds(userIds)) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.ok(Map.of("added", userProjectService.addParticipants(id, userIds)));
+        } catch (ProjectNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    // a POST rather than a DELETE with a body, which proxies and clients are free to drop
+    @PostMapping("/{id}/participants/remove")
+    public ResponseEntity<Map<String, Integer>> removeParticipants(@PathVariable Long id, @RequestBody List<Long> userIds) {
+        if (!validUserIds(userIds)) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.ok(Map.of("removed", userProjectService.removeParticipants(id, userIds)));
+        } catch (ProjectNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    private static boolean validUserIds(List<Long> userIds) {
+        return userIds != null && !userIds.isEmpty() && userIds.size() <= MAX_PARTICIPANTS_PER_REQUEST
+                && userIds.stream().allMatch(userId -> userId != null && userId > 0);
+    }
+
+    private ResponseEntity<ProjectPage> listProjects(Long userId, String sort, String order, String cursor, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE || !(order.equals("asc") || order.equals("desc"))) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.ok(userProjectService.getProjects(userId, ProjectSort.fromParameter(sort),
+                    order.equals("desc"), cursor, limit));
+        } catch (IllegalArgumentException e) {
+            // an unknown sort, or a cursor that is malformed or from another order
+            return ResponseEntity.badRequest().build();
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
     }
 }
\ No newline at end of file
@@ -1,7 +1,6 @@
 package ru.anyline.repoapi.controller;
 
 import lombok.AllArgsConstructor;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -9,9 +8,10 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.HttpServerErrorException;
 import org.springframework.web.client.ResourceAccessException;
-import org.springframework.web.client.RestTemplate;
+import ru.anyline.repoapi.exceptions.RateLimitExceededException;
 import ru.anyline.repoapi.exceptions.UserReposException;
 import ru.anyline.repoapi.model.UserRepos;
+import ru.anyline.repoapi.service.GitHubService;
 
 import java.util.List;
 
@@ -19,26 +19,22 @@ import java.util.List;
 @AllArgsConstructor
 public class UserReposController {
 
-    private final RestTemplate restTemplate;
+    private final GitHubService gitHubService;
 
     @GetMapping("/repos")
     public String getUserRepos(@RequestParam(name = "username", required = false) String username, Model model) {
         if (username != null && !username.isEmpty()) {
-            String url = "http://localhost:8080/repos/" + username;
             try {
-                ResponseEntity<UserRepos[]> responseEntity = restTemplate.getForEntity(url, UserRepos[].class);
-                if (responseEntity.getStatusCode().is4xxClientError() || responseEntity.getStatusCode().is5xxServerError()) {
-                    model.addAttribute("error", "Error 404: User not found.");
-                    return "repos";
-                }
-                UserRepos[] reposArray = responseEntity.getBody();
+                // GitHub errors surface from the service as the same RestTemplate exceptions handled below
+                List<UserRepos> repos = gitHubService.getRepositories(username);
 
-                if (reposArray != null) {
-                    List<UserRepos> repos = List.of(reposArray);
+                if (repos != null) {
                     model.addAttribute("repos", repos);
                 }
                 model.addAttribute("username", username);
 
+            } catch (RateLimitExceededException e) {
+                model.addAttribute("error", "GitHub rate limit reached, try again in " + e.getRetryAfterSeconds() + " seconds.");
             } catch (HttpClientErrorException e) {
                 model.addAttribute("error", "Client error: " + e.getStatusCode() + " - " + e.getResponseBodyAsString());
             } catch (HttpServerErrorException e) {
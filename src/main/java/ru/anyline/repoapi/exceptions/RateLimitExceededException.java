@@ -0,0 +1,30 @@
+package ru.anyline.repoapi.exceptions;
+
+import java.time.Duration;
+
+/**
+ * Thrown instead of calling GitHub when the rate-limit budget is spent or GitHub asked us to back off.
+ */
+public class RateLimitExceededException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public RateLimitExceededException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public RateLimitExceededException(String message, Duration retryAfter, Throwable cause) {
+        super(message, cause);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+
+    /** The wait rounded up to whole seconds, as sent in a {@code Retry-After} header. */
+    public long getRetryAfterSeconds() {
+        return Math.max(1, (retryAfter.toMillis() + 999) / 1000);
+    }
+}
@@ -0,0 +1,38 @@
+package ru.anyline.repoapi.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Validators GitHub returned for the last successful fetch of a listing ({@code repoName == null})
+ * or of a single repository, used to revalidate the cached rows with a conditional request.
+ * {@code revalidateAfter} keeps an entry whose last revalidation failed out of the background job until then.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FetchState {
+
+    @Id
+    private String fetchKey;
+    private String username;
+    private String repoName;
+    private String etag;
+    private String lastModified;
+    private Instant fetchedAt;
+    private Instant revalidateAfter;
+
+    public static String listingKey(String username) {
+        return "users/" + username + "/repos";
+    }
+
+    public static String repoKey(String username, String repoName) {
+        return "repos/" + username + "/" + repoName;
+    }
+}
@@ -0,0 +1,24 @@
+package ru.anyline.repoapi.model;
+
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Membership of a user in a project. The primary key (project, user) lists a project's participants; the
+ * index in the other direction lists a user's projects.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(indexes = @Index(name = "ix_project_participant_user_id", columnList = "user_id, project_id"))
+public class ProjectParticipant {
+
+    @EmbeddedId
+    private ProjectParticipantId id;
+}
@@ -0,0 +1,18 @@
+package ru.anyline.repoapi.model;
+
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Embeddable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProjectParticipantId implements Serializable {
+
+    private Long projectId;
+    private Long userId;
+}
@@ -4,21 +4,26 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
 import lombok.Data;
 
 
 @Entity
 @Data
+@Table(indexes = {
+        @Index(name = "ix_user_project_user_id", columnList = "user_id, id"),
+        @Index(name = "ix_user_project_user_id_name", columnList = "user_id, name, id"),
+        @Index(name = "ix_user_project_name", columnList = "name, id")
+})
 public class UserProject {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_project_seq")
+    @SequenceGenerator(name = "user_project_seq", sequenceName = "user_project_seq", allocationSize = 50)
     private Long id;
     private String name;
     private String description;
     private Long userId;
 
-    public String getId() {
-        return null;
-    }
-
 }
\ No newline at end of file
@@ -1,26 +1,63 @@
 package ru.anyline.repoapi.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
-import lombok.AllArgsConstructor;
+import lombok.AccessLevel;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.Locale;
+import java.util.Map;
 
 @Entity
 @Data
 @NoArgsConstructor
-@AllArgsConstructor
 @JsonIgnoreProperties(ignoreUnknown = true)
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_user_repos_username_key_repo_name", columnNames = {"username_key", "repo_name"}))
 public class UserRepos{
 
+        // a pooled sequence hands out ids in blocks, so inserts can be batched; IDENTITY needs a round trip per row
         @Id
-        @GeneratedValue(strategy = GenerationType.IDENTITY)
+        @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_repos_seq")
+        @SequenceGenerator(name = "user_repos_seq", sequenceName = "user_repos_seq", allocationSize = 100)
         private Long id;
+        // the owner login as GitHub spells it, for display
         private String username;
+        // the login as rows are looked up by; derived from username
+        @JsonIgnore
+        @Setter(AccessLevel.NONE)
+        private String usernameKey;
         @JsonProperty("name")
         private String repoName;
         @JsonProperty("html_url")
         private String url;
 
+        public UserRepos(Long id, String username, String repoName, String url) {
+                this.id = id;
+                this.username = username;
+                this.usernameKey = usernameKey(username);
+                this.repoName = repoName;
+                this.url = url;
+        }
+
+        public void setUsername(String username) {
+                this.username = username;
+                this.usernameKey = usernameKey(username);
+        }
+
+        @JsonProperty("owner")
+        private void setOwner(Map<String, Object> owner) {
+                if (owner != null && owner.get("login") instanceof String login) {
+                        setUsername(login);
+                }
+        }
+
+        /** GitHub logins are case-insensitive; this is the form they are stored and cached under. */
+        public static String usernameKey(String username) {
+                return username == null ? null : username.toLowerCase(Locale.ROOT);
+        }
+
 }
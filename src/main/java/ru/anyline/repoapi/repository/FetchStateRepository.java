@@ -0,0 +1,26 @@
+package ru.anyline.repoapi.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+import ru.anyline.repoapi.model.FetchState;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface FetchStateRepository extends JpaRepository<FetchState, String> {
+
+    /** Entries fetched before {@code fetchedBefore}, oldest first, leaving out those backed off past {@code now}. */
+    @Query("select s from FetchState s where s.fetchedAt < :fetchedBefore"
+            + " and (s.revalidateAfter is null or s.revalidateAfter < :now) order by s.fetchedAt")
+    List<FetchState> findDueForRevalidation(Instant fetchedBefore, Instant now, Pageable pageable);
+
+    /** Sets only {@code revalidateAfter}, so that a fetch stored meanwhile keeps its validators. */
+    @Transactional
+    @Modifying
+    @Query("update FetchState s set s.revalidateAfter = :revalidateAfter where s.fetchKey = :fetchKey")
+    void backOff(String fetchKey, Instant revalidateAfter);
+
+}
@@ -0,0 +1,65 @@
+package ru.anyline.repoapi.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position after the last project of a page: the sort value and id of that project. Clients get it as an
+ * opaque token; it records the order it was issued for, so it cannot be replayed against a different one.
+ *
+ * @param value the sorted property of the last project, {@code null} when that project has none; unused for
+ *              {@link ProjectSort#ID}
+ */
+public record ProjectCursor(ProjectSort sort, boolean descending, Object value, long id) {
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+    private static final String NULL_VALUE = "-";
+
+    public String encode() {
+        String token = sort.property() + (descending ? ".desc:" : ".asc:") + id + ":" + encodeValue();
+        return ENCODER.encodeToString(token.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the token is malformed or was issued for another order
+     */
+    public static ProjectCursor decode(String token, ProjectSort sort, boolean descending) {
+        String decoded;
+        try {
+            decoded = new String(DECODER.decode(token), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Malformed cursor", e);
+        }
+        String[] parts = decoded.split(":", 3);
+        String expectedOrder = sort.property() + (descending ? ".desc" : ".asc");
+        if (parts.length != 3 || !parts[0].equals(expectedOrder)) {
+            throw new IllegalArgumentException("Cursor was not issued for sort " + expectedOrder);
+        }
+        try {
+            long id = Long.parseLong(parts[1]);
+            return new ProjectCursor(sort, descending, decodeValue(sort, parts[2]), id);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed cursor", e);
+        }
+    }
+
+    private String encodeValue() {
+        if (sort == ProjectSort.ID) {
+            return "";
+        }
+        // a prefix keeps a null apart from a name that happens to be "-"
+        return value == null ? NULL_VALUE : "=" + value;
+    }
+
+    private static Object decodeValue(ProjectSort sort, String token) {
+        if (sort == ProjectSort.ID || token.equals(NULL_VALUE)) {
+            return null;
+        }
+        if (!token.startsWith("=")) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+        String value = token.substring(1);
+        return sort == ProjectSort.USER_ID ? Long.valueOf(value) : value;
+    }
+}
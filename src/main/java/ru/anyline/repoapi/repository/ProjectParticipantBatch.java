@@ -0,0 +1,15 @@
+package ru.anyline.repoapi.repository;
+
+import java.util.Collection;
+
+public interface ProjectParticipantBatch {
+
+    /**
+     * Adds every user in {@code userIds} to the project as one batched statement, skipping users who
+     * already take part.
+     *
+     * @return how many users were added
+     */
+    int addParticipants(long projectId, Collection<Long> userIds);
+
+}
@@ -0,0 +1,43 @@
+package ru.anyline.repoapi.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Plain JDBC because JPA has no insert-if-absent: persisting one entity per user would first select each
+ * of them, and a duplicate would fail the whole batch.
+ */
+class ProjectParticipantBatchImpl implements ProjectParticipantBatch {
+
+    private static final String MERGE = "merge into project_participant p"
+            + " using (values (cast(? as bigint), cast(? as bigint))) v (project_id, user_id)"
+            + " on p.project_id = v.project_id and p.user_id = v.user_id"
+            + " when not matched then insert (project_id, user_id) values (v.project_id, v.user_id)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    ProjectParticipantBatchImpl(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Override
+    @Transactional
+    public int addParticipants(long projectId, Collection<Long> userIds) {
+        // deduplicated and in key order, so that concurrent batches lock rows in the same order
+        List<Object[]> rows = new ArrayList<>();
+        for (Long userId : new TreeSet<>(userIds)) {
+            rows.add(new Object[]{projectId, userId});
+        }
+        int added = 0;
+        for (int count : jdbcTemplate.batchUpdate(MERGE, rows)) {
+            added += Math.max(count, 0);
+        }
+        return added;
+    }
+}
@@ -0,0 +1,28 @@
+package ru.anyline.repoapi.repository;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+import ru.anyline.repoapi.model.ProjectParticipant;
+import ru.anyline.repoapi.model.ProjectParticipantId;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface ProjectParticipantRepository extends JpaRepository<ProjectParticipant, ProjectParticipantId>,
+        ProjectParticipantBatch {
+
+    /** One keyset page of a project's participants: the first {@code limit} user ids above {@code afterUserId}. */
+    @Transactional(readOnly = true)
+    @Query("select p.id.userId from ProjectParticipant p"
+            + " where p.id.projectId = :projectId and p.id.userId > :afterUserId order by p.id.userId")
+    List<Long> findUserIds(long projectId, long afterUserId, Limit limit);
+
+    @Transactional
+    @Modifying
+    @Query("delete from ProjectParticipant p where p.id.projectId = :projectId and p.id.userId in :userIds")
+    int removeParticipants(long projectId, Collection<Long> userIds);
+
+}
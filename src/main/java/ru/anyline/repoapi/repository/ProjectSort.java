@@ -0,0 +1,32 @@
+package ru.anyline.repoapi.repository;
+
+import java.util.Arrays;
+
+/**
+ * The orders a project listing can be paged in. Each one is backed by an index that ends in the id, so a page
+ * is a range scan from the cursor however many projects precede it.
+ */
+public enum ProjectSort {
+
+    ID("id"),
+    NAME("name"),
+    USER_ID("userId");
+
+    private final String property;
+
+    ProjectSort(String property) {
+        this.property = property;
+    }
+
+    /** The entity property sorted on; also the value of the {@code sort} request parameter. */
+    public String property() {
+        return property;
+    }
+
+    public static ProjectSort fromParameter(String parameter) {
+        return Arrays.stream(values())
+                .filter(sort -> sort.property.equals(parameter))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown sort: " + parameter));
+    }
+}
@@ -1,12 +1,100 @@
 package ru.anyline.repoapi.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 import ru.anyline.repoapi.model.UserRepos;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * {@code find*} methods load managed entities for code that modifies them. The {@code read*} methods serve
+ * the request path: constructor expressions in read-only transactions, so the rows come back detached, never
+ * enter a persistence context and leave Hibernate no snapshot to keep or dirty-check, and no flush to run.
+ */
+public interface Repository extends JpaRepository<UserRepos, Long>, StoredReposCursor {
+
+    List<UserRepos> findByUsernameKey(String usernameKey);
+
+    @Transactional(readOnly = true)
+    @Query("select new ru.anyline.repoapi.model.UserRepos(r.id, r.username, r.repoName, r.url)"
+            + " from UserRepos r where r.usernameKey = :usernameKey order by r.repoName")
+    List<UserRepos> readByUsernameKey(String usernameKey);
+
+    @Transactional(readOnly = true)
+    @Query("select new ru.anyline.repoapi.model.UserRepos(r.id, r.username, r.repoName, r.url)"
+            + " from UserRepos r where r.usernameKey = :usernameKey and r.repoName = :repoName")
+    UserRepos readByUsernameKeyAndRepoName(String usernameKey, String repoName);
+
+    /** The stored listings of several users in one query, grouped by user. */
+    @Transactional(readOnly = true)
+    @Query("select new ru.anyline.repoapi.model.UserRepos(r.id, r.username, r.repoName, r.url)"
+            + " from UserRepos r where r.usernameKey in :usernameKeys order by r.usernameKey, r.repoName")
+    List<UserRepos> readByUsernameKeyIn(Collection<String> usernameKeys);
+
+    /** One keyset page: the first {@code limit} repositories with an id above {@code afterId}. */
+    @Transactional(readOnly = true)
+    @Query("select new ru.anyline.repoapi.model.UserRepos(r.id, r.username, r.repoName, r.url)"
+            + " from UserRepos r where r.id > :afterId order by r.id")
+    List<UserRepos> readPageAfter(long afterId, Limit limit);
+
+    @Transactional
+    @Modifying
+    @Query("delete from UserRepos r where r.usernameKey = :usernameKey")
+    void deleteByUsernameKey(String usernameKey);
+
+    @Transactional
+    @Modifying
+    @Query("delete from UserRepos r where r.usernameKey = :usernameKey and r.repoName = :repoName")
+    void deleteByUsernameKeyAndRepoName(String usernameKey, String repoName);
 
-public interface Repository extends JpaRepository<UserRepos, String> {
+    /**
+     * Makes the stored listing of {@code usernameKey} match {@code fetched} in one transaction: rows of
+     * repositories GitHub still lists are updated in place, new ones are inserted and the rest are deleted.
+     * Rows keep the owner login GitHub reported, falling back to the key.
+     */
+    @Transactional
+    default List<UserRepos> replaceListing(String usernameKey, List<UserRepos> fetched) {
+        Map<String, UserRepos> stored = new HashMap<>();
+        findByUsernameKey(usernameKey).forEach(repo -> stored.put(repo.getRepoName(), repo));
 
-    List<UserRepos> findByUsername(String username);
-    UserRepos findByUsernameAndRepoName(String username, String repoName);
+        Map<String, UserRepos> listing = new LinkedHashMap<>();
+        List<UserRepos> changed = new ArrayList<>();
+        for (UserRepos repo : fetched) {
+            if (listing.containsKey(repo.getRepoName())) {
+                // pages shift when a repository is created mid-fetch, repeating an entry across two pages
+                continue;
+            }
+            if (repo.getUsername() == null) {
+                repo.setUsername(usernameKey);
+            }
+            UserRepos row = stored.remove(repo.getRepoName());
+            if (row == null) {
+                repo.setId(null);
+                row = repo;
+                changed.add(row);
+            } else if (!Objects.equals(row.getUrl(), repo.getUrl()) || !Objects.equals(row.getUsername(), repo.getUsername())) {
+                row.setUrl(repo.getUrl());
+                row.setUsername(repo.getUsername());
+                changed.add(row);
+            }
+            listing.put(row.getRepoName(), row);
+        }
+        if (!stored.isEmpty()) {
+            deleteAllByIdInBatch(stored.values().stream().map(UserRepos::getId).toList());
+        }
+        if (!changed.isEmpty()) {
+            saveAll(changed);
+        }
+        return new ArrayList<>(listing.values());
+    }
 
 }
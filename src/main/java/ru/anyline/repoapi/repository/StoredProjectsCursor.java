@@ -0,0 +1,15 @@
+package ru.anyline.repoapi.repository;
+
+import ru.anyline.repoapi.model.UserProject;
+
+import java.util.function.Consumer;
+
+public interface StoredProjectsCursor {
+
+    /**
+     * Hands every stored project to {@code action} in id order, reading the table through a JDBC cursor
+     * so that only one fetch batch is held in memory at a time.
+     */
+    void forEachStored(Consumer<UserProject> action);
+
+}
@@ -0,0 +1,34 @@
+package ru.anyline.repoapi.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import ru.anyline.repoapi.model.UserProject;
+
+import javax.sql.DataSource;
+import java.util.function.Consumer;
+
+class StoredProjectsCursorImpl implements StoredProjectsCursor {
+
+    private static final int FETCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    StoredProjectsCursorImpl(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void forEachStored(Consumer<UserProject> action) {
+        jdbcTemplate.query("select id, name, description, user_id from user_project order by id",
+                resultSet -> {
+                    UserProject project = new UserProject();
+                    project.setId(resultSet.getLong("id"));
+                    project.setName(resultSet.getString("name"));
+                    project.setDescription(resultSet.getString("description"));
+                    project.setUserId(resultSet.getObject("user_id", Long.class));
+                    action.accept(project);
+                });
+    }
+}
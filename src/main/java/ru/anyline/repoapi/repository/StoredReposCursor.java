@@ -0,0 +1,15 @@
+package ru.anyline.repoapi.repository;
+
+import ru.anyline.repoapi.model.UserRepos;
+
+import java.util.function.Consumer;
+
+public interface StoredReposCursor {
+
+    /**
+     * Hands every stored repository to {@code action} in id order, reading the table through a JDBC cursor
+     * so that only one fetch batch is held in memory at a time.
+     */
+    void forEachStored(Consumer<UserRepos> action);
+
+}
@@ -0,0 +1,35 @@
+package ru.anyline.repoapi.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import ru.anyline.repoapi.model.UserRepos;
+
+import javax.sql.DataSource;
+import java.util.function.Consumer;
+
+/**
+ * Plain JDBC rather than a JPA stream: rows never enter a persistence context, so nothing accumulates
+ * however large the table is.
+ */
+class StoredReposCursorImpl implements StoredReposCursor {
+
+    private static final int FETCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    StoredReposCursorImpl(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+    }
+
+    // a transaction because some drivers (PostgreSQL) ignore the fetch size and buffer everything under autocommit
+    @Override
+    @Transactional(readOnly = true)
+    public void forEachStored(Consumer<UserRepos> action) {
+        jdbcTemplate.query("select id, username, repo_name, url from user_repos order by id",
+                resultSet -> {
+                    action.accept(new UserRepos(resultSet.getLong("id"), resultSet.getString("username"),
+                            resultSet.getString("repo_name"), resultSet.getString("url")));
+                });
+    }
+}
@@ -0,0 +1,19 @@
+package ru.anyline.repoapi.repository;
+
+import ru.anyline.repoapi.model.UserProject;
+
+import java.util.List;
+
+public interface UserProjectPages {
+
+    /**
+     * Reads up to {@code limit} projects that come after {@code after} in the given order, ties broken by id.
+     * Projects without a value for the sorted property come first in ascending order and last in descending
+     * order, as the index stores them.
+     *
+     * @param userId only this user's projects, or every project when {@code null}
+     * @param after  where the previous page ended, or {@code null} for the first page
+     */
+    List<UserProject> findPage(Long userId, ProjectSort sort, boolean descending, ProjectCursor after, int limit);
+
+}
@@ -0,0 +1,98 @@
+package ru.anyline.repoapi.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import ru.anyline.repoapi.model.UserProject;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keyset pages: the cursor becomes a range predicate on the sort index instead of an offset, so page 1000
+ * costs the same as page 1.
+ * <p>
+ * The range is written as {@code value >= :v and (value > :v or id > :id)} rather than the textbook
+ * {@code value > :v or (value = :v and id > :id)}, which H2 cannot turn into an index range. Projects without
+ * a value for the sorted property sit at one end of the index; a page that crosses into or out of them is
+ * read as two ranges, because a single predicate with {@code or value is null} would not be a range either.
+ */
+class UserProjectPagesImpl implements UserProjectPages {
+
+    /** Which projects one query reads when sorting by a nullable property. */
+    private enum Segment { ALL, NULLS, VALUES }
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<UserProject> findPage(Long userId, ProjectSort sort, boolean descending, ProjectCursor after, int limit) {
+        if (sort == ProjectSort.ID) {
+            return query(userId, null, Segment.ALL, descending, after, limit);
+        }
+        String column = "p." + sort.property();
+        if (after == null) {
+            return query(userId, column, Segment.ALL, descending, null, limit);
+        }
+        // nulls come first ascending and last descending, as the index stores them
+        boolean inNulls = after.value() == null;
+        List<UserProject> page = new ArrayList<>(
+                query(userId, column, inNulls ? Segment.NULLS : Segment.VALUES, descending, after, limit));
+        if (page.size() < limit && inNulls != descending) {
+            page.addAll(query(userId, column, inNulls ? Segment.VALUES : Segment.NULLS, descending, null,
+                    limit - page.size()));
+        }
+        return page;
+    }
+
+    /**
+     * @param column the sorted property, or {@code null} to sort by id alone
+     * @param after  where to start within the segment, or {@code null} for its beginning
+     */
+    private List<UserProject> query(Long userId, String column, Segment segment, boolean descending,
+                                    ProjectCursor after, int limit) {
+        String direction = descending ? " desc" : " asc";
+        String strict = descending ? " < " : " > ";
+        boolean byValue = column != null && segment != Segment.NULLS;
+        boolean afterValue = after != null && byValue;
+
+        List<String> predicates = new ArrayList<>();
+        if (userId != null) {
+            predicates.add("p.userId = :userId");
+        }
+        if (segment == Segment.NULLS) {
+            predicates.add(column + " is null");
+        } else if (segment == Segment.VALUES && after == null) {
+            predicates.add(column + " is not null");
+        }
+        if (afterValue) {
+            predicates.add(column + (descending ? " <= " : " >= ") + ":afterValue");
+            predicates.add(column + strict + ":afterValue or p.id" + strict + ":afterId");
+        } else if (after != null) {
+            predicates.add("p.id" + strict + ":afterId");
+        }
+
+        StringBuilder jpql = new StringBuilder("select p from UserProject p");
+        for (int i = 0; i < predicates.size(); i++) {
+            jpql.append(i == 0 ? " where (" : " and (").append(predicates.get(i)).append(')');
+        }
+        jpql.append(" order by ");
+        if (byValue) {
+            jpql.append(column).append(direction).append(descending ? " nulls last, " : " nulls first, ");
+        }
+        jpql.append("p.id").append(direction);
+
+        TypedQuery<UserProject> query = entityManager.createQuery(jpql.toString(), UserProject.class)
+                .setMaxResults(limit);
+        if (userId != null) {
+            query.setParameter("userId", userId);
+        }
+        if (after != null) {
+            query.setParameter("afterId", after.id());
+        }
+        if (afterValue) {
+            query.setParameter("afterValue", after.value());
+        }
+        return query.getResultList();
+    }
+}
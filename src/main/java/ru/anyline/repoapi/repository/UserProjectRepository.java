@@ -1,22 +1,21 @@
 package ru.anyline.repoapi.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import ru.anyline.repoapi.model.UserProject;
 
+import java.util.Collection;
 import java.util.List;
-import java.util.Optional;
 
 @Repository
-public interface UserProjectRepository extends JpaRepository<UserProject, String> {
-    List<UserProject> findByUserId(Long userId);
+public interface UserProjectRepository extends JpaRepository<UserProject, Long>, UserProjectPages, StoredProjectsCursor {
 
-    List<UserProject> findByNameContainingIgnoreCase(String projectName);
+    // a scan of every row; only serves searches until the search index is built
+    List<UserProject> findByNameContainingIgnoreCase(String projectName, Limit limit);
 
-    List<UserProject> findParticipantsByProjectId(Long projectId);
-
-    void deleteById(Long id);
-
-    Optional<UserProject> findById(Long id);
+    @Query("select p.id from UserProject p where p.id in :ids")
+    List<Long> findExistingIds(Collection<Long> ids);
 
 }
@@ -0,0 +1,117 @@
+package ru.anyline.repoapi.service;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+import ru.anyline.repoapi.config.GitHubProperties;
+import ru.anyline.repoapi.exceptions.RateLimitExceededException;
+import ru.anyline.repoapi.model.FetchState;
+import ru.anyline.repoapi.model.UserRepos;
+import ru.anyline.repoapi.repository.FetchStateRepository;
+import ru.anyline.repoapi.repository.Repository;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+/**
+ * Looks up the repositories of several users at once. Listings stored within the soft TTL come from one query for
+ * all of them; every other user goes through {@link GitHubServiceImpl#getRepositories} on the bounded batch
+ * executor, so misses are fetched from GitHub concurrently and stale or expired listings follow the usual
+ * freshness rules.
+ * <p>
+ * A user that could not be looked up gets an error entry and does not fail the others.
+ */
+@Service
+public class GitHubBatchService {
+
+    private final Repository repository;
+    private final FetchStateRepository fetchStateRepository;
+    private final GitHubServiceImpl gitHubService;
+    private final GitHubMetrics gitHubMetrics;
+    private final GitHubProperties.Freshness freshness;
+    private final ExecutorService batchExecutor;
+
+    public GitHubBatchService(Repository repository, FetchStateRepository fetchStateRepository,
+                              GitHubServiceImpl gitHubService, GitHubMetrics gitHubMetrics,
+                              GitHubProperties gitHubProperties,
+                              @Qualifier("gitHubBatchExecutor") ExecutorService batchExecutor) {
+        this.repository = repository;
+        this.fetchStateRepository = fetchStateRepository;
+        this.gitHubService = gitHubService;
+        this.gitHubMetrics = gitHubMetrics;
+        this.freshness = gitHubProperties.getFreshness();
+        this.batchExecutor = batchExecutor;
+    }
+
+    /** One entry per distinct username, keyed as given and in the order given. */
+    public Map<String, UserReposResult> getRepositories(List<String> usernames) {
+        Set<String> usernameKeys = usernames.stream()
+                .map(UserRepos::usernameKey)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        Map<String, List<UserRepos>> stored = repository.readByUsernameKeyIn(usernameKeys).stream()
+                .collect(Collectors.groupingBy(UserRepos::getUsernameKey));
+        Set<String> fresh = fresh(stored.keySet());
+
+        Map<String, Future<List<UserRepos>>> misses = new LinkedHashMap<>();
+        for (String usernameKey : usernameKeys) {
+            if (!fresh.contains(usernameKey)) {
+                misses.put(usernameKey, batchExecutor.submit(() -> gitHubService.getRepositories(usernameKey)));
+            }
+        }
+
+        Map<String, UserReposResult> byKey = new HashMap<>();
+        for (String usernameKey : fresh) {
+            gitHubMetrics.cacheHit();
+            byKey.put(usernameKey, UserReposResult.found(stored.get(usernameKey)));
+        }
+        misses.forEach((usernameKey, miss) -> byKey.put(usernameKey, await(miss)));
+
+        Map<String, UserReposResult> results = new LinkedHashMap<>();
+        for (String username : usernames) {
+            results.putIfAbsent(username, byKey.get(UserRepos.usernameKey(username)));
+        }
+        return results;
+    }
+
+    private Set<String> fresh(Set<String> storedKeys) {
+        if (storedKeys.isEmpty()) {
+            return Set.of();
+        }
+        Map<String, String> usernameKeys = storedKeys.stream()
+                .collect(Collectors.toMap(FetchState::listingKey, usernameKey -> usernameKey));
+        Instant freshSince = Instant.now().minus(freshness.getSoftTtl());
+        // a user without a listing fetch state has only single repositories stored, so the listing is a miss
+        return fetchStateRepository.findAllById(usernameKeys.keySet()).stream()
+                .filter(state -> state.getFetchedAt() != null && state.getFetchedAt().isAfter(freshSince))
+                .map(state -> usernameKeys.get(state.getFetchKey()))
+                .collect(Collectors.toSet());
+    }
+
+    private static UserReposResult await(Future<List<UserRepos>> miss) {
+        try {
+            return UserReposResult.found(miss.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return UserReposResult.failed(UserReposResult.Outcome.FAILED, "Interrupted", null);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RateLimitExceededException rateLimited) {
+                return UserReposResult.failed(UserReposResult.Outcome.RATE_LIMITED, rateLimited.getMessage(),
+                        rateLimited.getRetryAfterSeconds());
+            }
+            if (cause instanceof HttpClientErrorException.NotFound) {
+                return UserReposResult.failed(UserReposResult.Outcome.NOT_FOUND, "No such GitHub user", null);
+            }
+            return UserReposResult.failed(UserReposResult.Outcome.FAILED, cause.getMessage(), null);
+        }
+    }
+}
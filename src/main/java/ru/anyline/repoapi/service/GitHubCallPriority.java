@@ -0,0 +1,13 @@
+package ru.anyline.repoapi.service;
+
+/**
+ * Who is waiting on a GitHub call, which decides how much of the rate-limit budget it may use.
+ */
+public enum GitHubCallPriority {
+
+    /** A user request is blocked on the answer: may spend the whole budget and never waits for pacing. */
+    INTERACTIVE,
+
+    /** Refreshes and revalidation: paced over the window and kept out of the interactive reserve. */
+    BACKGROUND
+}
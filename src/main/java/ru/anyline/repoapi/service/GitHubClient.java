@@ -0,0 +1,169 @@
+package ru.anyline.repoapi.service;
+
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+import ru.anyline.repoapi.config.GitHubProperties;
+import ru.anyline.repoapi.exceptions.RateLimitExceededException;
+import ru.anyline.repoapi.model.UserRepos;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Thin wrapper over the GitHub REST API. Listings are requested with the maximum page size; when the
+ * first page advertises more via its {@code Link} header, the remaining pages are fetched in parallel
+ * on the bounded page executor and merged back in page order.
+ * <p>
+ * The conditional variants send the stored {@code ETag}/{@code Last-Modified} validators; for listings only
+ * the first page is revalidated, so a 304 there is taken to mean the whole listing is unchanged.
+ * <p>
+ * Every call goes through the {@link GitHubRateLimiter} at the caller's priority; a rate-limited response
+ * surfaces as a {@link RateLimitExceededException}. Each call is timed and counted in flight by {@link GitHubMetrics}.
+ */
+@Component
+public class GitHubClient {
+
+    private static final Pattern LAST_PAGE = Pattern.compile("<[^>]*[?&]page=(\\d+)[^>]*>;\\s*rel=\"last\"");
+
+    private final RestTemplate restTemplate;
+    private final GitHubProperties gitHubProperties;
+    private final ExecutorService pageExecutor;
+    private final GitHubRateLimiter rateLimiter;
+    private final GitHubMetrics gitHubMetrics;
+
+    public GitHubClient(RestTemplate restTemplate, GitHubProperties gitHubProperties,
+                        @Qualifier("gitHubPageExecutor") ExecutorService pageExecutor, GitHubRateLimiter rateLimiter,
+                        GitHubMetrics gitHubMetrics) {
+        this.restTemplate = restTemplate;
+        this.gitHubProperties = gitHubProperties;
+        this.pageExecutor = pageExecutor;
+        this.rateLimiter = rateLimiter;
+        this.gitHubMetrics = gitHubMetrics;
+    }
+
+    public GitHubResponse<List<UserRepos>> getUserRepos(String username, String etag, String lastModified,
+                                                        GitHubCallPriority priority) {
+        ResponseEntity<UserRepos[]> first = getUserReposPage(username, 1, conditionalHeaders(etag, lastModified), priority);
+        if (first.getStatusCode() == HttpStatus.NOT_MODIFIED) {
+            return GitHubResponse.notModifiedResponse();
+        }
+        List<UserRepos> repositories = new ArrayList<>(Arrays.asList(Objects.requireNonNull(first.getBody())));
+
+        int lastPage = lastPage(first.getHeaders());
+        if (lastPage > 1) {
+            repositories.addAll(getRemainingPages(username, lastPage, priority));
+        }
+        return response(repositories, first.getHeaders());
+    }
+
+    private List<UserRepos> getRemainingPages(String username, int lastPage, GitHubCallPriority priority) {
+        List<UserRepos> repositories = new ArrayList<>();
+        List<CompletableFuture<UserRepos[]>> pages = new ArrayList<>(lastPage - 1);
+        for (int page = 2; page <= lastPage; page++) {
+            int pageNumber = page;
+            pages.add(CompletableFuture.supplyAsync(
+                    () -> getUserReposPage(username, pageNumber, HttpHeaders.EMPTY, priority).getBody(), pageExecutor));
+        }
+        for (CompletableFuture<UserRepos[]> page : pages) {
+            repositories.addAll(Arrays.asList(Objects.requireNonNull(await(page))));
+        }
+        return repositories;
+    }
+
+    public GitHubResponse<UserRepos> getRepo(String username, String repoName, String etag, String lastModified,
+                                             GitHubCallPriority priority) {
+        ResponseEntity<UserRepos> response = exchange(priority, "repo", "/repos/{username}/{repoName}",
+                conditionalHeaders(etag, lastModified), UserRepos.class, username, repoName);
+        if (response.getStatusCode() == HttpStatus.NOT_MODIFIED) {
+            return GitHubResponse.notModifiedResponse();
+        }
+        return response(response.getBody(), response.getHeaders());
+    }
+
+    private ResponseEntity<UserRepos[]> getUserReposPage(String username, int page, HttpHeaders headers,
+                                                         GitHubCallPriority priority) {
+        return exchange(priority, "user_repos", "/users/{username}/repos?per_page={perPage}&page={page}",
+                headers, UserRepos[].class, username, gitHubProperties.getPerPage(), page);
+    }
+
+    private <T> ResponseEntity<T> exchange(GitHubCallPriority priority, String endpoint, String path, HttpHeaders headers,
+                                           Class<T> type, Object... uriVariables) {
+        rateLimiter.acquire(priority);
+        HttpHeaders responseHeaders = null;
+        String status = "ERROR";
+        Timer.Sample upstream = gitHubMetrics.upstreamStarted(priority);
+        try {
+            // URI templates keep the http.client.requests uri tag to one value per endpoint instead of one per user
+            ResponseEntity<T> response = restTemplate.exchange(gitHubProperties.getBaseUrl() + path,
+                    HttpMethod.GET, new HttpEntity<>(headers), type, uriVariables);
+            responseHeaders = response.getHeaders();
+            status = String.valueOf(response.getStatusCode().value());
+            return response;
+        } catch (HttpStatusCodeException e) {
+            responseHeaders = e.getResponseHeaders();
+            status = String.valueOf(e.getStatusCode().value());
+            Duration retryAfter = rateLimiter.rateLimited(e.getStatusCode(), responseHeaders, e.getResponseBodyAsString());
+            if (retryAfter != null) {
+                throw new RateLimitExceededException("GitHub rate limit reached", retryAfter, e);
+            }
+            throw e;
+        } catch (ResourceAccessException e) {
+            status = "IO_ERROR";
+            throw e;
+        } finally {
+            gitHubMetrics.upstreamFinished(upstream, priority, endpoint, status);
+            rateLimiter.complete(responseHeaders);
+        }
+    }
+
+    static HttpHeaders conditionalHeaders(String etag, String lastModified) {
+        HttpHeaders headers = new HttpHeaders();
+        if (etag != null) {
+            headers.set(HttpHeaders.IF_NONE_MATCH, etag);
+        } else if (lastModified != null) {
+            headers.set(HttpHeaders.IF_MODIFIED_SINCE, lastModified);
+        }
+        return headers;
+    }
+
+    static <T> GitHubResponse<T> response(T body, HttpHeaders headers) {
+        return new GitHubResponse<>(body, headers.getETag(), headers.getFirst(HttpHeaders.LAST_MODIFIED), false);
+    }
+
+    static int lastPage(HttpHeaders headers) {
+        String link = headers.getFirst(HttpHeaders.LINK);
+        if (link == null) {
+            return 1;
+        }
+        Matcher matcher = LAST_PAGE.matcher(link);
+        return matcher.find() ? Integer.parseInt(matcher.group(1)) : 1;
+    }
+
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package ru.anyline.repoapi.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The GitHub side of the {@code /repos} hot path: how lookups were answered by the table tier, upstream call
+ * latency by endpoint and status, calls in flight and the size of the listings served. The L1/L2 cache tiers are
+ * counted by {@code TwoTierCache} and table lookups by Spring Data's {@code spring.data.repository.invocations}.
+ * <p>
+ * Everything recorded per request is a pre-registered meter or a registry lookup, so this stays on in production.
+ */
+@Component
+public class GitHubMetrics {
+
+    private final MeterRegistry meterRegistry;
+    private final Counter cacheHits;
+    private final Counter staleHits;
+    private final Counter notModified;
+    private final Counter fetched;
+    private final AtomicInteger interactiveInFlight = new AtomicInteger();
+    private final AtomicInteger backgroundInFlight = new AtomicInteger();
+    private final DistributionSummary reposPerResponse;
+
+    public GitHubMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        cacheHits = fetchCounter(meterRegistry, "cache_hit");
+        staleHits = fetchCounter(meterRegistry, "stale_hit");
+        notModified = fetchCounter(meterRegistry, "not_modified");
+        fetched = fetchCounter(meterRegistry, "fetched");
+        inFlightGauge(meterRegistry, GitHubCallPriority.INTERACTIVE, interactiveInFlight);
+        inFlightGauge(meterRegistry, GitHubCallPriority.BACKGROUND, backgroundInFlight);
+        reposPerResponse = DistributionSummary.builder("repoapi.repos.per.response")
+                .description("Repositories in each /repos/{username} response")
+                .baseUnit("repositories")
+                .register(meterRegistry);
+    }
+
+    public void cacheHit() {
+        cacheHits.increment();
+    }
+
+    public void staleHit() {
+        staleHits.increment();
+    }
+
+    public void notModified() {
+        notModified.increment();
+    }
+
+    public void fetched() {
+        fetched.increment();
+    }
+
+    /** Marks a GitHub call as in flight; pass the returned sample to {@link #upstreamFinished}. */
+    public Timer.Sample upstreamStarted(GitHubCallPriority priority) {
+        inFlight(priority).incrementAndGet();
+        return Timer.start(meterRegistry);
+    }
+
+    /**
+     * @param endpoint which GitHub API was called, e.g. {@code user_repos}
+     * @param status   the HTTP status GitHub answered with, or {@code IO_ERROR}/{@code ERROR} if there was none
+     */
+    public void upstreamFinished(Timer.Sample sample, GitHubCallPriority priority, String endpoint, String status) {
+        inFlight(priority).decrementAndGet();
+        sample.stop(Timer.builder("repoapi.github.requests")
+                .description("Latency of calls to the GitHub API, excluding time spent waiting for the rate limiter")
+                .tag("endpoint", endpoint)
+                .tag("status", status)
+                .tag("priority", priority.name().toLowerCase(Locale.ROOT))
+                .register(meterRegistry));
+    }
+
+    public void reposPerResponse(int repositories) {
+        reposPerResponse.record(repositories);
+    }
+
+    private AtomicInteger inFlight(GitHubCallPriority priority) {
+        return priority == GitHubCallPriority.INTERACTIVE ? interactiveInFlight : backgroundInFlight;
+    }
+
+    private static void inFlightGauge(MeterRegistry meterRegistry, GitHubCallPriority priority, AtomicInteger inFlight) {
+        Gauge.builder("repoapi.github.in.flight", inFlight, AtomicInteger::get)
+                .description("GitHub calls currently waiting for a response")
+                .tag("priority", priority.name().toLowerCase(Locale.ROOT))
+                .register(meterRegistry);
+    }
+
+    private static Counter fetchCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("repoapi.github.fetches")
+                .description("Repository lookups by how they were answered: from the table (fresh or stale), by a 304 revalidation or by a full GitHub response")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
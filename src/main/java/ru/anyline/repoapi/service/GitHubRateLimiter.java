@@ -0,0 +1,230 @@
+package ru.anyline.repoapi.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import ru.anyline.repoapi.config.GitHubProperties;
+import ru.anyline.repoapi.exceptions.RateLimitExceededException;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Meters every outbound GitHub call against the budget GitHub reports in its {@code X-RateLimit-*} headers.
+ * <p>
+ * The budget is a token bucket that GitHub refills at {@code X-RateLimit-Reset}. Interactive calls may spend
+ * all of it and fail fast once it is gone. Background calls leave a reserve for interactive ones and are
+ * spread evenly over the rest of the window. A secondary rate limit (403/429 with {@code Retry-After}) blocks
+ * every call until it expires. Calls made before GitHub has reported a budget are let through.
+ */
+@Slf4j
+@Component
+public class GitHubRateLimiter {
+
+    static final String LIMIT_HEADER = "X-RateLimit-Limit";
+    static final String REMAINING_HEADER = "X-RateLimit-Remaining";
+    static final String RESET_HEADER = "X-RateLimit-Reset";
+
+    private final GitHubProperties.RateLimit settings;
+    private final Clock clock;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // the window as last reported by GitHub; -1 while unknown
+    private int limit = -1;
+    private int remaining = -1;
+    private Instant resetAt;
+    private int inFlight;
+    private Instant blockedUntil = Instant.MIN;
+    private Instant nextBackgroundSlot = Instant.MIN;
+
+    @Autowired
+    public GitHubRateLimiter(GitHubProperties gitHubProperties) {
+        this(gitHubProperties, Clock.systemUTC());
+    }
+
+    public GitHubRateLimiter(GitHubProperties gitHubProperties, Clock clock) {
+        this.settings = gitHubProperties.getRateLimit();
+        this.clock = clock;
+    }
+
+    /**
+     * Takes a token for one call, waiting for a paced slot if it is a background call. Every successful
+     * acquire must be followed by {@link #complete(HttpHeaders)}.
+     *
+     * @throws RateLimitExceededException if the call may not be made before GitHub's budget resets
+     */
+    public void acquire(GitHubCallPriority priority) {
+        if (!settings.isEnabled()) {
+            return;
+        }
+        Duration wait;
+        lock.lock();
+        try {
+            Instant now = clock.instant();
+            if (now.isBefore(blockedUntil)) {
+                throw new RateLimitExceededException("GitHub asked us to back off", Duration.between(now, blockedUntil));
+            }
+            if (resetAt != null && !now.isBefore(resetAt)) {
+                // GitHub has refilled the bucket; the next response reports the new window
+                remaining = limit;
+                resetAt = null;
+                nextBackgroundSlot = Instant.MIN;
+            }
+            int available = remaining < 0 ? Integer.MAX_VALUE : remaining - inFlight;
+            if (priority == GitHubCallPriority.INTERACTIVE) {
+                if (available <= 0) {
+                    throw new RateLimitExceededException("GitHub rate limit exhausted", untilReset(now));
+                }
+                inFlight++;
+                return;
+            }
+
+            int spendable = available - (limit < 0 ? 0 : (int) Math.ceil(limit * settings.getInteractiveReserve()));
+            if (spendable <= 0) {
+                throw new RateLimitExceededException("GitHub rate limit left for interactive requests only", untilReset(now));
+            }
+            Instant slot = nextBackgroundSlot.isAfter(now) ? nextBackgroundSlot : now;
+            wait = Duration.between(now, slot);
+            if (wait.compareTo(settings.getMaxBackgroundWait()) > 0) {
+                throw new RateLimitExceededException("Background GitHub calls are paced", wait);
+            }
+            nextBackgroundSlot = resetAt == null ? slot : slot.plus(Duration.between(now, resetAt).dividedBy(spendable));
+            inFlight++;
+        } finally {
+            lock.unlock();
+        }
+
+        if (!wait.isZero()) {
+            try {
+                Thread.sleep(wait.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                complete(null);
+                throw new RateLimitExceededException("Interrupted while waiting for a paced slot", wait);
+            }
+        }
+    }
+
+    /**
+     * Returns the token taken by {@link #acquire} and records the budget reported with the response, if any.
+     */
+    public void complete(HttpHeaders responseHeaders) {
+        if (!settings.isEnabled()) {
+            return;
+        }
+        lock.lock();
+        try {
+            inFlight = Math.max(0, inFlight - 1);
+            if (responseHeaders != null) {
+                update(responseHeaders);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Classifies an error response. Returns how long to back off if it was a primary or secondary rate limit,
+     * or {@code null} for any other client error.
+     */
+    public Duration rateLimited(HttpStatusCode status, HttpHeaders responseHeaders, String responseBody) {
+        if (status.value() != 403 && status.value() != 429) {
+            return null;
+        }
+        HttpHeaders headers = responseHeaders == null ? HttpHeaders.EMPTY : responseHeaders;
+        lock.lock();
+        try {
+            Instant now = clock.instant();
+            Duration retryAfter = retryAfter(headers, now);
+            if (retryAfter != null) {
+                block(now, retryAfter);
+                return retryAfter;
+            }
+            if ("0".equals(headers.getFirst(REMAINING_HEADER))) {
+                update(headers);
+                remaining = 0;
+                return untilReset(now);
+            }
+            boolean secondary = status.value() == 429
+                    || (responseBody != null && responseBody.toLowerCase(Locale.ROOT).contains("rate limit"));
+            if (!secondary) {
+                return null;
+            }
+            block(now, settings.getSecondaryBackoff());
+            return settings.getSecondaryBackoff();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void update(HttpHeaders headers) {
+        Integer reportedLimit = intHeader(headers, LIMIT_HEADER);
+        Integer reportedRemaining = intHeader(headers, REMAINING_HEADER);
+        Integer reportedReset = intHeader(headers, RESET_HEADER);
+        if (reportedLimit == null || reportedRemaining == null || reportedReset == null) {
+            return;
+        }
+        Instant reset = Instant.ofEpochSecond(reportedReset);
+        if (reset.equals(resetAt)) {
+            // responses to concurrent calls can arrive out of order; the lowest count is the latest
+            remaining = Math.min(remaining, reportedRemaining);
+        } else if (resetAt == null || reset.isAfter(resetAt)) {
+            resetAt = reset;
+            remaining = reportedRemaining;
+            nextBackgroundSlot = Instant.MIN;
+        }
+        limit = reportedLimit;
+    }
+
+    private void block(Instant now, Duration backoff) {
+        Instant until = now.plus(backoff);
+        if (until.isAfter(blockedUntil)) {
+            blockedUntil = until;
+            log.warn("GitHub secondary rate limit hit, pausing outbound calls for {}", backoff);
+        }
+    }
+
+    private Duration untilReset(Instant now) {
+        if (resetAt == null || !resetAt.isAfter(now)) {
+            return settings.getSecondaryBackoff();
+        }
+        return Duration.between(now, resetAt);
+    }
+
+    private static Duration retryAfter(HttpHeaders headers, Instant now) {
+        String value = headers.getFirst(HttpHeaders.RETRY_AFTER);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Duration.ofSeconds(Long.parseLong(value.trim()));
+        } catch (NumberFormatException e) {
+            try {
+                Instant at = ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+                return at.isAfter(now) ? Duration.between(now, at) : Duration.ZERO;
+            } catch (DateTimeParseException ignored) {
+                return null;
+            }
+        }
+    }
+
+    private static Integer intHeader(HttpHeaders headers, String name) {
+        String value = headers.getFirst(name);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
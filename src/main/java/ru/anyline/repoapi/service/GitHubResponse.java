@@ -0,0 +1,12 @@
+package ru.anyline.repoapi.service;
+
+/**
+ * Result of a (possibly conditional) GitHub request: either a fresh body with the validators to send next
+ * time, or {@code notModified} when GitHub answered 304 to the validators we sent.
+ */
+public record GitHubResponse<T>(T body, String etag, String lastModified, boolean notModified) {
+
+    public static <T> GitHubResponse<T> notModifiedResponse() {
+        return new GitHubResponse<>(null, null, null, true);
+    }
+}
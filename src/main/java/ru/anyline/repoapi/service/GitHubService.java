@@ -3,11 +3,13 @@ package ru.anyline.repoapi.service;
 import ru.anyline.repoapi.model.UserRepos;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface GitHubService {
 
     List<UserRepos> getRepositories(String username);
-    List<UserRepos> getCachedRepos();
+    List<UserRepos> getCachedRepos(Long afterId, int limit);
+    void streamCachedRepos(Consumer<UserRepos> action);
     UserRepos getRepository(String username, String reponame);
 
 
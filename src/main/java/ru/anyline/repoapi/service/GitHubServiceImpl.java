@@ -1,69 +1,208 @@
 package ru.anyline.repoapi.service;
 
-import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
+import ru.anyline.repoapi.cache.CacheNames;
+import ru.anyline.repoapi.config.GitHubProperties;
+import ru.anyline.repoapi.model.FetchState;
+import ru.anyline.repoapi.repository.FetchStateRepository;
 import ru.anyline.repoapi.repository.Repository;
+import ru.anyline.repoapi.service.RepositoryStore.Freshness;
 import ru.anyline.repoapi.model.UserRepos;
-import org.springframework.http.ResponseEntity;
-import org.springframework.web.client.RestTemplate;
 import org.springframework.stereotype.Service;
 
-import java.util.Arrays;
 import java.util.List;
-import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
 
+/**
+ * Serves repositories from the local table and keeps them converging with GitHub: entries younger than the
+ * soft TTL are served as is, entries between the soft and hard TTL are served stale while one background
+ * refresh runs, and entries past the hard TTL are refreshed before they are returned.
+ * <p>
+ * The lookups are fronted by the two-tier cache from {@code RedisConfig}; whenever stored rows change the
+ * affected entries are evicted so the next read goes back to the table.
+ */
+@Slf4j
 @Service
-@AllArgsConstructor
 public class GitHubServiceImpl implements GitHubService{
 
+    // GitHub logins are case-insensitive, so every cache, table and single-flight lookup uses the canonical key
+    private static final String USERNAME_KEY = "T(ru.anyline.repoapi.model.UserRepos).usernameKey(#username)";
+
     private final Repository repository;
-    private final RestTemplate restTemplate;
+    private final FetchStateRepository fetchStateRepository;
+    private final GitHubClient gitHubClient;
+    private final GitHubMetrics gitHubMetrics;
+    private final Executor refreshExecutor;
+    private final RepositoryStore store;
+
+    private final SingleFlight<String, List<UserRepos>> repositoriesInFlight = new SingleFlight<>();
+    private final SingleFlight<String, UserRepos> repositoryInFlight = new SingleFlight<>();
+    private final Set<String> backgroundRefreshes = ConcurrentHashMap.newKeySet();
 
+    public GitHubServiceImpl(Repository repository, FetchStateRepository fetchStateRepository,
+                             GitHubClient gitHubClient, GitHubMetrics gitHubMetrics, GitHubProperties gitHubProperties,
+                             @Qualifier("gitHubRefreshExecutor") Executor refreshExecutor, CacheManager cacheManager) {
+        this.repository = repository;
+        this.fetchStateRepository = fetchStateRepository;
+        this.gitHubClient = gitHubClient;
+        this.gitHubMetrics = gitHubMetrics;
+        this.refreshExecutor = refreshExecutor;
+        this.store = new RepositoryStore(repository, fetchStateRepository, gitHubMetrics, gitHubProperties.getFreshness(),
+                cacheManager);
+    }
+
+    @Cacheable(cacheNames = CacheNames.REPOS, key = USERNAME_KEY)
     public List<UserRepos> getRepositories(String username) {
+        String usernameKey = UserRepos.usernameKey(username);
+
+        List<UserRepos> cachedRepos = repository.readByUsernameKey(usernameKey);
+        String fetchKey = FetchState.listingKey(usernameKey);
+        Freshness entryFreshness = cachedRepos.isEmpty() ? null : store.freshness(fetchKey);
+        if (entryFreshness == null) {
+            // without a listing fetch the rows are single repositories stored by getRepository, not the listing
+            return repositoriesInFlight.execute(usernameKey, () -> fetchRepositories(usernameKey, GitHubCallPriority.INTERACTIVE));
+        }
+        if (entryFreshness == Freshness.EXPIRED) {
+            return refreshRepositories(usernameKey, GitHubCallPriority.INTERACTIVE);
+        }
+        if (entryFreshness == Freshness.STALE) {
+            gitHubMetrics.staleHit();
+            refreshInBackground(fetchKey, () -> refreshRepositories(usernameKey, GitHubCallPriority.BACKGROUND));
+        } else {
+            gitHubMetrics.cacheHit();
+        }
+        return cachedRepos;
+    }
 
-        List<UserRepos> cachedRepos = repository.findByUsername(username);
+    /**
+     * Revalidates the stored listing against GitHub with the validators from the last fetch, rewriting the
+     * rows only if GitHub reports a change. {@code priority} decides how the call is metered against the
+     * GitHub rate limit.
+     */
+    public List<UserRepos> refreshRepositories(String username, GitHubCallPriority priority) {
+        String usernameKey = UserRepos.usernameKey(username);
+        return repositoriesInFlight.execute(usernameKey, () -> revalidateRepositories(usernameKey, priority));
+    }
+
+    private List<UserRepos> fetchRepositories(String usernameKey, GitHubCallPriority priority) {
+        // a previous leader may have stored the listing between our cache miss and taking the lead
+        List<UserRepos> cachedRepos = store.storedListing(usernameKey);
         if (!cachedRepos.isEmpty()) {
             return cachedRepos;
         }
+        return store.storeRepositories(usernameKey, gitHubClient.getUserRepos(usernameKey, null, null, priority));
+    }
+
+    private List<UserRepos> revalidateRepositories(String usernameKey, GitHubCallPriority priority) {
+        List<UserRepos> cachedRepos = repository.readByUsernameKey(usernameKey);
+        FetchState state = cachedRepos.isEmpty() ? null
+                : fetchStateRepository.findById(FetchState.listingKey(usernameKey)).orElse(null);
 
-        String url = String.format("https://api.github.com/users/%s/repos", username);
-        ResponseEntity<UserRepos[]> response = restTemplate.getForEntity(url, UserRepos[].class);
+        GitHubResponse<List<UserRepos>> response = state == null
+                ? gitHubClient.getUserRepos(usernameKey, null, null, priority)
+                : gitHubClient.getUserRepos(usernameKey, state.getEtag(), state.getLastModified(), priority);
+        if (response.notModified()) {
+            store.markNotModified(state);
+            return cachedRepos;
+        }
+        return store.storeRepositories(usernameKey, response);
+    }
 
-        List<UserRepos> repositories = Arrays.asList(Objects.requireNonNull(response.getBody()));
+    @Cacheable(cacheNames = CacheNames.REPO, key = USERNAME_KEY + " + '/' + #repoName", unless = "#result == null")
+    public UserRepos getRepository(String username, String repoName) {
+        String usernameKey = UserRepos.usernameKey(username);
+        UserRepos cachedRepo = repository.readByUsernameKeyAndRepoName(usernameKey, repoName);
+        if (cachedRepo == null) {
+            return repositoryInFlight.execute(usernameKey + "/" + repoName,
+                    () -> fetchRepository(usernameKey, repoName, GitHubCallPriority.INTERACTIVE));
+        }
 
-        repositories.forEach(repo -> {
-            repo.setId(null);
-            repo.setUsername(username);
-            repo.setRepoName(repo.getRepoName());
-            repo.setUrl(repo.getUrl());
-        });
-        repository.saveAll(repositories);
-        return repositories;
+        String fetchKey = FetchState.repoKey(usernameKey, repoName);
+        Freshness entryFreshness = store.repositoryFreshness(usernameKey, repoName);
+        if (entryFreshness == Freshness.EXPIRED) {
+            return refreshRepository(usernameKey, repoName, GitHubCallPriority.INTERACTIVE);
+        }
+        if (entryFreshness == Freshness.STALE) {
+            gitHubMetrics.staleHit();
+            refreshInBackground(fetchKey, () -> refreshRepository(usernameKey, repoName, GitHubCallPriority.BACKGROUND));
+        } else {
+            gitHubMetrics.cacheHit();
+        }
+        return cachedRepo;
     }
 
+    public UserRepos refreshRepository(String username, String repoName, GitHubCallPriority priority) {
+        String usernameKey = UserRepos.usernameKey(username);
+        return repositoryInFlight.execute(usernameKey + "/" + repoName,
+                () -> revalidateRepository(usernameKey, repoName, priority));
+    }
 
-    public UserRepos getRepository(String username, String repoName) {
-        UserRepos cachedRepo = repository.findByUsernameAndRepoName(username, repoName);
+    private UserRepos fetchRepository(String usernameKey, String repoName, GitHubCallPriority priority) {
+        UserRepos cachedRepo = repository.readByUsernameKeyAndRepoName(usernameKey, repoName);
         if (cachedRepo != null) {
             return cachedRepo;
         }
-        String url = String.format("https://api.github.com/repos/%s/%s", username, repoName);
-        ResponseEntity<UserRepos> response = restTemplate.getForEntity(url, UserRepos.class);
-
-        UserRepos repo = response.getBody();
-        if (repo != null) {
-            repo.setId(null);
-            repo.setUsername(username);
-            repo.setRepoName(repo.getRepoName());
-            repo.setUrl(repo.getUrl());
-            repository.save(repo);
+        return store.storeRepository(usernameKey, repoName, null, gitHubClient.getRepo(usernameKey, repoName, null, null, priority));
+    }
+
+    private UserRepos revalidateRepository(String usernameKey, String repoName, GitHubCallPriority priority) {
+        UserRepos cachedRepo = repository.readByUsernameKeyAndRepoName(usernameKey, repoName);
+        FetchState state = cachedRepo == null ? null
+                : fetchStateRepository.findById(FetchState.repoKey(usernameKey, repoName)).orElse(null);
+
+        GitHubResponse<UserRepos> response = state == null
+                ? gitHubClient.getRepo(usernameKey, repoName, null, null, priority)
+                : gitHubClient.getRepo(usernameKey, repoName, state.getEtag(), state.getLastModified(), priority);
+        if (response.notModified()) {
+            store.markNotModified(state);
+            return cachedRepo;
         }
-        return repo;
+        return store.storeRepository(usernameKey, repoName, cachedRepo, response);
+    }
+
+    /** Drops what is stored for a listing ({@code repoName == null}) or repository GitHub answered 404 for. */
+    public void forget(String username, String repoName) {
+        store.forget(UserRepos.usernameKey(username), repoName);
+    }
+
+    private void refreshInBackground(String fetchKey, Runnable refresh) {
+        if (!backgroundRefreshes.add(fetchKey)) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    refresh.run();
+                } catch (RuntimeException e) {
+                    log.warn("Background refresh of {} failed: {}", fetchKey, e.getMessage());
+                } finally {
+                    backgroundRefreshes.remove(fetchKey);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // refresh queue is full; a later stale hit will try again
+            backgroundRefreshes.remove(fetchKey);
+        }
+    }
+
+    /** Stored repositories in id order, a page at a time; pass the last id of a page to get the next one. */
+    public List<UserRepos> getCachedRepos(Long afterId, int limit){
+        return repository.readPageAfter(afterId == null ? 0 : afterId, Limit.of(limit));
     }
 
-    public List<UserRepos> getCachedRepos(){
-        return repository.findAll();
+    public void streamCachedRepos(Consumer<UserRepos> action){
+        repository.forEachStored(action);
     }
 
-    public List<UserRepos> getReposByUsername(String username){ return repository.findByUsername(username);  }
+    @Cacheable(cacheNames = CacheNames.CACHED_REPOS, key = USERNAME_KEY)
+    public List<UserRepos> getReposByUsername(String username){ return repository.readByUsernameKey(UserRepos.usernameKey(username));  }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,10 @@
+package ru.anyline.repoapi.service;
+
+import java.util.List;
+
+/**
+ * One page of a project's participants in user id order. {@code nextAfter} is passed back as {@code after}
+ * to read the next page and is {@code null} on the last one.
+ */
+public record ParticipantPage(List<Long> userIds, Long nextAfter) {
+}
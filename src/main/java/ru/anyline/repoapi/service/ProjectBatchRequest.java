@@ -0,0 +1,20 @@
+package ru.anyline.repoapi.service;
+
+import ru.anyline.repoapi.model.UserProject;
+
+import java.util.List;
+
+/**
+ * Projects to create, projects to update (by id; name and description are replaced) and ids of projects to
+ * delete, applied in that order. Any of the lists may be left out.
+ */
+public record ProjectBatchRequest(List<UserProject> create, List<UserProject> update, List<Long> delete) {
+
+    public int size() {
+        return sizeOf(create) + sizeOf(update) + sizeOf(delete);
+    }
+
+    private static int sizeOf(List<?> items) {
+        return items == null ? 0 : items.size();
+    }
+}
@@ -0,0 +1,17 @@
+package ru.anyline.repoapi.service;
+
+import java.util.List;
+
+/** One {@link Item} per item of the {@link ProjectBatchRequest}, list for list and in the same order. */
+public record ProjectBatchResult(List<Item> create, List<Item> update, List<Item> delete) {
+
+    public enum Outcome { CREATED, UPDATED, DELETED, NOT_FOUND, INVALID, FAILED }
+
+    /**
+     * @param index position of the item in its request list
+     * @param id    the project id, assigned for a created project; {@code null} if none was given or assigned
+     * @param error why the item was not applied, {@code null} if it was
+     */
+    public record Item(int index, Long id, Outcome outcome, String error) {
+    }
+}
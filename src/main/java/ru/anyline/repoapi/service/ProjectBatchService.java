@@ -0,0 +1,154 @@
+package ru.anyline.repoapi.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.anyline.repoapi.model.UserProject;
+import ru.anyline.repoapi.repository.UserProjectRepository;
+import ru.anyline.repoapi.service.ProjectBatchResult.Item;
+import ru.anyline.repoapi.service.ProjectBatchResult.Outcome;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Applies a {@link ProjectBatchRequest} in chunks of {@link #CHUNK_SIZE} items, one transaction per chunk.
+ * Within a chunk inserts and updates go out as JDBC batches, the rows to update are read with one select and
+ * deletes are one statement. A chunk that fails is rolled back and reported as {@link Outcome#FAILED} item
+ * by item; the chunks before and after it are kept.
+ */
+@Slf4j
+@Service
+public class ProjectBatchService {
+
+    static final int CHUNK_SIZE = 500;
+
+    private final UserProjectRepository userProjectRepository;
+    private final ProjectSearchIndex projectSearchIndex;
+    private final TransactionTemplate transactionTemplate;
+
+    public ProjectBatchService(UserProjectRepository userProjectRepository, ProjectSearchIndex projectSearchIndex,
+                               PlatformTransactionManager transactionManager) {
+        this.userProjectRepository = userProjectRepository;
+        this.projectSearchIndex = projectSearchIndex;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public ProjectBatchResult apply(ProjectBatchRequest request) {
+        return new ProjectBatchResult(
+                inChunks(request.create(), this::create),
+                inChunks(request.update(), this::update),
+                inChunks(request.delete(), this::delete));
+    }
+
+    private <T> List<Item> inChunks(List<T> items, ChunkWriter<T> writer) {
+        if (items == null) {
+            return List.of();
+        }
+        List<Item> results = new ArrayList<>(items.size());
+        for (int offset = 0; offset < items.size(); offset += CHUNK_SIZE) {
+            List<T> chunk = items.subList(offset, Math.min(offset + CHUNK_SIZE, items.size()));
+            Item[] chunkResults = new Item[chunk.size()];
+            List<Runnable> afterCommit = new ArrayList<>();
+            try {
+                int chunkOffset = offset;
+                transactionTemplate.executeWithoutResult(status -> writer.write(chunkOffset, chunk, chunkResults, afterCommit));
+                // the search index must not see writes that were rolled back
+                afterCommit.forEach(Runnable::run);
+            } catch (RuntimeException e) {
+                log.warn("Project batch chunk at {} failed: {}", offset, e.getMessage());
+                for (int i = 0; i < chunk.size(); i++) {
+                    chunkResults[i] = new Item(offset + i, null, Outcome.FAILED, e.getMessage());
+                }
+            }
+            results.addAll(Arrays.asList(chunkResults));
+        }
+        return results;
+    }
+
+    private void create(int offset, List<UserProject> chunk, Item[] results, List<Runnable> afterCommit) {
+        List<UserProject> valid = new ArrayList<>();
+        List<Integer> positions = new ArrayList<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            UserProject project = chunk.get(i);
+            if (!hasName(project)) {
+                results[i] = new Item(offset + i, null, Outcome.INVALID, "name is required");
+                continue;
+            }
+            project.setId(null);
+            valid.add(project);
+            positions.add(i);
+        }
+        List<UserProject> saved = userProjectRepository.saveAll(valid);
+        for (int j = 0; j < saved.size(); j++) {
+            UserProject project = saved.get(j);
+            int i = positions.get(j);
+            results[i] = new Item(offset + i, project.getId(), Outcome.CREATED, null);
+            afterCommit.add(() -> projectSearchIndex.put(project));
+        }
+    }
+
+    private void update(int offset, List<UserProject> chunk, Item[] results, List<Runnable> afterCommit) {
+        Set<Long> ids = new HashSet<>();
+        for (UserProject project : chunk) {
+            if (project != null && project.getId() != null) {
+                ids.add(project.getId());
+            }
+        }
+        // one select for the chunk; the changes are flushed as batched updates on commit
+        Map<Long, UserProject> stored = userProjectRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(UserProject::getId, Function.identity()));
+        for (int i = 0; i < chunk.size(); i++) {
+            UserProject project = chunk.get(i);
+            Long id = project == null ? null : project.getId();
+            if (id == null || !hasName(project)) {
+                results[i] = new Item(offset + i, id, Outcome.INVALID, id == null ? "id is required" : "name is required");
+                continue;
+            }
+            UserProject row = stored.get(id);
+            if (row == null) {
+                results[i] = new Item(offset + i, id, Outcome.NOT_FOUND, null);
+                continue;
+            }
+            row.setName(project.getName());
+            row.setDescription(project.getDescription());
+            results[i] = new Item(offset + i, id, Outcome.UPDATED, null);
+            afterCommit.add(() -> projectSearchIndex.put(row));
+        }
+    }
+
+    private void delete(int offset, List<Long> chunk, Item[] results, List<Runnable> afterCommit) {
+        Set<Long> existing = new HashSet<>(userProjectRepository.findExistingIds(
+                chunk.stream().filter(id -> id != null).collect(Collectors.toSet())));
+        if (!existing.isEmpty()) {
+            userProjectRepository.deleteAllByIdInBatch(existing);
+        }
+        for (int i = 0; i < chunk.size(); i++) {
+            Long id = chunk.get(i);
+            if (id == null) {
+                results[i] = new Item(offset + i, null, Outcome.INVALID, "id is required");
+            } else if (existing.contains(id)) {
+                results[i] = new Item(offset + i, id, Outcome.DELETED, null);
+                afterCommit.add(() -> projectSearchIndex.remove(id));
+            } else {
+                results[i] = new Item(offset + i, id, Outcome.NOT_FOUND, null);
+            }
+        }
+    }
+
+    private static boolean hasName(UserProject project) {
+        return project != null && project.getName() != null && !project.getName().trim().isEmpty();
+    }
+
+    @FunctionalInterface
+    private interface ChunkWriter<T> {
+        void write(int offset, List<T> chunk, Item[] results, List<Runnable> afterCommit);
+    }
+}
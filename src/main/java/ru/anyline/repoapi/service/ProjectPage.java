@@ -0,0 +1,12 @@
+package ru.anyline.repoapi.service;
+
+import ru.anyline.repoapi.model.UserProject;
+
+import java.util.List;
+
+/**
+ * One page of a project listing. {@code nextCursor} is passed back as {@code cursor} to read the next page and
+ * is {@code null} on the last one.
+ */
+public record ProjectPage(List<UserProject> items, String nextCursor) {
+}
@@ -0,0 +1,336 @@
+package ru.anyline.repoapi.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.anyline.repoapi.model.UserProject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * In-process trigram index over project names and descriptions, so that a search reads a few posting lists
+ * instead of lower-casing and scanning every row with {@code like '%x%'}.
+ * <p>
+ * Text is normalized by lower-casing it and turning every run of characters other than letters and digits
+ * into one space, with a space at either end; each three-character window of the result is a trigram. A
+ * query of three or more characters matches a project whose normalized name or description contains the
+ * normalized query: the intersection of its trigrams' posting lists gives the candidates and a substring
+ * check confirms them. A two-character query matches the start of a word.
+ * <p>
+ * Matches are ranked by where the query was found: the whole name, the start of the name, the start of a
+ * word in the name, anywhere in the name, then the description; shorter names first within a rank. The
+ * index lives in this process only, so writes made by another instance are not seen until it is rebuilt.
+ */
+@Slf4j
+@Component
+public class ProjectSearchIndex {
+
+    public static final int MIN_QUERY_LENGTH = 2;
+
+    private static final int COMPACT_AFTER_REMOVALS = 1024;
+    private static final Comparator<Hit> RANKING = Comparator.comparingInt(Hit::rank)
+            .thenComparingInt(Hit::nameLength)
+            .thenComparingLong(Hit::projectId);
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // documents are numbered in the order they were indexed; every posting list is sorted by that number
+    private final Map<Long, Postings> postings = new HashMap<>();
+    private final Map<Long, Integer> documentsByProject = new HashMap<>();
+    private UserProject[] projects = new UserProject[1024];
+    private String[] names = new String[1024];
+    private String[] descriptions = new String[1024];
+    private int documentCount;
+    private int removedCount;
+
+    private volatile boolean ready;
+    // ids written since a rebuild started, which the rows it streams must not overwrite
+    private Set<Long> writtenDuringRebuild;
+
+    /** Whether the index holds every stored project; until then searches must go to the database. */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Replaces the contents of the index with the projects {@code scan} hands over. Searches are not served
+     * while it runs; writes are, and win over the rows being streamed.
+     */
+    public void rebuild(Consumer<Consumer<UserProject>> scan) {
+        lock.writeLock().lock();
+        try {
+            ready = false;
+            clear();
+            writtenDuringRebuild = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        long started = System.nanoTime();
+        scan.accept(project -> {
+            lock.writeLock().lock();
+            try {
+                if (!writtenDuringRebuild.contains(project.getId())) {
+                    index(project);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+        lock.writeLock().lock();
+        try {
+            writtenDuringRebuild = null;
+            ready = true;
+            log.info("Indexed {} projects for search in {} ms", documentsByProject.size(), (System.nanoTime() - started) / 1_000_000);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Adds a created project or replaces the indexed copy of an updated one. */
+    public void put(UserProject project) {
+        lock.writeLock().lock();
+        try {
+            if (writtenDuringRebuild != null) {
+                writtenDuringRebuild.add(project.getId());
+            }
+            unindex(project.getId());
+            index(project);
+            compactIfSparse();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long projectId) {
+        lock.writeLock().lock();
+        try {
+            if (writtenDuringRebuild != null) {
+                writtenDuringRebuild.add(projectId);
+            }
+            unindex(projectId);
+            compactIfSparse();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns up to {@code limit} projects matching {@code query}, best first. Queries shorter than
+     * {@link #MIN_QUERY_LENGTH} once normalized match nothing.
+     */
+    public List<UserProject> search(String query, int limit) {
+        String normalized = normalize(query).trim();
+        if (normalized.length() < MIN_QUERY_LENGTH || limit < 1) {
+            return List.of();
+        }
+        // two characters are a single trigram only together with the space before a word
+        String wordStart = " " + normalized;
+        String probe = normalized.length() < 3 ? wordStart : normalized;
+
+        lock.readLock().lock();
+        try {
+            Postings[] lists = postingsOf(probe);
+            if (lists == null) {
+                return List.of();
+            }
+            PriorityQueue<Hit> best = new PriorityQueue<>(Math.min(limit, 1024) + 1, RANKING.reversed());
+            Postings smallest = lists[0];
+            int[] positions = new int[lists.length];
+            for (int i = 0; i < smallest.size; i++) {
+                int document = smallest.documents[i];
+                if (projects[document] == null || !inAll(lists, positions, document)) {
+                    continue;
+                }
+                int rank = rank(names[document], descriptions[document], normalized, wordStart, probe);
+                if (rank < 0) {
+                    continue;
+                }
+                int nameLength = names[document] == null ? Integer.MAX_VALUE : names[document].length();
+                best.add(new Hit(rank, nameLength, projects[document].getId(), document));
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+            List<Hit> hits = new ArrayList<>(best);
+            hits.sort(RANKING);
+            List<UserProject> matches = new ArrayList<>(hits.size());
+            hits.forEach(hit -> matches.add(copy(projects[hit.document()])));
+            return matches;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documentsByProject.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** The posting lists of every trigram of {@code probe}, shortest first, or {@code null} if one is empty. */
+    private Postings[] postingsOf(String probe) {
+        Set<Long> trigrams = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= probe.length(); i++) {
+            trigrams.add(trigram(probe, i));
+        }
+        Postings[] lists = new Postings[trigrams.size()];
+        int i = 0;
+        for (Long trigram : trigrams) {
+            Postings list = postings.get(trigram);
+            if (list == null) {
+                return null;
+            }
+            lists[i++] = list;
+        }
+        Arrays.sort(lists, Comparator.comparingInt(list -> list.size));
+        return lists;
+    }
+
+    // documents arrive in ascending order, so each list is searched only past where the last lookup ended
+    private static boolean inAll(Postings[] lists, int[] positions, int document) {
+        for (int j = 1; j < lists.length; j++) {
+            Postings list = lists[j];
+            int found = Arrays.binarySearch(list.documents, positions[j], list.size, document);
+            if (found < 0) {
+                positions[j] = -found - 1;
+                return false;
+            }
+            positions[j] = found + 1;
+        }
+        return true;
+    }
+
+    private static int rank(String name, String description, String normalized, String wordStart, String probe) {
+        if (name != null && name.contains(probe)) {
+            if (name.length() == normalized.length() + 2) {
+                return 0;
+            }
+            if (name.startsWith(normalized, 1)) {
+                return 1;
+            }
+            return name.contains(wordStart) ? 2 : 3;
+        }
+        return description != null && description.contains(probe) ? 4 : -1;
+    }
+
+    private void index(UserProject project) {
+        if (documentCount == projects.length) {
+            int capacity = projects.length * 2;
+            projects = Arrays.copyOf(projects, capacity);
+            names = Arrays.copyOf(names, capacity);
+            descriptions = Arrays.copyOf(descriptions, capacity);
+        }
+        int document = documentCount++;
+        projects[document] = copy(project);
+        names[document] = project.getName() == null ? null : normalize(project.getName());
+        descriptions[document] = project.getDescription() == null ? null : normalize(project.getDescription());
+        documentsByProject.put(project.getId(), document);
+        addTrigrams(names[document], document);
+        addTrigrams(descriptions[document], document);
+    }
+
+    // the document stays in its posting lists until the next compaction; searches skip it
+    private void unindex(Long projectId) {
+        Integer document = documentsByProject.remove(projectId);
+        if (document != null) {
+            projects[document] = null;
+            names[document] = null;
+            descriptions[document] = null;
+            removedCount++;
+        }
+    }
+
+    private void addTrigrams(String text, int document) {
+        if (text == null) {
+            return;
+        }
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            postings.computeIfAbsent(trigram(text, i), key -> new Postings()).add(document);
+        }
+    }
+
+    // once most documents are dead, searches walk mostly dead postings; re-index what is left
+    private void compactIfSparse() {
+        if (removedCount <= COMPACT_AFTER_REMOVALS || removedCount <= documentCount / 2) {
+            return;
+        }
+        UserProject[] live = Arrays.copyOf(projects, documentCount);
+        clear();
+        for (UserProject project : live) {
+            if (project != null) {
+                index(project);
+            }
+        }
+    }
+
+    private void clear() {
+        postings.clear();
+        documentsByProject.clear();
+        Arrays.fill(projects, null);
+        Arrays.fill(names, null);
+        Arrays.fill(descriptions, null);
+        documentCount = 0;
+        removedCount = 0;
+    }
+
+    static String normalize(String text) {
+        StringBuilder normalized = new StringBuilder(text.length() + 2).append(' ');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                normalized.append(Character.toLowerCase(c));
+            } else if (normalized.charAt(normalized.length() - 1) != ' ') {
+                normalized.append(' ');
+            }
+        }
+        if (normalized.charAt(normalized.length() - 1) != ' ') {
+            normalized.append(' ');
+        }
+        return normalized.toString();
+    }
+
+    private static long trigram(String text, int at) {
+        return ((long) text.charAt(at) << 32) | ((long) text.charAt(at + 1) << 16) | text.charAt(at + 2);
+    }
+
+    private static UserProject copy(UserProject project) {
+        UserProject copy = new UserProject();
+        copy.setId(project.getId());
+        copy.setName(project.getName());
+        copy.setDescription(project.getDescription());
+        copy.setUserId(project.getUserId());
+        return copy;
+    }
+
+    private record Hit(int rank, int nameLength, long projectId, int document) {
+    }
+
+    private static final class Postings {
+
+        private int[] documents = new int[4];
+        private int size;
+
+        void add(int document) {
+            if (size > 0 && documents[size - 1] == document) {
+                return;
+            }
+            if (size == documents.length) {
+                documents = Arrays.copyOf(documents, size * 2);
+            }
+            documents[size++] = document;
+        }
+    }
+}
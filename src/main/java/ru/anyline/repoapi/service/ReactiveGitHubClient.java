@@ -0,0 +1,119 @@
+package ru.anyline.repoapi.service;
+
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import ru.anyline.repoapi.config.GitHubProperties;
+import ru.anyline.repoapi.exceptions.RateLimitExceededException;
+import ru.anyline.repoapi.model.UserRepos;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * {@link GitHubClient} on WebClient: the same requests, validators, rate limiting and metrics, but no thread waits
+ * for GitHub. Remaining listing pages are requested at most {@code pageConcurrency} at a time and merged back in
+ * page order.
+ * <p>
+ * Only a background call can wait on the {@link GitHubRateLimiter}, for its paced slot; that wait runs on Reactor's
+ * bounded elastic scheduler rather than on an event loop.
+ */
+@Component
+@ConditionalOnProperty(prefix = "repoapi.github.reactive", name = "enabled", havingValue = "true")
+public class ReactiveGitHubClient {
+
+    private final WebClient webClient;
+    private final GitHubProperties gitHubProperties;
+    private final GitHubRateLimiter rateLimiter;
+    private final GitHubMetrics gitHubMetrics;
+
+    public ReactiveGitHubClient(@Qualifier("gitHubWebClient") WebClient webClient, GitHubProperties gitHubProperties,
+                                GitHubRateLimiter rateLimiter, GitHubMetrics gitHubMetrics) {
+        this.webClient = webClient;
+        this.gitHubProperties = gitHubProperties;
+        this.rateLimiter = rateLimiter;
+        this.gitHubMetrics = gitHubMetrics;
+    }
+
+    public Mono<GitHubResponse<List<UserRepos>>> getUserRepos(String username, String etag, String lastModified,
+                                                              GitHubCallPriority priority) {
+        return getUserReposPage(username, 1, GitHubClient.conditionalHeaders(etag, lastModified), priority)
+                .flatMap(first -> {
+                    if (first.getStatusCode() == HttpStatus.NOT_MODIFIED) {
+                        return Mono.just(GitHubResponse.notModifiedResponse());
+                    }
+                    List<UserRepos> firstPage = Arrays.asList(Objects.requireNonNull(first.getBody()));
+                    int lastPage = GitHubClient.lastPage(first.getHeaders());
+                    return Flux.range(2, Math.max(0, lastPage - 1))
+                            .flatMapSequential(page -> getUserReposPage(username, page, HttpHeaders.EMPTY, priority)
+                                    .map(response -> Arrays.asList(Objects.requireNonNull(response.getBody()))),
+                                    gitHubProperties.getPageConcurrency())
+                            .collect(() -> new ArrayList<>(firstPage), List::addAll)
+                            .map(repositories -> GitHubClient.<List<UserRepos>>response(repositories, first.getHeaders()));
+                });
+    }
+
+    public Mono<GitHubResponse<UserRepos>> getRepo(String username, String repoName, String etag, String lastModified,
+                                                   GitHubCallPriority priority) {
+        return exchange(priority, "repo", "/repos/{username}/{repoName}",
+                GitHubClient.conditionalHeaders(etag, lastModified), UserRepos.class, username, repoName)
+                .map(response -> response.getStatusCode() == HttpStatus.NOT_MODIFIED
+                        ? GitHubResponse.<UserRepos>notModifiedResponse()
+                        : GitHubClient.response(response.getBody(), response.getHeaders()));
+    }
+
+    private Mono<ResponseEntity<UserRepos[]>> getUserReposPage(String username, int page, HttpHeaders headers,
+                                                               GitHubCallPriority priority) {
+        return exchange(priority, "user_repos", "/users/{username}/repos?per_page={perPage}&page={page}",
+                headers, UserRepos[].class, username, gitHubProperties.getPerPage(), page);
+    }
+
+    private <T> Mono<ResponseEntity<T>> exchange(GitHubCallPriority priority, String endpoint, String path,
+                                                 HttpHeaders headers, Class<T> type, Object... uriVariables) {
+        Mono<Void> acquire = Mono.fromRunnable(() -> rateLimiter.acquire(priority));
+        if (priority == GitHubCallPriority.BACKGROUND) {
+            acquire = acquire.subscribeOn(Schedulers.boundedElastic());
+        }
+        return acquire.then(Mono.defer(() -> {
+            AtomicReference<HttpHeaders> responseHeaders = new AtomicReference<>();
+            AtomicReference<String> status = new AtomicReference<>("ERROR");
+            Timer.Sample upstream = gitHubMetrics.upstreamStarted(priority);
+            // URI templates keep the http.client.requests uri tag to one value per endpoint instead of one per user
+            return webClient.get()
+                    .uri(gitHubProperties.getBaseUrl() + path, uriVariables)
+                    .headers(requestHeaders -> requestHeaders.addAll(headers))
+                    .retrieve()
+                    .toEntity(type)
+                    .doOnNext(response -> {
+                        responseHeaders.set(response.getHeaders());
+                        status.set(String.valueOf(response.getStatusCode().value()));
+                    })
+                    .onErrorMap(WebClientResponseException.class, e -> {
+                        responseHeaders.set(e.getHeaders());
+                        status.set(String.valueOf(e.getStatusCode().value()));
+                        Duration retryAfter = rateLimiter.rateLimited(e.getStatusCode(), e.getHeaders(),
+                                e.getResponseBodyAsString());
+                        return retryAfter == null ? e : new RateLimitExceededException("GitHub rate limit reached", retryAfter, e);
+                    })
+                    .doOnError(WebClientRequestException.class, e -> status.set("IO_ERROR"))
+                    .doFinally(signal -> {
+                        gitHubMetrics.upstreamFinished(upstream, priority, endpoint, status.get());
+                        rateLimiter.complete(responseHeaders.get());
+                    });
+        }));
+    }
+}
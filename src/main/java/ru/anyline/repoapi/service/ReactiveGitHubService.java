@@ -0,0 +1,13 @@
+package ru.anyline.repoapi.service;
+
+import reactor.core.publisher.Mono;
+import ru.anyline.repoapi.model.UserRepos;
+
+import java.util.List;
+
+public interface ReactiveGitHubService {
+
+    Mono<List<UserRepos>> getRepositories(String username);
+    Mono<UserRepos> getRepository(String username, String repoName);
+
+}
@@ -0,0 +1,260 @@
+package ru.anyline.repoapi.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import ru.anyline.repoapi.cache.CacheNames;
+import ru.anyline.repoapi.config.GitHubProperties;
+import ru.anyline.repoapi.model.FetchState;
+import ru.anyline.repoapi.model.UserRepos;
+import ru.anyline.repoapi.repository.FetchStateRepository;
+import ru.anyline.repoapi.repository.Repository;
+import ru.anyline.repoapi.service.RepositoryStore.Freshness;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * {@link GitHubServiceImpl} without blocking a request thread: the same freshness rules, single-flight and
+ * background refreshes, with GitHub called through the {@link ReactiveGitHubClient}.
+ * <p>
+ * JDBC still blocks, so every table and cache access runs on the {@code gitHubPersistenceScheduler}, which is
+ * sized to the connection pool. The REPOS and REPO caches are read and filled here rather than through
+ * {@code @Cacheable}, which cannot cache a {@link Mono}'s value.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(prefix = "repoapi.github.reactive", name = "enabled", havingValue = "true")
+public class ReactiveGitHubServiceImpl implements ReactiveGitHubService {
+
+    private final Repository repository;
+    private final ReactiveGitHubClient gitHubClient;
+    private final GitHubMetrics gitHubMetrics;
+    private final CacheManager cacheManager;
+    private final Scheduler persistenceScheduler;
+    private final RepositoryStore store;
+    private final int refreshCapacity;
+
+    private final Map<String, Mono<List<UserRepos>>> repositoriesInFlight = new ConcurrentHashMap<>();
+    private final Map<String, Mono<UserRepos>> repositoryInFlight = new ConcurrentHashMap<>();
+    private final Set<String> backgroundRefreshes = ConcurrentHashMap.newKeySet();
+
+    public ReactiveGitHubServiceImpl(Repository repository, FetchStateRepository fetchStateRepository,
+                                     ReactiveGitHubClient gitHubClient, GitHubMetrics gitHubMetrics,
+                                     GitHubProperties gitHubProperties, CacheManager cacheManager,
+                                     @Qualifier("gitHubPersistenceScheduler") Scheduler persistenceScheduler) {
+        this.repository = repository;
+        this.gitHubClient = gitHubClient;
+        this.gitHubMetrics = gitHubMetrics;
+        this.cacheManager = cacheManager;
+        this.persistenceScheduler = persistenceScheduler;
+        this.store = new RepositoryStore(repository, fetchStateRepository, gitHubMetrics, gitHubProperties.getFreshness(),
+                cacheManager);
+        this.refreshCapacity = gitHubProperties.getFreshness().getRefreshQueueCapacity();
+    }
+
+    @Override
+    public Mono<List<UserRepos>> getRepositories(String username) {
+        String usernameKey = UserRepos.usernameKey(username);
+        // without a listing fetch the rows are single repositories stored by getRepository, not the listing
+        return onPersistence(() -> lookup(CacheNames.REPOS, usernameKey,
+                () -> emptyToNull(repository.readByUsernameKey(usernameKey)),
+                () -> store.freshness(FetchState.listingKey(usernameKey))))
+                .flatMap(stored -> {
+                    if (stored.cached()) {
+                        return Mono.just(stored.value());
+                    }
+                    if (stored.freshness() == null) {
+                        return shared(repositoriesInFlight, usernameKey,
+                                () -> fetchRepositories(usernameKey, GitHubCallPriority.INTERACTIVE))
+                                .flatMap(repos -> onPersistence(() -> put(CacheNames.REPOS, usernameKey, repos)));
+                    }
+                    Mono<List<UserRepos>> repositories = switch (stored.freshness()) {
+                        case FRESH -> {
+                            gitHubMetrics.cacheHit();
+                            yield Mono.just(stored.value());
+                        }
+                        case STALE -> {
+                            gitHubMetrics.staleHit();
+                            refreshInBackground(FetchState.listingKey(usernameKey),
+                                    () -> refreshRepositories(usernameKey, GitHubCallPriority.BACKGROUND));
+                            yield Mono.just(stored.value());
+                        }
+                        case EXPIRED -> refreshRepositories(usernameKey, GitHubCallPriority.INTERACTIVE);
+                    };
+                    return repositories.flatMap(repos -> onPersistence(() -> put(CacheNames.REPOS, usernameKey, repos)));
+                });
+    }
+
+    /** The reactive {@link GitHubServiceImpl#refreshRepositories}. */
+    public Mono<List<UserRepos>> refreshRepositories(String username, GitHubCallPriority priority) {
+        String usernameKey = UserRepos.usernameKey(username);
+        return shared(repositoriesInFlight, usernameKey, () -> revalidateRepositories(usernameKey, priority));
+    }
+
+    private Mono<List<UserRepos>> fetchRepositories(String usernameKey, GitHubCallPriority priority) {
+        // a previous leader may have stored the listing between our cache miss and taking the lead
+        return onPersistence(() -> emptyToNull(store.storedListing(usernameKey)))
+                .switchIfEmpty(Mono.defer(() -> gitHubClient.getUserRepos(usernameKey, null, null, priority)
+                        .flatMap(response -> onPersistence(() -> store.storeRepositories(usernameKey, response)))));
+    }
+
+    private Mono<List<UserRepos>> revalidateRepositories(String usernameKey, GitHubCallPriority priority) {
+        return onPersistence(() -> {
+            List<UserRepos> cachedRepos = repository.readByUsernameKey(usernameKey);
+            return new Revalidation<>(cachedRepos,
+                    cachedRepos.isEmpty() ? null : store.fetchState(FetchState.listingKey(usernameKey)));
+        }).flatMap(stored -> {
+            FetchState state = stored.state();
+            Mono<GitHubResponse<List<UserRepos>>> response = state == null
+                    ? gitHubClient.getUserRepos(usernameKey, null, null, priority)
+                    : gitHubClient.getUserRepos(usernameKey, state.getEtag(), state.getLastModified(), priority);
+            return response.flatMap(fetched -> onPersistence(() -> {
+                if (fetched.notModified()) {
+                    store.markNotModified(state);
+                    return stored.value();
+                }
+                return store.storeRepositories(usernameKey, fetched);
+            }));
+        });
+    }
+
+    @Override
+    public Mono<UserRepos> getRepository(String username, String repoName) {
+        String usernameKey = UserRepos.usernameKey(username);
+        String key = usernameKey + "/" + repoName;
+        return onPersistence(() -> lookup(CacheNames.REPO, key,
+                () -> repository.readByUsernameKeyAndRepoName(usernameKey, repoName),
+                () -> store.repositoryFreshness(usernameKey, repoName)))
+                .flatMap(stored -> {
+                    if (stored.cached()) {
+                        return Mono.just(stored.value());
+                    }
+                    if (stored.freshness() == null) {
+                        return shared(repositoryInFlight, key,
+                                () -> fetchRepository(usernameKey, repoName, GitHubCallPriority.INTERACTIVE))
+                                .flatMap(found -> onPersistence(() -> put(CacheNames.REPO, key, found)));
+                    }
+                    Mono<UserRepos> repo = switch (stored.freshness()) {
+                        case FRESH -> {
+                            gitHubMetrics.cacheHit();
+                            yield Mono.just(stored.value());
+                        }
+                        case STALE -> {
+                            gitHubMetrics.staleHit();
+                            refreshInBackground(FetchState.repoKey(usernameKey, repoName),
+                                    () -> refreshRepository(usernameKey, repoName, GitHubCallPriority.BACKGROUND));
+                            yield Mono.just(stored.value());
+                        }
+                        case EXPIRED -> refreshRepository(usernameKey, repoName, GitHubCallPriority.INTERACTIVE);
+                    };
+                    return repo.flatMap(found -> onPersistence(() -> put(CacheNames.REPO, key, found)));
+                });
+    }
+
+    public Mono<UserRepos> refreshRepository(String username, String repoName, GitHubCallPriority priority) {
+        String usernameKey = UserRepos.usernameKey(username);
+        return shared(repositoryInFlight, usernameKey + "/" + repoName,
+                () -> revalidateRepository(usernameKey, repoName, priority));
+    }
+
+    private Mono<UserRepos> fetchRepository(String usernameKey, String repoName, GitHubCallPriority priority) {
+        return onPersistence(() -> repository.readByUsernameKeyAndRepoName(usernameKey, repoName))
+                .switchIfEmpty(Mono.defer(() -> gitHubClient.getRepo(usernameKey, repoName, null, null, priority)
+                        .flatMap(response -> onPersistence(() -> store.storeRepository(usernameKey, repoName, null, response)))));
+    }
+
+    private Mono<UserRepos> revalidateRepository(String usernameKey, String repoName, GitHubCallPriority priority) {
+        return onPersistence(() -> {
+            UserRepos cachedRepo = repository.readByUsernameKeyAndRepoName(usernameKey, repoName);
+            return new Revalidation<>(cachedRepo,
+                    cachedRepo == null ? null : store.fetchState(FetchState.repoKey(usernameKey, repoName)));
+        }).flatMap(stored -> {
+            FetchState state = stored.state();
+            Mono<GitHubResponse<UserRepos>> response = state == null
+                    ? gitHubClient.getRepo(usernameKey, repoName, null, null, priority)
+                    : gitHubClient.getRepo(usernameKey, repoName, state.getEtag(), state.getLastModified(), priority);
+            return response.flatMap(fetched -> onPersistence(() -> {
+                if (fetched.notModified()) {
+                    store.markNotModified(state);
+                    return stored.value();
+                }
+                return store.storeRepository(usernameKey, repoName, stored.value(), fetched);
+            }));
+        });
+    }
+
+    /**
+     * What a cache entry or the table holds for {@code key}; a miss, without a freshness, if neither has it or the
+     * table rows were never fetched as such. Cache hits are not checked for freshness, as with {@code @Cacheable}.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> Stored<T> lookup(String cacheName, String key, Supplier<T> readTable, Supplier<Freshness> freshness) {
+        Cache cache = cacheManager.getCache(cacheName);
+        Cache.ValueWrapper cached = cache == null ? null : cache.get(key);
+        if (cached != null && cached.get() != null) {
+            return new Stored<>((T) cached.get(), null, true);
+        }
+        T stored = readTable.get();
+        Freshness storedFreshness = stored == null ? null : freshness.get();
+        return storedFreshness == null ? Stored.miss() : new Stored<>(stored, storedFreshness, false);
+    }
+
+    private <T> T put(String cacheName, String key, T value) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) {
+            cache.put(key, value);
+        }
+        return value;
+    }
+
+    /** Runs blocking table or cache work on the persistence scheduler; a {@code null} result completes empty. */
+    private <T> Mono<T> onPersistence(Callable<T> work) {
+        return Mono.fromCallable(work).subscribeOn(persistenceScheduler);
+    }
+
+    /**
+     * Joins the load already running for {@code key}, or starts one; what {@link SingleFlight} does for the
+     * blocking service. The load runs once whoever subscribes, and the entry goes before its result is delivered,
+     * so that a caller retrying after an error starts a new load.
+     */
+    private static <T> Mono<T> shared(Map<String, Mono<T>> inFlight, String key, Supplier<Mono<T>> load) {
+        return Mono.defer(() -> inFlight.computeIfAbsent(key, k -> load.get()
+                .doOnTerminate(() -> inFlight.remove(k))
+                .cache()));
+    }
+
+    private void refreshInBackground(String fetchKey, Supplier<Mono<?>> refresh) {
+        // bounded like the blocking service's refresh queue; a later stale hit will try again
+        if (backgroundRefreshes.size() >= refreshCapacity || !backgroundRefreshes.add(fetchKey)) {
+            return;
+        }
+        refresh.get()
+                .doFinally(signal -> backgroundRefreshes.remove(fetchKey))
+                .subscribe(refreshed -> { },
+                        e -> log.warn("Background refresh of {} failed: {}", fetchKey, e.getMessage()));
+    }
+
+    private static List<UserRepos> emptyToNull(List<UserRepos> repositories) {
+        return repositories.isEmpty() ? null : repositories;
+    }
+
+    private record Stored<T>(T value, Freshness freshness, boolean cached) {
+
+        static <T> Stored<T> miss() {
+            return new Stored<>(null, null, false);
+        }
+    }
+
+    private record Revalidation<T>(T value, FetchState state) {
+    }
+}
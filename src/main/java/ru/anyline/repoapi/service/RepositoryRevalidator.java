@@ -0,0 +1,68 @@
+package ru.anyline.repoapi.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import ru.anyline.repoapi.config.GitHubProperties;
+import ru.anyline.repoapi.exceptions.RateLimitExceededException;
+import ru.anyline.repoapi.model.FetchState;
+import ru.anyline.repoapi.repository.FetchStateRepository;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Periodically revalidates the least recently fetched listings and repositories. Unchanged entries cost
+ * a 304 from GitHub and a single timestamp update here. Revalidation runs at background priority, so it
+ * stops early rather than spend the rate-limit budget interactive requests need.
+ * <p>
+ * Entries GitHub answers 404 for are deleted. Other failures back the entry off for a while, so that entries
+ * that keep failing cannot fill every batch ahead of the rest.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "repoapi.github.revalidation", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class RepositoryRevalidator {
+
+    private final FetchStateRepository fetchStateRepository;
+    private final GitHubServiceImpl gitHubService;
+    private final GitHubProperties.Revalidation revalidation;
+
+    public RepositoryRevalidator(FetchStateRepository fetchStateRepository, GitHubServiceImpl gitHubService,
+                                 GitHubProperties gitHubProperties) {
+        this.fetchStateRepository = fetchStateRepository;
+        this.gitHubService = gitHubService;
+        this.revalidation = gitHubProperties.getRevalidation();
+    }
+
+    @Scheduled(fixedDelayString = "${repoapi.github.revalidation.interval:PT30M}",
+            initialDelayString = "${repoapi.github.revalidation.interval:PT30M}")
+    public void revalidate() {
+        Instant now = Instant.now();
+        List<FetchState> due = fetchStateRepository.findDueForRevalidation(now.minus(revalidation.getInterval()), now,
+                PageRequest.of(0, revalidation.getBatchSize()));
+        for (FetchState state : due) {
+            try {
+                if (state.getRepoName() == null) {
+                    gitHubService.refreshRepositories(state.getUsername(), GitHubCallPriority.BACKGROUND);
+                } else {
+                    gitHubService.refreshRepository(state.getUsername(), state.getRepoName(), GitHubCallPriority.BACKGROUND);
+                }
+            } catch (RateLimitExceededException e) {
+                // the rest of the batch stays due and is picked up by the next run
+                log.info("Revalidation paused by the GitHub rate limit, retrying in {}s", e.getRetryAfterSeconds());
+                return;
+            } catch (HttpClientErrorException.NotFound e) {
+                log.info("{} is gone from GitHub, dropping it", state.getFetchKey());
+                gitHubService.forget(state.getUsername(), state.getRepoName());
+            } catch (RuntimeException e) {
+                log.warn("Could not revalidate {}, retrying after {}: {}", state.getFetchKey(),
+                        revalidation.getFailureBackoff(), e.getMessage());
+                fetchStateRepository.backOff(state.getFetchKey(), Instant.now().plus(revalidation.getFailureBackoff()));
+            }
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package ru.anyline.repoapi.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import ru.anyline.repoapi.cache.CacheNames;
+import ru.anyline.repoapi.config.GitHubProperties;
+import ru.anyline.repoapi.model.FetchState;
+import ru.anyline.repoapi.model.UserRepos;
+import ru.anyline.repoapi.repository.FetchStateRepository;
+import ru.anyline.repoapi.repository.Repository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The table side of serving repositories, shared by the blocking and the reactive service: how fresh a stored
+ * entry is, and storing what GitHub returned together with its fetch state, evicting the cache entries it
+ * replaces. Every method blocks on the database.
+ */
+@Slf4j
+class RepositoryStore {
+
+    enum Freshness { FRESH, STALE, EXPIRED }
+
+    private final Repository repository;
+    private final FetchStateRepository fetchStateRepository;
+    private final GitHubMetrics gitHubMetrics;
+    private final GitHubProperties.Freshness freshness;
+    private final CacheManager cacheManager;
+    private final Instant startedAt = Instant.now();
+
+    RepositoryStore(Repository repository, FetchStateRepository fetchStateRepository, GitHubMetrics gitHubMetrics,
+                    GitHubProperties.Freshness freshness, CacheManager cacheManager) {
+        this.repository = repository;
+        this.fetchStateRepository = fetchStateRepository;
+        this.gitHubMetrics = gitHubMetrics;
+        this.freshness = freshness;
+        this.cacheManager = cacheManager;
+    }
+
+    /** How fresh the entry last fetched under {@code fetchKey} is, or {@code null} if it was never fetched. */
+    Freshness freshness(String fetchKey) {
+        Instant fetchedAt = fetchStateRepository.findById(fetchKey).map(FetchState::getFetchedAt).orElse(null);
+        if (fetchedAt == null) {
+            return null;
+        }
+        Instant now = Instant.now();
+        Duration age = Duration.between(fetchedAt, now);
+        if (age.compareTo(freshness.getSoftTtl()) < 0) {
+            return Freshness.FRESH;
+        }
+        if (age.compareTo(freshness.getHardTtl()) < 0) {
+            return Freshness.STALE;
+        }
+        // with a persistent table, whatever expired during downtime would otherwise all block on GitHub at once
+        // right after a restart; refresh it in the background, paced by the rate limiter, instead
+        boolean restartGrace = fetchedAt.isBefore(startedAt) && now.isBefore(startedAt.plus(freshness.getRestartGrace()));
+        return restartGrace ? Freshness.STALE : Freshness.EXPIRED;
+    }
+
+    /**
+     * {@link #freshness} of a single repository. One stored with its owner's listing has no fetch state of its
+     * own: it is served, and revalidated on its own in the background.
+     */
+    Freshness repositoryFreshness(String usernameKey, String repoName) {
+        Freshness repoFreshness = freshness(FetchState.repoKey(usernameKey, repoName));
+        return repoFreshness == null ? Freshness.STALE : repoFreshness;
+    }
+
+    /**
+     * The stored listing of {@code usernameKey}, or an empty list if it was never fetched: rows stored by
+     * {@link #storeRepository} alone are a part of it at most.
+     */
+    List<UserRepos> storedListing(String usernameKey) {
+        if (fetchStateRepository.findById(FetchState.listingKey(usernameKey)).isEmpty()) {
+            return List.of();
+        }
+        return repository.readByUsernameKey(usernameKey);
+    }
+
+    FetchState fetchState(String fetchKey) {
+        return fetchStateRepository.findById(fetchKey).orElse(null);
+    }
+
+    List<UserRepos> storeRepositories(String usernameKey, GitHubResponse<List<UserRepos>> response) {
+        gitHubMetrics.fetched();
+        List<UserRepos> fetched = Objects.requireNonNull(response.body());
+        List<UserRepos> repositories;
+        try {
+            repositories = repository.replaceListing(usernameKey, fetched);
+        } catch (DataIntegrityViolationException e) {
+            // a repository of the listing was stored concurrently, by getRepository or another instance; the rows
+            // alone may be a part of the listing, so replace them again, now updating that row in place
+            log.debug("Listing of {} was stored concurrently: {}", usernameKey, e.getMessage());
+            repositories = repository.replaceListing(usernameKey, fetched);
+        }
+        saveFetchState(FetchState.listingKey(usernameKey), usernameKey, null, response);
+        evictCached(usernameKey, null);
+        return repositories;
+    }
+
+    UserRepos storeRepository(String usernameKey, String repoName, UserRepos cachedRepo,
+                              GitHubResponse<UserRepos> response) {
+        gitHubMetrics.fetched();
+        UserRepos repo = response.body();
+        if (repo != null) {
+            if (cachedRepo != null) {
+                cachedRepo.setUrl(repo.getUrl());
+                if (repo.getUsername() != null) {
+                    cachedRepo.setUsername(repo.getUsername());
+                }
+                repo = cachedRepo;
+            } else {
+                repo.setId(null);
+                if (repo.getUsername() == null) {
+                    repo.setUsername(usernameKey);
+                }
+            }
+            try {
+                repo = repository.save(repo);
+            } catch (DataIntegrityViolationException e) {
+                log.debug("Repository {}/{} was stored concurrently: {}", usernameKey, repoName, e.getMessage());
+                return repository.readByUsernameKeyAndRepoName(usernameKey, repoName);
+            }
+            saveFetchState(FetchState.repoKey(usernameKey, repoName), usernameKey, repoName, response);
+            evictCached(usernameKey, repoName);
+        }
+        return repo;
+    }
+
+    void markNotModified(FetchState state) {
+        gitHubMetrics.notModified();
+        state.setFetchedAt(Instant.now());
+        state.setRevalidateAfter(null);
+        fetchStateRepository.save(state);
+    }
+
+    /** Drops the rows and the fetch state of a listing ({@code repoName == null}) or repository GitHub no longer has. */
+    void forget(String usernameKey, String repoName) {
+        if (repoName == null) {
+            repository.deleteByUsernameKey(usernameKey);
+            fetchStateRepository.deleteById(FetchState.listingKey(usernameKey));
+        } else {
+            repository.deleteByUsernameKeyAndRepoName(usernameKey, repoName);
+            fetchStateRepository.deleteById(FetchState.repoKey(usernameKey, repoName));
+        }
+        evictCached(usernameKey, repoName);
+    }
+
+    private void saveFetchState(String key, String username, String repoName, GitHubResponse<?> response) {
+        fetchStateRepository.save(new FetchState(key, username, repoName,
+                response.etag(), response.lastModified(), Instant.now(), null));
+    }
+
+    private void evictCached(String usernameKey, String repoName) {
+        evict(CacheNames.REPOS, usernameKey);
+        evict(CacheNames.CACHED_REPOS, usernameKey);
+        if (repoName != null) {
+            evict(CacheNames.REPO, usernameKey + "/" + repoName);
+        }
+    }
+
+    private void evict(String cacheName, String key) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) {
+            cache.evict(key);
+        }
+    }
+}
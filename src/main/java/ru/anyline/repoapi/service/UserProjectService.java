@@ -1,7 +1,10 @@
 package ru.anyline.repoapi.service;
 
+import ru.anyline.repoapi.exceptions.ProjectNotFoundException;
 import ru.anyline.repoapi.model.UserProject;
+import ru.anyline.repoapi.repository.ProjectSort;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -11,17 +14,50 @@ public interface UserProjectService {
 
     Optional<UserProject> getUserProjectById(Long id);
 
-    List<UserProject> getAllUserProjects(Long userId);
+    /**
+     * Reads one page of projects in the given order.
+     *
+     * @param userId only this user's projects, or every project when {@code null}
+     * @param cursor the {@link ProjectPage#nextCursor()} of the previous page, or {@code null} for the first
+     * @throws IllegalArgumentException if the cursor is malformed or was issued for another order
+     */
+    ProjectPage getProjects(Long userId, ProjectSort sort, boolean descending, String cursor, int limit);
 
     Optional<UserProject> updateUserProject(Long id, UserProject project);
 
     boolean deleteUserProject(Long id);
 
-    List<UserProject> findUserProjectsByName(String projectName);
+    /**
+     * Finds up to {@code limit} projects whose name or description contains {@code query}, best matches
+     * first.
+     */
+    List<UserProject> searchProjects(String query, int limit);
 
     void addParticipantToProject(Long projectId, Long userId);
 
     void removeParticipantFromProject(Long projectId, Long userId);
 
-    List<UserProject> getProjectParticipants(Long projectId);
+    /**
+     * Adds the users to the project in one batched statement; users already taking part are skipped.
+     *
+     * @return how many users were added
+     * @throws ProjectNotFoundException if there is no such project
+     */
+    int addParticipants(Long projectId, Collection<Long> userIds);
+
+    /**
+     * Removes the users from the project in one statement.
+     *
+     * @return how many users were removed
+     * @throws ProjectNotFoundException if there is no such project
+     */
+    int removeParticipants(Long projectId, Collection<Long> userIds);
+
+    /**
+     * Reads one page of the project's participants.
+     *
+     * @param afterUserId the {@link ParticipantPage#nextAfter()} of the previous page, or {@code null} for the first
+     * @throws ProjectNotFoundException if there is no such project
+     */
+    ParticipantPage getProjectParticipants(Long projectId, Long afterUserId, int limit);
 }
\ No newline at end of file
@@ -1,23 +1,45 @@
 package ru.anyline.repoapi.service;
 
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import ru.anyline.repoapi.exceptions.ProjectNotFoundException;
 import ru.anyline.repoapi.model.UserProject;
+import ru.anyline.repoapi.repository.ProjectCursor;
+import ru.anyline.repoapi.repository.ProjectParticipantRepository;
+import ru.anyline.repoapi.repository.ProjectSort;
 import ru.anyline.repoapi.repository.UserProjectRepository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Service
 public class UserProjectServiceImpl implements UserProjectService {
     private final UserProjectRepository userProjectRepository;
+    private final ProjectParticipantRepository projectParticipantRepository;
+    private final ProjectSearchIndex projectSearchIndex;
 
-    public UserProjectServiceImpl(UserProjectRepository userProjectRepository) {
+    public UserProjectServiceImpl(UserProjectRepository userProjectRepository,
+                                  ProjectParticipantRepository projectParticipantRepository,
+                                  ProjectSearchIndex projectSearchIndex) {
         this.userProjectRepository = userProjectRepository;
+        this.projectParticipantRepository = projectParticipantRepository;
+        this.projectSearchIndex = projectSearchIndex;
+    }
+
+    // after startup, so that the application serves requests while the index is built
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildSearchIndex() {
+        projectSearchIndex.rebuild(userProjectRepository::forEachStored);
     }
 
     @Override
     public UserProject createUserProject(UserProject userProject) {
-        return userProjectRepository.save(userProject);
+        UserProject saved = userProjectRepository.save(userProject);
+        projectSearchIndex.put(saved);
+        return saved;
     }
 
     @Override
@@ -26,8 +48,21 @@ public class UserProjectServiceImpl implements UserProjectService {
     }
 
     @Override
-    public List<UserProject> getAllUserProjects(Long userId) {
-        return userProjectRepository.findByUserId(userId);
+    public ProjectPage getProjects(Long userId, ProjectSort sort, boolean descending, String cursor, int limit) {
+        ProjectCursor after = cursor == null ? null : ProjectCursor.decode(cursor, sort, descending);
+        // one row past the page tells whether there is a next one without a count or a trailing empty page
+        List<UserProject> projects = userProjectRepository.findPage(userId, sort, descending, after, limit + 1);
+        if (projects.size() <= limit) {
+            return new ProjectPage(projects, null);
+        }
+        List<UserProject> items = projects.subList(0, limit);
+        UserProject last = items.get(limit - 1);
+        Object value = switch (sort) {
+            case ID -> null;
+            case NAME -> last.getName();
+            case USER_ID -> last.getUserId();
+        };
+        return new ProjectPage(List.copyOf(items), new ProjectCursor(sort, descending, value, last.getId()).encode());
     }
 
     @Override
@@ -38,7 +73,9 @@ public class UserProjectServiceImpl implements UserProjectService {
             updatedProject.setName(project.getName());
             updatedProject.setDescription(project.getDescription());
 
-            return Optional.of(userProjectRepository.save(updatedProject));
+            UserProject saved = userProjectRepository.save(updatedProject);
+            projectSearchIndex.put(saved);
+            return Optional.of(saved);
         }
         return Optional.empty();
     }
@@ -46,34 +83,56 @@ public class UserProjectServiceImpl implements UserProjectService {
     @Override
     public boolean deleteUserProject(Long id) {
         userProjectRepository.deleteById(id);
+        projectSearchIndex.remove(id);
         return false;
     }
 
     @Override
-    public List<UserProject> findUserProjectsByName(String projectName) {
-        return userProjectRepository.findByNameContainingIgnoreCase(projectName);
+    public List<UserProject> searchProjects(String query, int limit) {
+        if (!projectSearchIndex.isReady()) {
+            return userProjectRepository.findByNameContainingIgnoreCase(query, Limit.of(limit));
+        }
+        return projectSearchIndex.search(query, limit);
     }
 
     @Override
     public void addParticipantToProject(Long projectId, Long userId) {
-        UserProject project = getUserProjectById(projectId)
-                .orElseThrow(() -> new IllegalArgumentException("Project not found with id: " + projectId));
-        userProjectRepository.save(project);
+        addParticipants(projectId, List.of(userId));
     }
 
     @Override
     public void removeParticipantFromProject(Long projectId, Long userId) {
-        UserProject project = getUserProjectById(projectId)
-                .orElseThrow(() -> new IllegalArgumentException("Project not found with id: " + projectId));
-        userProjectRepository.save(project);
+        removeParticipants(projectId, List.of(userId));
+    }
+
+    @Override
+    public int addParticipants(Long projectId, Collection<Long> userIds) {
+        requireProject(projectId);
+        return projectParticipantRepository.addParticipants(projectId, userIds);
+    }
+
+    @Override
+    public int removeParticipants(Long projectId, Collection<Long> userIds) {
+        requireProject(projectId);
+        return projectParticipantRepository.removeParticipants(projectId, userIds);
     }
 
     @Override
-    public List<UserProject> getProjectParticipants(Long projectId) {
-        return userProjectRepository.findParticipantsByProjectId(projectId);
+    public ParticipantPage getProjectParticipants(Long projectId, Long afterUserId, int limit) {
+        requireProject(projectId);
+        // one row past the page tells whether there is a next one
+        List<Long> userIds = projectParticipantRepository.findUserIds(projectId, afterUserId == null ? 0 : afterUserId,
+                Limit.of(limit + 1));
+        if (userIds.size() <= limit) {
+            return new ParticipantPage(userIds, null);
+        }
+        List<Long> page = List.copyOf(userIds.subList(0, limit));
+        return new ParticipantPage(page, page.get(limit - 1));
     }
 
-    public List<UserProject> getAllProjects() {
-        return userProjectRepository.findAll();
+    private void requireProject(Long projectId) {
+        if (!userProjectRepository.existsById(projectId)) {
+            throw new ProjectNotFoundException("Project not found with id: " + projectId);
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,25 @@
+package ru.anyline.repoapi.service;
+
+import ru.anyline.repoapi.model.UserRepos;
+
+import java.util.List;
+
+/**
+ * What a batch lookup found for one user.
+ *
+ * @param repos             the user's repositories, {@code null} unless the outcome is {@code FOUND}
+ * @param error             why there are none, {@code null} if the outcome is {@code FOUND}
+ * @param retryAfterSeconds when to ask again, set only if the outcome is {@code RATE_LIMITED}
+ */
+public record UserReposResult(Outcome outcome, List<UserRepos> repos, String error, Long retryAfterSeconds) {
+
+    public enum Outcome { FOUND, NOT_FOUND, RATE_LIMITED, FAILED }
+
+    static UserReposResult found(List<UserRepos> repos) {
+        return new UserReposResult(Outcome.FOUND, repos, null, null);
+    }
+
+    static UserReposResult failed(Outcome outcome, String error, Long retryAfterSeconds) {
+        return new UserReposResult(outcome, null, error, retryAfterSeconds);
+    }
+}
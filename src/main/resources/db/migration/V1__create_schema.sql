@@ -0,0 +1,34 @@
+create sequence user_repos_seq start with 1 increment by 100;
+create sequence user_project_seq start with 1 increment by 50;
+
+create table user_repos (
+    id        bigint       not null,
+    username  varchar(255),
+    repo_name varchar(255),
+    url       varchar(255),
+    primary key (id)
+);
+
+-- one row per repository; the index behind it also serves lookups by username alone
+alter table user_repos add constraint uk_user_repos_username_repo_name unique (username, repo_name);
+
+create table user_project (
+    id          bigint       not null,
+    name        varchar(255),
+    description varchar(255),
+    user_id     bigint,
+    primary key (id)
+);
+
+create table fetch_state (
+    fetch_key     varchar(255) not null,
+    username      varchar(255),
+    repo_name     varchar(255),
+    etag          varchar(255),
+    last_modified varchar(255),
+    fetched_at    timestamp(6) with time zone,
+    primary key (fetch_key)
+);
+
+-- the revalidator picks the least recently fetched entries
+create index ix_fetch_state_fetched_at on fetch_state (fetched_at);
@@ -0,0 +1,17 @@
+-- GitHub logins are case-insensitive: rows are looked up by the lower-cased login and keep GitHub's spelling
+-- in username for display
+alter table user_repos add column username_key varchar(255);
+
+-- keep one row per repository among logins that differed only in case
+delete from user_repos r
+where exists (select 1 from user_repos o
+              where lower(o.username) = lower(r.username) and o.repo_name = r.repo_name and o.id < r.id);
+
+update user_repos set username_key = lower(username);
+
+alter table user_repos drop constraint uk_user_repos_username_repo_name;
+alter table user_repos add constraint uk_user_repos_username_key_repo_name unique (username_key, repo_name);
+
+-- fetch state is keyed by the canonical login from now on; entries under other spellings are dropped and the
+-- rows they covered count as due for a refresh
+delete from fetch_state where username <> lower(username);
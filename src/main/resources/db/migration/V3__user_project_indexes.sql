@@ -0,0 +1,6 @@
+-- keyset pages over one user's projects, by id (or user id) and by name
+create index ix_user_project_user_id on user_project (user_id, id);
+create index ix_user_project_user_id_name on user_project (user_id, name, id);
+
+-- keyset pages over every project by name; by user id the first index serves, by id the primary key
+create index ix_user_project_name on user_project (name, id);
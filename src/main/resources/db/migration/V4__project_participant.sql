@@ -0,0 +1,9 @@
+create table project_participant (
+    project_id bigint not null,
+    user_id    bigint not null,
+    primary key (project_id, user_id),
+    constraint fk_project_participant_project foreign key (project_id) references user_project (id) on delete cascade
+);
+
+-- the primary key lists a project's participants; this lists a user's projects
+create index ix_project_participant_user_id on project_participant (user_id, project_id);
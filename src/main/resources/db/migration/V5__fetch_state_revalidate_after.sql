@@ -0,0 +1,2 @@
+-- entries whose revalidation failed are left out of the revalidator's batches until then
+alter table fetch_state add column revalidate_after timestamp(6) with time zone;
@@ -0,0 +1,184 @@
+package ru.anyline.repoapi;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.client.HttpClientErrorException;
+import ru.anyline.repoapi.config.GitHubProperties;
+import ru.anyline.repoapi.exceptions.RateLimitExceededException;
+import ru.anyline.repoapi.model.FetchState;
+import ru.anyline.repoapi.model.UserRepos;
+import ru.anyline.repoapi.repository.FetchStateRepository;
+import ru.anyline.repoapi.repository.Repository;
+import ru.anyline.repoapi.service.GitHubBatchService;
+import ru.anyline.repoapi.service.GitHubMetrics;
+import ru.anyline.repoapi.service.GitHubServiceImpl;
+import ru.anyline.repoapi.service.UserReposResult;
+import ru.anyline.repoapi.service.UserReposResult.Outcome;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+// without the test transaction, so that the stored rows are visible to the batch executor's threads
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class GitHubBatchServiceTest {
+
+    private static final int BATCH_CONCURRENCY = 3;
+
+    @Autowired
+    private Repository repository;
+
+    @Autowired
+    private FetchStateRepository fetchStateRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final GitHubServiceImpl gitHubService = mock(GitHubServiceImpl.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ExecutorService batchExecutor;
+    private GitHubBatchService gitHubBatchService;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        batchExecutor = Executors.newFixedThreadPool(BATCH_CONCURRENCY);
+        gitHubBatchService = new GitHubBatchService(repository, fetchStateRepository, gitHubService,
+                new GitHubMetrics(meterRegistry), new GitHubProperties(), batchExecutor);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @AfterEach
+    void tearDown() {
+        batchExecutor.shutdownNow();
+        repository.deleteAllInBatch();
+        fetchStateRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void getRepositories_whenAllUsersAreFresh_shouldReadThemInOneQueryWithoutCallingGitHub() {
+        List<String> usernames = IntStream.range(0, 20).mapToObj(i -> "user" + i).toList();
+        usernames.forEach(username -> storeListing(username, Duration.ZERO, "first", "second"));
+        statistics.clear();
+
+        Map<String, UserReposResult> results = gitHubBatchService.getRepositories(usernames);
+
+        assertEquals(usernames, List.copyOf(results.keySet()));
+        results.values().forEach(result -> {
+            assertEquals(Outcome.FOUND, result.outcome());
+            assertEquals(List.of("first", "second"), result.repos().stream().map(UserRepos::getRepoName).toList());
+        });
+        // the listings and their fetch states, one query each
+        assertEquals(2, statistics.getPrepareStatementCount());
+        verifyNoInteractions(gitHubService);
+        assertEquals(20.0, meterRegistry.get("repoapi.github.fetches").tag("outcome", "cache_hit").counter().count());
+    }
+
+    @Test
+    void getRepositories_shouldFetchOnlyMissesAndStaleUsersConcurrentlyWithinTheLimit() {
+        storeListing("fresh", Duration.ZERO, "hello-world");
+        storeListing("stale", Duration.ofHours(1), "hello-world");
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        when(gitHubService.getRepositories(anyString())).thenAnswer(invocation -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            Thread.sleep(200);
+            running.decrementAndGet();
+            String username = invocation.getArgument(0);
+            return List.of(new UserRepos(null, username, "fetched", "https://github.com/" + username + "/fetched"));
+        });
+        List<String> usernames = IntStream.range(0, 8).mapToObj(i -> "miss" + i).collect(Collectors.toList());
+        usernames.add(0, "fresh");
+        usernames.add("stale");
+
+        long start = System.nanoTime();
+        Map<String, UserReposResult> results = gitHubBatchService.getRepositories(usernames);
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        assertEquals("hello-world", results.get("fresh").repos().get(0).getRepoName());
+        assertEquals("fetched", results.get("stale").repos().get(0).getRepoName());
+        assertEquals("fetched", results.get("miss7").repos().get(0).getRepoName());
+        verify(gitHubService, never()).getRepositories("fresh");
+        verify(gitHubService, times(9)).getRepositories(anyString());
+        assertEquals(BATCH_CONCURRENCY, maxRunning.get());
+        // nine calls of 200 ms, three at a time
+        assertTrue(elapsed.compareTo(Duration.ofMillis(1500)) < 0, "took " + elapsed);
+    }
+
+    @Test
+    void getRepositories_whenSomeUsersFail_shouldReportEachErrorWithoutFailingTheOthers() {
+        when(gitHubService.getRepositories("octocat"))
+                .thenReturn(List.of(new UserRepos(null, "octocat", "hello-world", "https://github.com/octocat/hello-world")));
+        when(gitHubService.getRepositories("ghost"))
+                .thenThrow(HttpClientErrorException.create(HttpStatus.NOT_FOUND, "Not Found", null, null, null));
+        when(gitHubService.getRepositories("busy"))
+                .thenThrow(new RateLimitExceededException("GitHub rate limit reached", Duration.ofSeconds(30)));
+        when(gitHubService.getRepositories("broken")).thenThrow(new IllegalStateException("boom"));
+
+        Map<String, UserReposResult> results = gitHubBatchService.getRepositories(List.of("octocat", "ghost", "busy", "broken"));
+
+        assertEquals(Outcome.FOUND, results.get("octocat").outcome());
+        assertEquals(Outcome.NOT_FOUND, results.get("ghost").outcome());
+        assertEquals(Outcome.RATE_LIMITED, results.get("busy").outcome());
+        assertEquals(30L, results.get("busy").retryAfterSeconds());
+        assertEquals(Outcome.FAILED, results.get("broken").outcome());
+        assertEquals("boom", results.get("broken").error());
+    }
+
+    @Test
+    void getRepositories_whenUsernamesDifferOnlyInCase_shouldLookUpOnceAndKeepEachSpelling() {
+        storeListing("octocat", Duration.ZERO, "hello-world");
+
+        Map<String, UserReposResult> results = gitHubBatchService.getRepositories(List.of("Octocat", "octocat", "Octocat"));
+
+        assertEquals(List.of("Octocat", "octocat"), List.copyOf(results.keySet()));
+        assertSame(results.get("Octocat"), results.get("octocat"));
+        verifyNoInteractions(gitHubService);
+    }
+
+    @Test
+    void getRepositories_whenOnlyASingleRepositoryIsStored_shouldFetchTheListing() {
+        repository.save(new UserRepos(null, "octocat", "hello-world", "https://github.com/octocat/hello-world"));
+        fetchStateRepository.save(new FetchState(FetchState.repoKey("octocat", "hello-world"), "octocat", "hello-world",
+                "\"etag\"", null, Instant.now(), null));
+        List<UserRepos> listing = List.of(
+                new UserRepos(null, "octocat", "hello-world", "https://github.com/octocat/hello-world"),
+                new UserRepos(null, "octocat", "spoon-knife", "https://github.com/octocat/spoon-knife"));
+        when(gitHubService.getRepositories("octocat")).thenReturn(listing);
+
+        Map<String, UserReposResult> results = gitHubBatchService.getRepositories(List.of("octocat"));
+
+        assertEquals(listing, results.get("octocat").repos());
+        verify(gitHubService).getRepositories("octocat");
+    }
+
+    private void storeListing(String username, Duration age, String... repoNames) {
+        repository.saveAll(Arrays.stream(repoNames)
+                .map(repoName -> new UserRepos(null, username, repoName, "https://github.com/" + username + "/" + repoName))
+                .toList());
+        fetchStateRepository.save(new FetchState(FetchState.listingKey(username), username, null, "\"etag\"", null,
+                Instant.now().minus(age), null));
+    }
+}
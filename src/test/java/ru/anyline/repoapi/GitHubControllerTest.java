@@ -7,20 +7,36 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.anyline.repoapi.controller.GitHubController;
+import ru.anyline.repoapi.exceptions.RateLimitExceededException;
 import ru.anyline.repoapi.model.UserRepos;
+import ru.anyline.repoapi.service.GitHubBatchService;
+import ru.anyline.repoapi.service.GitHubMetrics;
 import ru.anyline.repoapi.service.GitHubServiceImpl;
+import ru.anyline.repoapi.service.UserReposResult;
 
+import java.io.ByteArrayOutputStream;
 import java.lang.reflect.Method;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -30,6 +46,12 @@ public class GitHubControllerTest {
     @Mock
     private GitHubServiceImpl gitHubServiceImpl;
 
+    @Mock
+    private GitHubMetrics gitHubMetrics;
+
+    @Mock
+    private GitHubBatchService gitHubBatchService;
+
     @InjectMocks
     private GitHubController gitHubController;
 
@@ -49,6 +71,17 @@ public class GitHubControllerTest {
         assertEquals(expectedRepos, actualResponse.getBody());
     }
 
+    @Test
+    public void getRepositories_whenGitHubRateLimitIsReached_shouldReturnRetryAfter() {
+        when(gitHubServiceImpl.getRepositories("testUser"))
+                .thenThrow(new RateLimitExceededException("GitHub rate limit exhausted", Duration.ofMillis(41_500)));
+
+        ResponseEntity<List<UserRepos>> actualResponse = gitHubController.getRepositories("testUser");
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, actualResponse.getStatusCode());
+        assertEquals("42", actualResponse.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+    }
+
     @Test
     public void getRepositories_whenUsernameIsNotProvided_shouldReturnError() {
         String username = "";
@@ -83,13 +116,45 @@ public class GitHubControllerTest {
     }
 
     @Test
-    public void getRepositories_whenRateLimitExceeded_shouldReturnTooManyRequests() {
+    public void getRepositories_whenUnexpectedErrorOccurs_shouldReturnInternalServerError() {
         String username = "testUser";
         when(gitHubServiceImpl.getRepositories(username)).thenThrow(new RuntimeException("Rate limit exceeded"));
 
         ResponseEntity<List<UserRepos>> actualResponse = gitHubController.getRepositories(username);
 
-        assertEquals(HttpStatus.TOO_MANY_REQUESTS, actualResponse.getStatusCode());
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, actualResponse.getStatusCode());
+        assertNull(actualResponse.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+    }
+
+    @Test
+    public void getRepositories_whenGitHubHasNoSuchUser_shouldReturnNotFound() {
+        when(gitHubServiceImpl.getRepositories("ghost"))
+                .thenThrow(HttpClientErrorException.create(HttpStatus.NOT_FOUND, "Not Found", null, null, null));
+
+        ResponseEntity<List<UserRepos>> actualResponse = gitHubController.getRepositories("ghost");
+
+        assertEquals(HttpStatus.NOT_FOUND, actualResponse.getStatusCode());
+    }
+
+    @Test
+    public void getRepositories_whenGitHubAnswersWithServerError_shouldReturnBadGateway() {
+        when(gitHubServiceImpl.getRepositories("testUser"))
+                .thenThrow(HttpServerErrorException.create(HttpStatus.INTERNAL_SERVER_ERROR, "Internal Server Error",
+                        null, null, null));
+
+        ResponseEntity<List<UserRepos>> actualResponse = gitHubController.getRepositories("testUser");
+
+        assertEquals(HttpStatus.BAD_GATEWAY, actualResponse.getStatusCode());
+    }
+
+    @Test
+    public void getRepositories_whenGitHubIsUnreachable_shouldReturnServiceUnavailable() {
+        when(gitHubServiceImpl.getRepositories("testUser"))
+                .thenThrow(new ResourceAccessException("I/O error", new SocketTimeoutException("Read timed out")));
+
+        ResponseEntity<List<UserRepos>> actualResponse = gitHubController.getRepositories("testUser");
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, actualResponse.getStatusCode());
     }
 
     @Test
@@ -178,12 +243,33 @@ public class GitHubControllerTest {
         assertEquals(expectedRepo, actualResponse.getBody());
     }
 
+    @Test
+    public void getCustomRepository_whenGitHubHasNoSuchRepository_shouldReturnNotFound() {
+        when(gitHubServiceImpl.getRepository("testUser", "missing"))
+                .thenThrow(HttpClientErrorException.create(HttpStatus.NOT_FOUND, "Not Found", null, null, null));
+
+        ResponseEntity<UserRepos> actualResponse = gitHubController.getCustomRepository("testUser", "missing");
+
+        assertEquals(HttpStatus.NOT_FOUND, actualResponse.getStatusCode());
+    }
+
+    @Test
+    public void getCustomRepository_whenGitHubIsUnavailable_shouldReturnBadGateway() {
+        when(gitHubServiceImpl.getRepository("testUser", "repo1"))
+                .thenThrow(HttpServerErrorException.create(HttpStatus.SERVICE_UNAVAILABLE, "Service Unavailable",
+                        null, null, null));
+
+        ResponseEntity<UserRepos> actualResponse = gitHubController.getCustomRepository("testUser", "repo1");
+
+        assertEquals(HttpStatus.BAD_GATEWAY, actualResponse.getStatusCode());
+    }
+
     @Test
     public void getAllRepos_whenNoReposAreCached_shouldReturnEmptyList() {
         List<UserRepos> expectedRepos = Collections.emptyList();
-        when(gitHubServiceImpl.getCachedRepos()).thenReturn(expectedRepos);
+        when(gitHubServiceImpl.getCachedRepos(null, 100)).thenReturn(expectedRepos);
 
-        ResponseEntity<List<UserRepos>> actualResponse = gitHubController.getAllRepos();
+        ResponseEntity<List<UserRepos>> actualResponse = gitHubController.getAllRepos(null, 100);
 
         assertEquals(expectedRepos, actualResponse.getBody());
     }
@@ -193,9 +279,9 @@ public class GitHubControllerTest {
         List<UserRepos> expectedRepos = new ArrayList<>();
         expectedRepos.add(new UserRepos(1L, "testUser1", "repo1", "https://github.com/testUser1/repo1"));
         expectedRepos.add(new UserRepos(2L, "testUser2", "repo2", "https://github.com/testUser2/repo2"));
-        when(gitHubServiceImpl.getCachedRepos()).thenReturn(expectedRepos);
+        when(gitHubServiceImpl.getCachedRepos(null, 100)).thenReturn(expectedRepos);
 
-        ResponseEntity<List<UserRepos>> actualResponse = gitHubController.getAllRepos();
+        ResponseEntity<List<UserRepos>> actualResponse = gitHubController.getAllRepos(null, 100);
 
         assertEquals(HttpStatus.OK, actualResponse.getStatusCode());
         assertEquals(expectedRepos, actualResponse.getBody());
@@ -203,9 +289,9 @@ public class GitHubControllerTest {
 
     @Test
     public void getAllRepos_whenGitHubAPIEncountersAnInternalServerError_shouldReturnInternalServerError() {
-        when(gitHubServiceImpl.getCachedRepos()).thenThrow(new RuntimeException("Internal server error"));
+        when(gitHubServiceImpl.getCachedRepos(null, 100)).thenThrow(new RuntimeException("Internal server error"));
 
-        ResponseEntity<List<UserRepos>> actualResponse = gitHubController.getAllRepos();
+        ResponseEntity<List<UserRepos>> actualResponse = gitHubController.getAllRepos(null, 100);
 
         assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, actualResponse.getStatusCode());
     }
@@ -217,14 +303,66 @@ public class GitHubControllerTest {
         for (int i = 0; i < expectedReposCount; i++) {
             expectedRepos.add(new UserRepos(i + 1L, "testUser", "repo" + (i + 1), "https://github.com/testUser/repo" + (i + 1)));
         }
-        when(gitHubServiceImpl.getCachedRepos()).thenReturn(expectedRepos);
+        when(gitHubServiceImpl.getCachedRepos(null, 100)).thenReturn(expectedRepos);
 
-        ResponseEntity<List<UserRepos>> actualResponse = gitHubController.getAllRepos();
+        ResponseEntity<List<UserRepos>> actualResponse = gitHubController.getAllRepos(null, 100);
 
         assertEquals(HttpStatus.OK, actualResponse.getStatusCode());
         assertEquals(expectedReposCount, actualResponse.getBody().size());
     }
 
+    @Test
+    public void getAllRepos_whenPageIsFull_shouldLinkToTheNextPage() {
+        List<UserRepos> page = List.of(
+                new UserRepos(7L, "user1", "repo1", "https://github.com/user1/repo1"),
+                new UserRepos(9L, "user2", "repo2", "https://github.com/user2/repo2"));
+        when(gitHubServiceImpl.getCachedRepos(3L, 2)).thenReturn(page);
+
+        ResponseEntity<List<UserRepos>> actualResponse = gitHubController.getAllRepos(3L, 2);
+
+        assertEquals(page, actualResponse.getBody());
+        assertEquals("</cached?after=9&limit=2>; rel=\"next\"", actualResponse.getHeaders().getFirst(HttpHeaders.LINK));
+    }
+
+    @Test
+    public void getAllRepos_whenLastPage_shouldNotLinkFurther() {
+        when(gitHubServiceImpl.getCachedRepos(9L, 2)).thenReturn(
+                List.of(new UserRepos(12L, "user3", "repo3", "https://github.com/user3/repo3")));
+
+        ResponseEntity<List<UserRepos>> actualResponse = gitHubController.getAllRepos(9L, 2);
+
+        assertEquals(1, actualResponse.getBody().size());
+        assertNull(actualResponse.getHeaders().getFirst(HttpHeaders.LINK));
+    }
+
+    @Test
+    public void getAllRepos_whenLimitIsOutOfRange_shouldReturnBadRequest() {
+        assertEquals(HttpStatus.BAD_REQUEST, gitHubController.getAllRepos(null, 0).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, gitHubController.getAllRepos(null, 1001).getStatusCode());
+        verifyNoInteractions(gitHubServiceImpl);
+    }
+
+    @Test
+    public void streamAllRepos_shouldWriteOneJsonObjectPerLine() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<UserRepos> action = invocation.getArgument(0);
+            action.accept(new UserRepos(1L, "user1", "repo1", "https://github.com/user1/repo1"));
+            action.accept(new UserRepos(2L, "user2", "repo2", "https://github.com/user2/repo2"));
+            return null;
+        }).when(gitHubServiceImpl).streamCachedRepos(any());
+        GitHubController controller = new GitHubController(gitHubServiceImpl, new ObjectMapper(), gitHubMetrics, gitHubBatchService);
+
+        ResponseEntity<StreamingResponseBody> response = controller.streamAllRepos();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+
+        assertEquals(MediaType.APPLICATION_NDJSON, response.getHeaders().getContentType());
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("repo1", new ObjectMapper().readTree(lines[0]).get("name").asText());
+        assertEquals("https://github.com/user2/repo2", new ObjectMapper().readTree(lines[1]).get("html_url").asText());
+    }
+
     @Test
     public void getReposByUsername_whenUserHasNoPublicRepos_shouldReturnEmptyList() {
         String username = "testUser";
@@ -493,11 +631,11 @@ public class GitHubControllerTest {
             new UserRepos(1L, "user1", "repo1", "https://github.com/user1/repo1"),
             new UserRepos(2L, "user2", "repo2", "https://github.com/user2/repo2")
         );
-        when(gitHubServiceImpl.getCachedRepos()).thenReturn(expectedRepos);
+        when(gitHubServiceImpl.getCachedRepos(null, 100)).thenReturn(expectedRepos);
 
         for (int i = 0; i < numberOfThreads; i++) {
             new Thread(() -> {
-                responses.add(gitHubController.getAllRepos());
+                responses.add(gitHubController.getAllRepos(null, 100));
                 latch.countDown();
             }).start();
         }
@@ -510,22 +648,22 @@ public class GitHubControllerTest {
             assertEquals(expectedRepos, response.getBody());
         }
 
-        verify(gitHubServiceImpl, times(numberOfThreads)).getCachedRepos();
+        verify(gitHubServiceImpl, times(numberOfThreads)).getCachedRepos(null, 100);
     }
     
     @Test
     public void getAllRepos_whenCacheIsClearedDuringRequest_shouldReturnEmptyList() {
-        when(gitHubServiceImpl.getCachedRepos()).thenAnswer(invocation -> {
+        when(gitHubServiceImpl.getCachedRepos(null, 100)).thenAnswer(invocation -> {
             Thread.sleep(100);
             return Collections.emptyList();
         });
 
-        ResponseEntity<List<UserRepos>> actualResponse = gitHubController.getAllRepos();
+        ResponseEntity<List<UserRepos>> actualResponse = gitHubController.getAllRepos(null, 100);
 
         assertEquals(HttpStatus.OK, actualResponse.getStatusCode());
         assertNotNull(actualResponse.getBody());
         assertTrue(actualResponse.getBody().isEmpty());
-        verify(gitHubServiceImpl).getCachedRepos();
+        verify(gitHubServiceImpl).getCachedRepos(null, 100);
     }
     
     @Test
@@ -534,9 +672,9 @@ public class GitHubControllerTest {
             new UserRepos(1L, "user1", "repo1", "https://github.com/user1/repo1"),
             new UserRepos(2L, "user2", "repo2", "https://github.com/user2/repo2")
         );
-        when(gitHubServiceImpl.getCachedRepos()).thenReturn(expectedRepos);
+        when(gitHubServiceImpl.getCachedRepos(null, 100)).thenReturn(expectedRepos);
 
-        ResponseEntity<List<UserRepos>> response = gitHubController.getAllRepos();
+        ResponseEntity<List<UserRepos>> response = gitHubController.getAllRepos(null, 100);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertNotNull(response.getBody());
@@ -558,13 +696,13 @@ public class GitHubControllerTest {
     @Test
     public void getAllRepos_shouldHandleAndLogUnexpectedException() {
         RuntimeException unexpectedException = new RuntimeException("Error");
-        when(gitHubServiceImpl.getCachedRepos()).thenThrow(unexpectedException);
+        when(gitHubServiceImpl.getCachedRepos(null, 100)).thenThrow(unexpectedException);
 
-        ResponseEntity<List<UserRepos>> response = gitHubController.getAllRepos();
+        ResponseEntity<List<UserRepos>> response = gitHubController.getAllRepos(null, 100);
 
         assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
         assertNull(response.getBody());
-        verify(gitHubServiceImpl).getCachedRepos();
+        verify(gitHubServiceImpl).getCachedRepos(null, 100);
     }
     
     @Test
@@ -575,16 +713,16 @@ public class GitHubControllerTest {
         cachedRepos.add(new UserRepos(2L, "user3", "repo3", "https://github.com/user3/repo3"));
         cachedRepos.add(new UserRepos(3L, "user4", "repo4", "https://github.com/user4/repo4"));
 
-        when(gitHubServiceImpl.getCachedRepos()).thenReturn(cachedRepos);
+        when(gitHubServiceImpl.getCachedRepos(null, 100)).thenReturn(cachedRepos);
 
-        ResponseEntity<List<UserRepos>> actualResponse = gitHubController.getAllRepos();
+        ResponseEntity<List<UserRepos>> actualResponse = gitHubController.getAllRepos(null, 100);
 
         assertEquals(HttpStatus.OK, actualResponse.getStatusCode());
         assertNotNull(actualResponse.getBody());
         assertEquals(3, actualResponse.getBody().size());
         assertEquals(cachedRepos, actualResponse.getBody());
 
-        verify(gitHubServiceImpl).getCachedRepos();
+        verify(gitHubServiceImpl).getCachedRepos(null, 100);
     }
     
     @Test
@@ -592,9 +730,9 @@ public class GitHubControllerTest {
         List<UserRepos> expectedRepos = new ArrayList<>();
         expectedRepos.add(new UserRepos(1L, "tU2", "repo1", "https://github.com/testUser/repo1"));
         expectedRepos.add(new UserRepos(2L, "tU23", "repo2", "https://github.com/testUser/repo2"));
-        when(gitHubServiceImpl.getCachedRepos()).thenReturn(expectedRepos);
+        when(gitHubServiceImpl.getCachedRepos(null, 100)).thenReturn(expectedRepos);
 
-        ResponseEntity<List<UserRepos>> actualResponse = gitHubController.getAllRepos();
+        ResponseEntity<List<UserRepos>> actualResponse = gitHubController.getAllRepos(null, 100);
     
         assertEquals(HttpStatus.OK, actualResponse.getStatusCode());
         assertNotNull(actualResponse.getBody());
@@ -605,4 +743,38 @@ public class GitHubControllerTest {
         }
     }
 
-}
\ No newline at end of file
+    @Test
+    public void getRepositoriesOfUsers_shouldReturnOneEntryPerUser() {
+        List<String> usernames = List.of("octocat", "ghost");
+        Map<String, UserReposResult> expected = Map.of(
+                "octocat", new UserReposResult(UserReposResult.Outcome.FOUND,
+                        List.of(new UserRepos(1L, "octocat", "hello-world", "https://github.com/octocat/hello-world")), null, null),
+                "ghost", new UserReposResult(UserReposResult.Outcome.NOT_FOUND, null, "No such GitHub user", null));
+        when(gitHubBatchService.getRepositories(usernames)).thenReturn(expected);
+
+        ResponseEntity<Map<String, UserReposResult>> actualResponse = gitHubController.getRepositoriesOfUsers(usernames);
+
+        assertEquals(HttpStatus.OK, actualResponse.getStatusCode());
+        assertEquals(expected, actualResponse.getBody());
+    }
+
+    @Test
+    public void getRepositoriesOfUsers_whenUsernamesAreMissingBlankOrTooMany_shouldReturnBadRequest() {
+        List<String> tooMany = Collections.nCopies(101, "octocat");
+
+        assertEquals(HttpStatus.BAD_REQUEST, gitHubController.getRepositoriesOfUsers(List.of()).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, gitHubController.getRepositoriesOfUsers(List.of("octocat", " ")).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, gitHubController.getRepositoriesOfUsers(tooMany).getStatusCode());
+        verifyNoInteractions(gitHubBatchService);
+    }
+
+    @Test
+    public void getRepositoriesOfUsers_shouldOnlyMatchWhenUsernamesIsGiven() throws NoSuchMethodException {
+        Method method = GitHubController.class.getMethod("getRepositoriesOfUsers", List.class);
+
+        GetMapping getMapping = method.getAnnotation(GetMapping.class);
+        assertArrayEquals(new String[]{"/repos"}, getMapping.value());
+        assertArrayEquals(new String[]{"usernames"}, getMapping.params());
+    }
+
+}
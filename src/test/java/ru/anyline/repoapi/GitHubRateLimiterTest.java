@@ -0,0 +1,175 @@
+package ru.anyline.repoapi;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.RestTemplate;
+import ru.anyline.repoapi.config.GitHubProperties;
+import ru.anyline.repoapi.exceptions.RateLimitExceededException;
+import ru.anyline.repoapi.service.GitHubCallPriority;
+import ru.anyline.repoapi.service.GitHubClient;
+import ru.anyline.repoapi.service.GitHubMetrics;
+import ru.anyline.repoapi.service.GitHubRateLimiter;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GitHubRateLimiterTest {
+
+    private static final String PATH = "/users/octocat/repos";
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2024-06-01T12:00:00Z"));
+    private final GitHubProperties properties = new GitHubProperties();
+
+    private GitHubStubServer gitHub;
+    private ExecutorService pageExecutor;
+    private GitHubRateLimiter rateLimiter;
+    private GitHubClient gitHubClient;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        gitHub = new GitHubStubServer()
+                .stub(PATH, "[{\"name\":\"hello-world\",\"html_url\":\"https://github.com/octocat/hello-world\"}]");
+        properties.setBaseUrl(gitHub.baseUrl());
+        pageExecutor = Executors.newSingleThreadExecutor();
+        rateLimiter = new GitHubRateLimiter(properties, clock);
+        gitHubClient = new GitHubClient(new RestTemplate(), properties, pageExecutor, rateLimiter,
+                new GitHubMetrics(new SimpleMeterRegistry()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        gitHub.close();
+        pageExecutor.shutdownNow();
+    }
+
+    @Test
+    void interactiveCalls_whenBudgetIsSpent_shouldFailFastWithoutCallingGitHub() {
+        gitHub.rateLimit(2, clock.instant().plusSeconds(600).getEpochSecond());
+
+        gitHubClient.getUserRepos("octocat", null, null, GitHubCallPriority.INTERACTIVE);
+        gitHubClient.getUserRepos("octocat", null, null, GitHubCallPriority.INTERACTIVE);
+        RateLimitExceededException e = assertThrows(RateLimitExceededException.class,
+                () -> gitHubClient.getUserRepos("octocat", null, null, GitHubCallPriority.INTERACTIVE));
+
+        assertEquals(2, gitHub.requestCount(PATH));
+        assertEquals(600, e.getRetryAfterSeconds());
+    }
+
+    @Test
+    void backgroundCalls_shouldLeaveTheInteractiveReserve() {
+        rateLimiter.complete(rateLimitHeaders(100, 20, 600));
+
+        assertThrows(RateLimitExceededException.class, () -> rateLimiter.acquire(GitHubCallPriority.BACKGROUND));
+        rateLimiter.acquire(GitHubCallPriority.INTERACTIVE);
+    }
+
+    @Test
+    void backgroundCalls_shouldBeSpreadOverTheRestOfTheWindow() {
+        properties.getRateLimit().setInteractiveReserve(0);
+        properties.getRateLimit().setMaxBackgroundWait(Duration.ofMillis(50));
+        rateLimiter.complete(rateLimitHeaders(100, 100, 10));
+
+        rateLimiter.acquire(GitHubCallPriority.BACKGROUND);
+        RateLimitExceededException e = assertThrows(RateLimitExceededException.class,
+                () -> rateLimiter.acquire(GitHubCallPriority.BACKGROUND));
+
+        // ten seconds over a hundred calls: one slot every 100 ms
+        assertEquals(Duration.ofMillis(100), e.getRetryAfter());
+        clock.advance(Duration.ofMillis(100));
+        rateLimiter.acquire(GitHubCallPriority.BACKGROUND);
+    }
+
+    @Test
+    void acquire_afterTheWindowResets_shouldRefillTheBudget() {
+        rateLimiter.complete(rateLimitHeaders(60, 0, 30));
+        assertThrows(RateLimitExceededException.class, () -> rateLimiter.acquire(GitHubCallPriority.INTERACTIVE));
+
+        clock.advance(Duration.ofSeconds(30));
+
+        rateLimiter.acquire(GitHubCallPriority.INTERACTIVE);
+        rateLimiter.acquire(GitHubCallPriority.BACKGROUND);
+    }
+
+    @Test
+    void secondaryRateLimit_shouldPauseAllCallsForRetryAfter() {
+        gitHub.secondaryRateLimit(Duration.ofSeconds(30));
+
+        RateLimitExceededException e = assertThrows(RateLimitExceededException.class,
+                () -> gitHubClient.getUserRepos("octocat", null, null, GitHubCallPriority.INTERACTIVE));
+        assertEquals(30, e.getRetryAfterSeconds());
+
+        gitHub.secondaryRateLimit(null);
+        assertThrows(RateLimitExceededException.class,
+                () -> gitHubClient.getUserRepos("octocat", null, null, GitHubCallPriority.INTERACTIVE));
+        assertEquals(1, gitHub.requestCount(PATH));
+
+        clock.advance(Duration.ofSeconds(30));
+        assertEquals(1, gitHubClient.getUserRepos("octocat", null, null, GitHubCallPriority.INTERACTIVE).body().size());
+    }
+
+    @Test
+    void rateLimited_whenForbiddenForAnotherReason_shouldNotBackOff() {
+        assertNull(rateLimiter.rateLimited(HttpStatus.FORBIDDEN, new HttpHeaders(),
+                "{\"message\":\"Resource not accessible by integration\"}"));
+
+        rateLimiter.acquire(GitHubCallPriority.INTERACTIVE);
+    }
+
+    @Test
+    void acquire_whenDisabled_shouldIgnoreTheReportedBudget() {
+        properties.getRateLimit().setEnabled(false);
+        GitHubRateLimiter disabled = new GitHubRateLimiter(properties, clock);
+        disabled.complete(rateLimitHeaders(60, 0, 30));
+
+        disabled.acquire(GitHubCallPriority.INTERACTIVE);
+        disabled.acquire(GitHubCallPriority.BACKGROUND);
+    }
+
+    private HttpHeaders rateLimitHeaders(int limit, int remaining, long resetInSeconds) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("X-RateLimit-Limit", String.valueOf(limit));
+        headers.set("X-RateLimit-Remaining", String.valueOf(remaining));
+        headers.set("X-RateLimit-Reset", String.valueOf(clock.instant().getEpochSecond() + resetInSeconds));
+        return headers;
+    }
+
+    private static class MutableClock extends Clock {
+
+        private volatile Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
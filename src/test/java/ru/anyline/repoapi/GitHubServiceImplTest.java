@@ -0,0 +1,479 @@
+package ru.anyline.repoapi;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+import ru.anyline.repoapi.config.GitHubProperties;
+import ru.anyline.repoapi.model.FetchState;
+import ru.anyline.repoapi.model.UserRepos;
+import ru.anyline.repoapi.repository.FetchStateRepository;
+import ru.anyline.repoapi.repository.Repository;
+import ru.anyline.repoapi.service.GitHubCallPriority;
+import ru.anyline.repoapi.service.GitHubClient;
+import ru.anyline.repoapi.service.GitHubMetrics;
+import ru.anyline.repoapi.service.GitHubRateLimiter;
+import ru.anyline.repoapi.service.GitHubServiceImpl;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class GitHubServiceImplTest {
+
+    private static final int CALLERS = 32;
+
+    private final Map<String, List<UserRepos>> table = new ConcurrentHashMap<>();
+    private final Map<String, FetchState> fetchStates = new ConcurrentHashMap<>();
+    private final Repository repository = mock(Repository.class);
+    private final FetchStateRepository fetchStateRepository = mock(FetchStateRepository.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final Queue<Runnable> backgroundRefreshes = new ArrayDeque<>();
+    private final AtomicLong ids = new AtomicLong();
+    private final GitHubProperties properties = new GitHubProperties();
+
+    private GitHubStubServer gitHub;
+    private ExecutorService pageExecutor;
+    private GitHubServiceImpl gitHubService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        when(repository.findByUsernameKey(anyString()))
+                .thenAnswer(invocation -> table.getOrDefault(invocation.<String>getArgument(0), List.of()));
+        when(repository.readByUsernameKey(anyString()))
+                .thenAnswer(invocation -> table.getOrDefault(invocation.<String>getArgument(0), List.of()));
+        when(repository.readByUsernameKeyAndRepoName(anyString(), anyString())).thenAnswer(invocation ->
+                table.getOrDefault(invocation.<String>getArgument(0), List.of()).stream()
+                        .filter(repo -> repo.getRepoName().equals(invocation.getArgument(1)))
+                        .findFirst()
+                        .orElse(null));
+        when(repository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<UserRepos> repos = invocation.getArgument(0);
+            repos.forEach(this::store);
+            return repos;
+        });
+        when(repository.save(any(UserRepos.class))).thenAnswer(invocation -> {
+            UserRepos repo = invocation.getArgument(0);
+            store(repo);
+            return repo;
+        });
+
+        doAnswer(invocation -> table.remove(invocation.<String>getArgument(0)))
+                .when(repository).deleteByUsernameKey(anyString());
+        doAnswer(invocation -> {
+            List<Long> ids = invocation.getArgument(0);
+            table.replaceAll((username, repos) -> repos.stream().filter(repo -> !ids.contains(repo.getId())).toList());
+            return null;
+        }).when(repository).deleteAllByIdInBatch(anyIterable());
+        when(repository.replaceListing(anyString(), anyList())).thenCallRealMethod();
+        when(fetchStateRepository.findById(anyString()))
+                .thenAnswer(invocation -> Optional.ofNullable(fetchStates.get(invocation.<String>getArgument(0))));
+        doAnswer(invocation -> fetchStates.remove(invocation.<String>getArgument(0)))
+                .when(fetchStateRepository).deleteById(anyString());
+        when(fetchStateRepository.save(any(FetchState.class))).thenAnswer(invocation -> {
+            FetchState state = invocation.getArgument(0);
+            fetchStates.put(state.getFetchKey(), state);
+            return state;
+        });
+
+        gitHub = new GitHubStubServer().latency(Duration.ofMillis(300));
+        properties.setBaseUrl(gitHub.baseUrl());
+        properties.setPageConcurrency(3);
+        pageExecutor = Executors.newFixedThreadPool(properties.getPageConcurrency());
+        GitHubMetrics gitHubMetrics = new GitHubMetrics(meterRegistry);
+        gitHubService = new GitHubServiceImpl(repository, fetchStateRepository,
+                new GitHubClient(new RestTemplate(), properties, pageExecutor, new GitHubRateLimiter(properties), gitHubMetrics),
+                gitHubMetrics, properties, backgroundRefreshes::add, new ConcurrentMapCacheManager());
+    }
+
+    @AfterEach
+    void tearDown() {
+        gitHub.close();
+        pageExecutor.shutdownNow();
+    }
+
+    @Test
+    void getRepositories_whenManyCallersMissConcurrently_shouldFetchUpstreamOnce() throws Exception {
+        gitHub.stub("/users/octocat/repos",
+                "[{\"name\":\"hello-world\",\"html_url\":\"https://github.com/octocat/hello-world\"},"
+                        + "{\"name\":\"spoon-knife\",\"html_url\":\"https://github.com/octocat/spoon-knife\"}]");
+
+        List<List<UserRepos>> results = runConcurrently(() -> gitHubService.getRepositories("octocat"));
+
+        assertEquals(1, gitHub.requestCount("/users/octocat/repos"));
+        verify(repository, times(1)).saveAll(anyList());
+        assertEquals(2, table.get("octocat").size());
+        results.forEach(repos -> assertEquals(List.of("hello-world", "spoon-knife"),
+                repos.stream().map(UserRepos::getRepoName).toList()));
+    }
+
+    @Test
+    void getRepository_whenManyCallersMissConcurrently_shouldFetchUpstreamOnce() throws Exception {
+        gitHub.stub("/repos/octocat/hello-world",
+                "{\"name\":\"hello-world\",\"html_url\":\"https://github.com/octocat/hello-world\"}");
+
+        List<UserRepos> results = runConcurrently(() -> gitHubService.getRepository("octocat", "hello-world"));
+
+        assertEquals(1, gitHub.requestCount("/repos/octocat/hello-world"));
+        verify(repository, times(1)).save(any(UserRepos.class));
+        results.forEach(repo -> assertEquals("https://github.com/octocat/hello-world", repo.getUrl()));
+    }
+
+    @Test
+    void getRepositories_whenUpstreamFails_shouldPropagateErrorToEveryWaiterAndAllowRetry() throws Exception {
+        List<Throwable> failures = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return gitHubService.getRepositories("ghost");
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (Exception e) {
+                    failures.add(e.getCause());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(CALLERS, failures.size());
+        assertEquals(1, gitHub.requestCount("/users/ghost/repos"));
+        verify(repository, never()).saveAll(anyList());
+
+        gitHub.stub("/users/ghost/repos", "[]").latency(Duration.ZERO);
+        assertTrue(gitHubService.getRepositories("ghost").isEmpty());
+        assertEquals(2, gitHub.requestCount("/users/ghost/repos"));
+    }
+
+    @Test
+    void getRepositories_whenListingSpansSeveralPages_shouldFetchRemainingPagesInParallelAndKeepOrder() {
+        List<String> pages = IntStream.range(0, 7)
+                .mapToObj(page -> IntStream.range(page * 100, Math.min(page * 100 + 100, 650))
+                        .mapToObj(i -> "{\"name\":\"repo" + i + "\",\"html_url\":\"https://github.com/org/repo" + i + "\"}")
+                        .collect(Collectors.joining(",", "[", "]")))
+                .toList();
+        gitHub.stubPages("/users/org/repos", pages).latency(Duration.ofMillis(100));
+
+        List<UserRepos> repos = gitHubService.getRepositories("org");
+
+        assertEquals(650, repos.size());
+        assertEquals(IntStream.range(0, 650).mapToObj(i -> "repo" + i).toList(),
+                repos.stream().map(UserRepos::getRepoName).toList());
+        assertEquals(7, gitHub.requestCount("/users/org/repos"));
+        assertTrue(gitHub.lastQuery("/users/org/repos").contains("per_page=100"));
+        assertTrue(gitHub.maxConcurrentRequests() > 1);
+        assertTrue(gitHub.maxConcurrentRequests() <= 3);
+        verify(repository, times(1)).saveAll(anyList());
+    }
+
+    @Test
+    void refreshRepositories_whenListingUnchanged_shouldRevalidateWithEtagAndKeepRows() {
+        gitHub.stub("/users/octocat/repos",
+                "[{\"name\":\"hello-world\",\"html_url\":\"https://github.com/octocat/hello-world\"}]")
+                .latency(Duration.ZERO);
+        List<UserRepos> fetched = gitHubService.getRepositories("octocat");
+        assertNotNull(fetchStates.get(FetchState.listingKey("octocat")).getEtag());
+
+        List<UserRepos> refreshed = gitHubService.refreshRepositories("octocat", GitHubCallPriority.BACKGROUND);
+
+        assertSame(fetched.get(0), refreshed.get(0));
+        assertEquals(1, gitHub.notModifiedCount());
+        verify(repository, times(1)).saveAll(anyList());
+        verify(repository, never()).deleteByUsernameKey(anyString());
+        assertEquals(1.0, fetchCount("fetched"));
+        assertEquals(1.0, fetchCount("not_modified"));
+    }
+
+    @Test
+    void refreshRepositories_whenListingChanged_shouldReplaceRows() {
+        gitHub.stub("/users/octocat/repos",
+                "[{\"name\":\"hello-world\",\"html_url\":\"https://github.com/octocat/hello-world\"}]")
+                .latency(Duration.ZERO);
+        gitHubService.getRepositories("octocat");
+        gitHubService.getRepositories("octocat");
+        gitHub.stub("/users/octocat/repos",
+                "[{\"name\":\"hello-world\",\"html_url\":\"https://github.com/octocat/hello-world\"},"
+                        + "{\"name\":\"linguist\",\"html_url\":\"https://github.com/octocat/linguist\"}]");
+
+        List<UserRepos> refreshed = gitHubService.refreshRepositories("octocat", GitHubCallPriority.BACKGROUND);
+
+        assertEquals(List.of("hello-world", "linguist"), refreshed.stream().map(UserRepos::getRepoName).toList());
+        assertEquals(2, table.get("octocat").size());
+        assertEquals(0, gitHub.notModifiedCount());
+        assertEquals(1.0, fetchCount("cache_hit"));
+        assertEquals(2.0, fetchCount("fetched"));
+    }
+
+    @Test
+    void refreshRepositories_whenListingChanged_shouldUpdateRowsInPlace() {
+        gitHub.stub("/users/octocat/repos",
+                "[{\"name\":\"hello-world\",\"html_url\":\"https://github.com/octocat/hello-world\"},"
+                        + "{\"name\":\"spoon-knife\",\"html_url\":\"https://github.com/octocat/spoon-knife\"}]")
+                .latency(Duration.ZERO);
+        UserRepos helloWorld = gitHubService.getRepositories("octocat").get(0);
+        gitHub.stub("/users/octocat/repos",
+                "[{\"name\":\"hello-world\",\"html_url\":\"https://github.com/octo-org/hello-world\"},"
+                        + "{\"name\":\"linguist\",\"html_url\":\"https://github.com/octocat/linguist\"},"
+                        + "{\"name\":\"linguist\",\"html_url\":\"https://github.com/octocat/linguist\"}]");
+
+        List<UserRepos> refreshed = gitHubService.refreshRepositories("octocat", GitHubCallPriority.BACKGROUND);
+
+        assertSame(helloWorld, refreshed.get(0));
+        assertEquals("https://github.com/octo-org/hello-world", helloWorld.getUrl());
+        assertEquals(List.of("hello-world", "linguist"),
+                table.get("octocat").stream().map(UserRepos::getRepoName).sorted().toList());
+        verify(repository, never()).deleteByUsernameKey(anyString());
+    }
+
+    @Test
+    void getRepositories_whenUsernameCaseDiffers_shouldShareOneFetchAndKeepGitHubsLogin() {
+        gitHub.stub("/users/octocat/repos", "[{\"name\":\"hello-world\",\"html_url\":\"https://github.com/octocat/hello-world\","
+                        + "\"owner\":{\"login\":\"Octocat\"}}]")
+                .latency(Duration.ZERO);
+
+        gitHubService.getRepositories("OCTOCAT");
+        List<UserRepos> repos = gitHubService.getRepositories("octocat");
+
+        assertEquals(1, gitHub.requestCount("/users/octocat/repos"));
+        assertEquals("Octocat", repos.get(0).getUsername());
+        assertEquals("octocat", repos.get(0).getUsernameKey());
+        assertEquals(1.0, fetchCount("cache_hit"));
+    }
+
+    @Test
+    void refreshRepository_whenRepositoryUnchanged_shouldAnswerFromTable() {
+        gitHub.stub("/repos/octocat/hello-world",
+                "{\"name\":\"hello-world\",\"html_url\":\"https://github.com/octocat/hello-world\"}")
+                .latency(Duration.ZERO);
+        UserRepos fetched = gitHubService.getRepository("octocat", "hello-world");
+
+        UserRepos refreshed = gitHubService.refreshRepository("octocat", "hello-world", GitHubCallPriority.BACKGROUND);
+
+        assertSame(fetched, refreshed);
+        assertEquals(1, gitHub.notModifiedCount());
+        verify(repository, times(1)).save(any(UserRepos.class));
+        assertEquals(1.0, fetchCount("not_modified"));
+    }
+
+    @Test
+    void getRepositories_whenWithinSoftTtl_shouldServeFromTableWithoutUpstreamCall() {
+        stubHelloWorldListing();
+        gitHubService.getRepositories("octocat");
+
+        gitHubService.getRepositories("octocat");
+
+        assertEquals(1, gitHub.requestCount("/users/octocat/repos"));
+        assertTrue(backgroundRefreshes.isEmpty());
+        assertEquals(1.0, fetchCount("cache_hit"));
+    }
+
+    @Test
+    void getRepositories_whenBetweenSoftAndHardTtl_shouldServeStaleAndRefreshOnceInBackground() {
+        stubHelloWorldListing();
+        List<UserRepos> fetched = gitHubService.getRepositories("octocat");
+        ageFetch(FetchState.listingKey("octocat"), Duration.ofHours(1));
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(fetched, gitHubService.getRepositories("octocat"));
+        }
+
+        assertEquals(1, gitHub.requestCount("/users/octocat/repos"));
+        assertEquals(1, backgroundRefreshes.size());
+        assertEquals(5.0, fetchCount("stale_hit"));
+
+        backgroundRefreshes.poll().run();
+
+        assertEquals(2, gitHub.requestCount("/users/octocat/repos"));
+        assertEquals(1, gitHub.notModifiedCount());
+        gitHubService.getRepositories("octocat");
+        assertEquals(1.0, fetchCount("cache_hit"));
+        assertTrue(backgroundRefreshes.isEmpty());
+    }
+
+    @Test
+    void getRepositories_whenPastHardTtl_shouldBlockOnRefresh() {
+        stubHelloWorldListing();
+        gitHubService.getRepositories("octocat");
+        ageFetch(FetchState.listingKey("octocat"), Duration.ofDays(2));
+
+        gitHubService.getRepositories("octocat");
+
+        assertEquals(2, gitHub.requestCount("/users/octocat/repos"));
+        assertEquals(1, gitHub.notModifiedCount());
+        assertTrue(backgroundRefreshes.isEmpty());
+        assertTrue(Duration.between(fetchStates.get(FetchState.listingKey("octocat")).getFetchedAt(), Instant.now())
+                .compareTo(Duration.ofMinutes(1)) < 0);
+    }
+
+    @Test
+    void getRepositories_whenExpiredBeforeARestart_shouldServeStoredRowsWithinTheGrace() {
+        stubHelloWorldListing();
+        List<UserRepos> fetched = gitHubService.getRepositories("octocat");
+        ageFetch(FetchState.listingKey("octocat"), Duration.ofDays(2));
+        properties.getFreshness().setRestartGrace(Duration.ofMinutes(30));
+
+        assertEquals(fetched, gitHubService.getRepositories("octocat"));
+
+        assertEquals(1, gitHub.requestCount("/users/octocat/repos"));
+        assertEquals(1, backgroundRefreshes.size());
+        assertEquals(1.0, fetchCount("stale_hit"));
+    }
+
+    @Test
+    void getRepository_whenBetweenSoftAndHardTtl_shouldServeStaleAndRefreshInBackground() {
+        gitHub.stub("/repos/octocat/hello-world",
+                "{\"name\":\"hello-world\",\"html_url\":\"https://github.com/octocat/hello-world\"}")
+                .latency(Duration.ZERO);
+        UserRepos fetched = gitHubService.getRepository("octocat", "hello-world");
+        ageFetch(FetchState.repoKey("octocat", "hello-world"), Duration.ofHours(1));
+
+        assertSame(fetched, gitHubService.getRepository("octocat", "hello-world"));
+        assertEquals(1, backgroundRefreshes.size());
+
+        backgroundRefreshes.poll().run();
+
+        assertEquals(1, gitHub.notModifiedCount());
+    }
+
+    @Test
+    void getRepositories_whenOnlyASingleRepositoryIsStored_shouldFetchTheWholeListing() {
+        gitHub.stub("/repos/octocat/hello-world",
+                "{\"name\":\"hello-world\",\"html_url\":\"https://github.com/octocat/hello-world\"}");
+        stubTwoRepositoryListing();
+        gitHubService.getRepository("octocat", "hello-world");
+
+        List<UserRepos> repos = gitHubService.getRepositories("octocat");
+
+        assertEquals(List.of("hello-world", "spoon-knife"), repos.stream().map(UserRepos::getRepoName).toList());
+        assertEquals(1, gitHub.requestCount("/users/octocat/repos"));
+        assertTrue(backgroundRefreshes.isEmpty());
+        assertEquals(0.0, fetchCount("stale_hit"));
+    }
+
+    @Test
+    void getRepositories_whenARepositoryIsStoredConcurrently_shouldStoreTheWholeListing() {
+        stubTwoRepositoryListing();
+        doThrow(new DataIntegrityViolationException("duplicate key"))
+                .doCallRealMethod()
+                .when(repository).replaceListing(anyString(), anyList());
+
+        List<UserRepos> repos = gitHubService.getRepositories("octocat");
+
+        assertEquals(List.of("hello-world", "spoon-knife"), repos.stream().map(UserRepos::getRepoName).toList());
+        assertNotNull(fetchStates.get(FetchState.listingKey("octocat")));
+        verify(repository, times(2)).replaceListing(eq("octocat"), anyList());
+    }
+
+    @Test
+    void forget_shouldDropTheStoredRowsAndFetchState() {
+        stubHelloWorldListing();
+        gitHubService.getRepositories("octocat");
+
+        gitHubService.forget("OctoCat", null);
+
+        assertFalse(table.containsKey("octocat"));
+        assertFalse(fetchStates.containsKey(FetchState.listingKey("octocat")));
+    }
+
+    @Test
+    void getRepositories_shouldTimeUpstreamCallsByEndpointAndStatus() {
+        stubHelloWorldListing();
+
+        gitHubService.getRepositories("octocat");
+        assertThrows(HttpClientErrorException.class, () -> gitHubService.getRepository("octocat", "missing"));
+
+        assertEquals(1, upstreamCount("user_repos", "200"));
+        assertEquals(1, upstreamCount("repo", "404"));
+        assertEquals(0, meterRegistry.get("repoapi.github.in.flight").tag("priority", "interactive").gauge().value());
+    }
+
+    private void stubHelloWorldListing() {
+        gitHub.stub("/users/octocat/repos",
+                "[{\"name\":\"hello-world\",\"html_url\":\"https://github.com/octocat/hello-world\"}]")
+                .latency(Duration.ZERO);
+    }
+
+    private void stubTwoRepositoryListing() {
+        gitHub.stub("/users/octocat/repos",
+                "[{\"name\":\"hello-world\",\"html_url\":\"https://github.com/octocat/hello-world\"},"
+                        + "{\"name\":\"spoon-knife\",\"html_url\":\"https://github.com/octocat/spoon-knife\"}]")
+                .latency(Duration.ZERO);
+    }
+
+    private void ageFetch(String fetchKey, Duration age) {
+        fetchStates.get(fetchKey).setFetchedAt(Instant.now().minus(age));
+    }
+
+    private double fetchCount(String outcome) {
+        return meterRegistry.get("repoapi.github.fetches").tag("outcome", outcome).counter().count();
+    }
+
+    private long upstreamCount(String endpoint, String status) {
+        return meterRegistry.get("repoapi.github.requests").tag("endpoint", endpoint).tag("status", status).timer().count();
+    }
+
+    private <T> List<T> runConcurrently(Callable<T> call) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<T>> futures = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return call.call();
+                }));
+            }
+            start.countDown();
+            List<T> results = new ArrayList<>();
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void store(UserRepos repo) {
+        if (repo.getId() == null) {
+            repo.setId(ids.incrementAndGet());
+        }
+        // keyed by (username, repo_name) like the table
+        table.merge(repo.getUsernameKey(), List.of(repo), (existing, added) -> {
+            List<UserRepos> merged = new ArrayList<>(existing);
+            merged.removeIf(stored -> stored.getRepoName().equals(repo.getRepoName()));
+            merged.addAll(added);
+            return merged;
+        });
+    }
+}
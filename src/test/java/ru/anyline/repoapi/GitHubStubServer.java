@@ -0,0 +1,274 @@
+package ru.anyline.repoapi;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Minimal local stand-in for api.github.com: serves canned JSON per path (optionally split into pages
+ * linked the way GitHub does it), answers 304 to a matching {@code If-None-Match}, gzips bodies for clients
+ * that accept it and counts the calls it receives. It can also report and enforce a rate-limit budget the way
+ * GitHub does, answer everything with a secondary rate limit, or fail a share of calls with a 502.
+ */
+class GitHubStubServer implements AutoCloseable {
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final Map<String, String> bodies = new ConcurrentHashMap<>();
+    private final Map<String, List<String>> pages = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> requestCounts = new ConcurrentHashMap<>();
+    private final Map<String, String> lastQueries = new ConcurrentHashMap<>();
+    private final AtomicInteger concurrentRequests = new AtomicInteger();
+    private final AtomicInteger maxConcurrentRequests = new AtomicInteger();
+    private final AtomicInteger notModifiedCount = new AtomicInteger();
+    private final AtomicInteger gzippedCount = new AtomicInteger();
+    private final AtomicInteger totalRequestCount = new AtomicInteger();
+    private volatile Duration latency = Duration.ZERO;
+    private volatile String fallbackBody;
+    private volatile Function<String, List<String>> generator;
+    private volatile double errorRate;
+    private volatile int rateLimit = -1;
+    private volatile long rateLimitReset;
+    private final AtomicInteger rateLimitUsed = new AtomicInteger();
+    private volatile Duration secondaryRetryAfter;
+
+    GitHubStubServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    GitHubStubServer stub(String path, String json) {
+        bodies.put(path, json);
+        return this;
+    }
+
+    GitHubStubServer stubPages(String path, List<String> jsonPages) {
+        pages.put(path, List.copyOf(jsonPages));
+        return this;
+    }
+
+    /** Body served for every path without a stub of its own, instead of a 404. */
+    GitHubStubServer fallback(String json) {
+        this.fallbackBody = json;
+        return this;
+    }
+
+    /**
+     * Pages served for every path without a stub of its own, generated on its first call and kept, so that
+     * ETags stay stable. A single page is served without a {@code Link} header; {@code null} means 404.
+     */
+    GitHubStubServer generate(Function<String, List<String>> pagesForPath) {
+        this.generator = pagesForPath;
+        return this;
+    }
+
+    /** Reports {@code X-RateLimit-*} headers for a window of {@code limit} calls and answers 403 once it is spent. */
+    GitHubStubServer rateLimit(int limit, long resetEpochSeconds) {
+        this.rateLimit = limit;
+        this.rateLimitReset = resetEpochSeconds;
+        rateLimitUsed.set(0);
+        return this;
+    }
+
+    /** Answers every call with a 403 carrying {@code Retry-After}, or serves normally again when {@code null}. */
+    GitHubStubServer secondaryRateLimit(Duration retryAfter) {
+        this.secondaryRetryAfter = retryAfter;
+        return this;
+    }
+
+    /** Answers this share of calls, picked at random, with the 502 GitHub sends when it is overloaded. */
+    GitHubStubServer errorRate(double errorRate) {
+        this.errorRate = errorRate;
+        return this;
+    }
+
+    GitHubStubServer latency(Duration latency) {
+        this.latency = latency;
+        return this;
+    }
+
+    int requestCount(String path) {
+        AtomicInteger count = requestCounts.get(path);
+        return count == null ? 0 : count.get();
+    }
+
+    Set<String> requestedPaths() {
+        return Set.copyOf(requestCounts.keySet());
+    }
+
+    int totalRequestCount() {
+        return totalRequestCount.get();
+    }
+
+    String lastQuery(String path) {
+        return lastQueries.get(path);
+    }
+
+    int notModifiedCount() {
+        return notModifiedCount.get();
+    }
+
+    int gzippedCount() {
+        return gzippedCount.get();
+    }
+
+    int maxConcurrentRequests() {
+        return maxConcurrentRequests.get();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        String query = exchange.getRequestURI().getQuery();
+        requestCounts.computeIfAbsent(path, p -> new AtomicInteger()).incrementAndGet();
+        totalRequestCount.incrementAndGet();
+        if (query != null) {
+            lastQueries.put(path, query);
+        }
+        maxConcurrentRequests.accumulateAndGet(concurrentRequests.incrementAndGet(), Math::max);
+        try {
+            Thread.sleep(latency.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            concurrentRequests.decrementAndGet();
+        }
+        if (rejectRateLimited(exchange)) {
+            return;
+        }
+        if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+            sendError(exchange, 502, "Server Error");
+            return;
+        }
+        String body = bodies.getOrDefault(path, fallbackBody);
+        List<String> pagedBodies = pages.get(path);
+        Function<String, List<String>> pagesForPath = generator;
+        if (pagedBodies == null && pagesForPath != null && !bodies.containsKey(path)) {
+            pagedBodies = generated(path, pagesForPath);
+        }
+        if (pagedBodies != null) {
+            int page = pageParameter(query);
+            body = page <= pagedBodies.size() ? pagedBodies.get(page - 1) : "[]";
+            if (pagedBodies.size() > 1) {
+                exchange.getResponseHeaders().add("Link", linkHeader(path, page, pagedBodies.size()));
+            }
+        }
+        if (body != null) {
+            String etag = "\"" + Integer.toHexString(body.hashCode()) + "\"";
+            exchange.getResponseHeaders().add("ETag", etag);
+            if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                notModifiedCount.incrementAndGet();
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+                return;
+            }
+        }
+        byte[] bytes = (body == null ? "{\"message\":\"Not Found\"}" : body).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            gzippedCount.incrementAndGet();
+            exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+            bytes = gzip(bytes);
+        }
+        exchange.sendResponseHeaders(body == null ? 404 : 200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private List<String> generated(String path, Function<String, List<String>> pagesForPath) {
+        List<String> generatedPages = pagesForPath.apply(path);
+        if (generatedPages == null) {
+            return null;
+        }
+        pages.putIfAbsent(path, List.copyOf(generatedPages));
+        return pages.get(path);
+    }
+
+    private boolean rejectRateLimited(HttpExchange exchange) throws IOException {
+        Duration retryAfter = secondaryRetryAfter;
+        if (retryAfter != null) {
+            exchange.getResponseHeaders().add("Retry-After", String.valueOf(retryAfter.toSeconds()));
+            sendError(exchange, 403, "You have exceeded a secondary rate limit.");
+            return true;
+        }
+        int limit = rateLimit;
+        if (limit < 0) {
+            return false;
+        }
+        int used = rateLimitUsed.incrementAndGet();
+        exchange.getResponseHeaders().add("X-RateLimit-Limit", String.valueOf(limit));
+        exchange.getResponseHeaders().add("X-RateLimit-Remaining", String.valueOf(Math.max(0, limit - used)));
+        exchange.getResponseHeaders().add("X-RateLimit-Reset", String.valueOf(rateLimitReset));
+        if (used > limit) {
+            sendError(exchange, 403, "API rate limit exceeded.");
+            return true;
+        }
+        return false;
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        byte[] bytes = ("{\"message\":\"" + message + "\"}").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        }
+        return out.toByteArray();
+    }
+
+    private String linkHeader(String path, int page, int lastPage) {
+        String template = "<" + baseUrl() + path + "?per_page=100&page=%d>; rel=\"%s\"";
+        StringBuilder link = new StringBuilder();
+        if (page < lastPage) {
+            link.append(String.format(template, page + 1, "next")).append(", ");
+        }
+        return link.append(String.format(template, lastPage, "last")).toString();
+    }
+
+    private static int pageParameter(String query) {
+        if (query != null) {
+            for (String parameter : query.split("&")) {
+                if (parameter.startsWith("page=")) {
+                    return Integer.parseInt(parameter.substring("page=".length()));
+                }
+            }
+        }
+        return 1;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
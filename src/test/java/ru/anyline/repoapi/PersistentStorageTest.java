@@ -0,0 +1,70 @@
+package ru.anyline.repoapi;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.anyline.repoapi.model.UserRepos;
+import ru.anyline.repoapi.service.GitHubService;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Restarts the application on the {@code persistent} profile and checks that the second instance answers
+ * from the repositories the first one stored, without calling GitHub.
+ */
+class PersistentStorageTest {
+
+    private static final String PATH = "/users/octocat/repos";
+
+    @TempDir
+    Path dataDir;
+
+    private GitHubStubServer gitHub;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        gitHub = new GitHubStubServer().stub(PATH,
+                "[{\"name\":\"hello-world\",\"html_url\":\"https://github.com/octocat/hello-world\"},"
+                        + "{\"name\":\"spoon-knife\",\"html_url\":\"https://github.com/octocat/spoon-knife\"}]");
+    }
+
+    @AfterEach
+    void tearDown() {
+        gitHub.close();
+    }
+
+    @Test
+    void restart_shouldServeStoredRepositoriesWithoutCallingGitHub() {
+        try (ConfigurableApplicationContext app = start()) {
+            assertEquals(2, app.getBean(GitHubService.class).getRepositories("octocat").size());
+        }
+        assertEquals(1, gitHub.requestCount(PATH));
+
+        try (ConfigurableApplicationContext app = start()) {
+            List<UserRepos> repos = app.getBean(GitHubService.class).getRepositories("Octocat");
+
+            assertEquals(List.of("hello-world", "spoon-knife"), repos.stream().map(UserRepos::getRepoName).toList());
+        }
+        assertEquals(1, gitHub.requestCount(PATH));
+    }
+
+    private ConfigurableApplicationContext start() {
+        return new SpringApplicationBuilder(RepoApiApplication.class).run(
+                "--spring.profiles.active=persistent",
+                "--repoapi.storage.data-dir=" + dataDir,
+                "--server.port=0",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN",
+                "--logging.level.org.springframework.web=WARN",
+                "--repoapi.github.base-url=" + gitHub.baseUrl(),
+                "--repoapi.github.revalidation.enabled=false",
+                "--repoapi.cache.redis-enabled=false");
+    }
+}
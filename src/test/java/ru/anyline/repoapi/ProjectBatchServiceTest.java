@@ -0,0 +1,151 @@
+package ru.anyline.repoapi;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.anyline.repoapi.model.UserProject;
+import ru.anyline.repoapi.repository.UserProjectRepository;
+import ru.anyline.repoapi.service.ProjectBatchRequest;
+import ru.anyline.repoapi.service.ProjectBatchResult;
+import ru.anyline.repoapi.service.ProjectBatchResult.Item;
+import ru.anyline.repoapi.service.ProjectBatchResult.Outcome;
+import ru.anyline.repoapi.service.ProjectBatchService;
+import ru.anyline.repoapi.service.ProjectSearchIndex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// without the test transaction, so that every chunk commits or rolls back on its own as in production
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ProjectBatchServiceTest {
+
+    @Autowired
+    private UserProjectRepository userProjectRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private ProjectSearchIndex projectSearchIndex;
+    private ProjectBatchService projectBatchService;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        projectSearchIndex = new ProjectSearchIndex();
+        projectBatchService = new ProjectBatchService(userProjectRepository, projectSearchIndex, transactionManager);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        userProjectRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void create_shouldInsertInBatchesAndReportEveryItem() {
+        List<UserProject> create = new ArrayList<>();
+        for (int i = 0; i < 1200; i++) {
+            create.add(project(null, "Import " + i));
+        }
+        create.set(3, project(null, " "));
+
+        ProjectBatchResult result = projectBatchService.apply(new ProjectBatchRequest(create, null, null));
+
+        // three chunk transactions; inserts go out 100 at a time and ids come 50 per sequence call
+        assertEquals(3, statistics.getTransactionCount());
+        assertTrue(statistics.getPrepareStatementCount() < 50, "statements: " + statistics.getPrepareStatementCount());
+        assertEquals(1200, result.create().size());
+        assertEquals(new Item(3, null, Outcome.INVALID, "name is required"), result.create().get(3));
+        assertEquals(1199, result.create().stream().filter(item -> item.outcome() == Outcome.CREATED).count());
+        for (int i = 0; i < result.create().size(); i++) {
+            assertEquals(i, result.create().get(i).index());
+        }
+        assertEquals(1199, userProjectRepository.count());
+
+        Long id = result.create().get(1199).id();
+        assertEquals(id, projectSearchIndex.search("import 1199", 1).get(0).getId());
+    }
+
+    @Test
+    void update_shouldChangeFoundProjectsAndReportMissingOnes() {
+        List<Long> ids = createProjects("Before", 3);
+
+        ProjectBatchResult result = projectBatchService.apply(new ProjectBatchRequest(null, Arrays.asList(
+                project(ids.get(0), "After"),
+                project(Long.MAX_VALUE, "Nowhere"),
+                project(null, "No id"),
+                project(ids.get(2), "")), null));
+
+        assertEquals(List.of(Outcome.UPDATED, Outcome.NOT_FOUND, Outcome.INVALID, Outcome.INVALID),
+                result.update().stream().map(Item::outcome).toList());
+        assertEquals("After", userProjectRepository.findById(ids.get(0)).orElseThrow().getName());
+        assertEquals("Before 2", userProjectRepository.findById(ids.get(2)).orElseThrow().getName());
+        assertEquals(1, projectSearchIndex.search("after", 10).size());
+    }
+
+    @Test
+    void delete_shouldRemoveExistingProjectsAndReportMissingOnes() {
+        List<Long> ids = createProjects("Doomed", 3);
+
+        ProjectBatchResult result = projectBatchService.apply(new ProjectBatchRequest(null, null,
+                Arrays.asList(ids.get(0), Long.MAX_VALUE, null, ids.get(1))));
+
+        assertEquals(List.of(Outcome.DELETED, Outcome.NOT_FOUND, Outcome.INVALID, Outcome.DELETED),
+                result.delete().stream().map(Item::outcome).toList());
+        assertEquals(List.of(ids.get(2)), userProjectRepository.findAll().stream().map(UserProject::getId).toList());
+        assertEquals(1, projectSearchIndex.search("doomed", 10).size());
+    }
+
+    @Test
+    void apply_shouldRollBackOnlyTheChunkThatFailed() {
+        List<UserProject> create = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            create.add(project(null, "Import " + i));
+        }
+        // longer than the column, so the second chunk fails when it is flushed
+        create.get(700).setDescription("x".repeat(300));
+
+        ProjectBatchResult result = projectBatchService.apply(new ProjectBatchRequest(create, null, null));
+
+        assertEquals(Outcome.CREATED, result.create().get(499).outcome());
+        assertEquals(Outcome.FAILED, result.create().get(500).outcome());
+        assertNotNull(result.create().get(500).error());
+        assertEquals(Outcome.FAILED, result.create().get(999).outcome());
+        assertEquals(500, userProjectRepository.count());
+        assertEquals(500, projectSearchIndex.size());
+    }
+
+    private List<Long> createProjects(String name, int count) {
+        List<UserProject> create = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            create.add(project(null, name + " " + i));
+        }
+        List<Long> ids = projectBatchService.apply(new ProjectBatchRequest(create, null, null)).create().stream()
+                .map(Item::id).toList();
+        statistics.clear();
+        return ids;
+    }
+
+    private static UserProject project(Long id, String name) {
+        UserProject project = new UserProject();
+        project.setId(id);
+        project.setName(name);
+        return project;
+    }
+}
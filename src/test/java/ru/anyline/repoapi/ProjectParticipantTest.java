@@ -0,0 +1,107 @@
+package ru.anyline.repoapi;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import ru.anyline.repoapi.exceptions.ProjectNotFoundException;
+import ru.anyline.repoapi.model.UserProject;
+import ru.anyline.repoapi.repository.ProjectParticipantRepository;
+import ru.anyline.repoapi.repository.UserProjectRepository;
+import ru.anyline.repoapi.service.ParticipantPage;
+import ru.anyline.repoapi.service.ProjectSearchIndex;
+import ru.anyline.repoapi.service.UserProjectServiceImpl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+class ProjectParticipantTest {
+
+    @Autowired
+    private UserProjectRepository userProjectRepository;
+
+    @Autowired
+    private ProjectParticipantRepository projectParticipantRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private UserProjectServiceImpl userProjectService;
+    private Long projectId;
+
+    @BeforeEach
+    void setUp() {
+        UserProject project = new UserProject();
+        project.setName("Onboarding");
+        projectId = userProjectRepository.save(project).getId();
+        entityManager.flush();
+        userProjectService = new UserProjectServiceImpl(userProjectRepository, projectParticipantRepository,
+                new ProjectSearchIndex());
+    }
+
+    @Test
+    void addParticipants_shouldStoreAWholeTeamAndSkipExistingMembers() {
+        assertEquals(5000, userProjectService.addParticipants(projectId, userIds(1, 5000)));
+
+        // overlaps the first batch and repeats an id within itself
+        List<Long> second = new ArrayList<>(userIds(4901, 5100));
+        second.add(5100L);
+        assertEquals(100, userProjectService.addParticipants(projectId, second));
+        assertEquals(5100, projectParticipantRepository.count());
+    }
+
+    @Test
+    void removeParticipants_shouldRemoveOnlyTheListedUsers() {
+        userProjectService.addParticipants(projectId, userIds(1, 10));
+
+        assertEquals(3, userProjectService.removeParticipants(projectId, List.of(2L, 4L, 6L, 99L)));
+        userProjectService.removeParticipantFromProject(projectId, 8L);
+
+        assertEquals(List.of(1L, 3L, 5L, 7L, 9L, 10L), userProjectService.getProjectParticipants(projectId, null, 100).userIds());
+    }
+
+    @Test
+    void getProjectParticipants_shouldPageInUserIdOrder() {
+        userProjectService.addParticipants(projectId, userIds(1, 250));
+
+        List<Long> seen = new ArrayList<>();
+        List<Integer> pageSizes = new ArrayList<>();
+        Long after = null;
+        do {
+            ParticipantPage page = userProjectService.getProjectParticipants(projectId, after, 100);
+            seen.addAll(page.userIds());
+            pageSizes.add(page.userIds().size());
+            after = page.nextAfter();
+        } while (after != null);
+
+        assertEquals(List.of(100, 100, 50), pageSizes);
+        assertEquals(userIds(1, 250), seen);
+    }
+
+    @Test
+    void deletingAProject_shouldRemoveItsParticipants() {
+        userProjectService.addParticipantToProject(projectId, 1L);
+        entityManager.clear();
+
+        userProjectRepository.deleteById(projectId);
+        entityManager.flush();
+
+        assertEquals(0, projectParticipantRepository.count());
+    }
+
+    @Test
+    void participantOperations_shouldRejectAnUnknownProject() {
+        assertThrows(ProjectNotFoundException.class, () -> userProjectService.addParticipants(-1L, List.of(1L)));
+        assertThrows(ProjectNotFoundException.class, () -> userProjectService.removeParticipants(-1L, List.of(1L)));
+        assertThrows(ProjectNotFoundException.class, () -> userProjectService.getProjectParticipants(-1L, null, 10));
+    }
+
+    private static List<Long> userIds(long from, long to) {
+        return LongStream.rangeClosed(from, to).boxed().toList();
+    }
+}
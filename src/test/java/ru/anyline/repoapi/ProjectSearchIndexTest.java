@@ -0,0 +1,121 @@
+package ru.anyline.repoapi;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.anyline.repoapi.model.UserProject;
+import ru.anyline.repoapi.service.ProjectSearchIndex;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProjectSearchIndexTest {
+
+    private ProjectSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ProjectSearchIndex();
+        index.rebuild(scan -> {
+            scan.accept(project(1L, "Weather station", "Reads sensors on the roof"));
+            scan.accept(project(2L, "station", null));
+            scan.accept(project(3L, "Stationery shop", "Paper and pens"));
+            scan.accept(project(4L, "Home automation", "Lights follow the weather station"));
+            scan.accept(project(5L, "Gas-station finder", "Cheapest fuel nearby"));
+            scan.accept(project(6L, null, "A project without a name, about stations"));
+        });
+    }
+
+    @Test
+    void search_shouldRankNameMatchesByPositionThenDescriptionMatches() {
+        List<Long> ids = ids(index.search("Station", 10));
+
+        // whole name, name prefix, shorter name first among word starts, then the descriptions
+        assertEquals(List.of(2L, 3L, 1L, 5L, 4L, 6L), ids);
+    }
+
+    @Test
+    void search_shouldMatchAcrossPunctuationAndCase() {
+        assertEquals(List.of(5L), ids(index.search("GAS STATION", 10)));
+        assertEquals(List.of(5L), ids(index.search("gas-station", 10)));
+    }
+
+    @Test
+    void search_shouldMatchTwoCharacterQueriesAtWordStartsOnly() {
+        assertEquals(List.of(4L), ids(index.search("ho", 10)));
+        assertTrue(index.search("s", 10).isEmpty());
+    }
+
+    @Test
+    void search_shouldHonourTheLimit() {
+        assertEquals(List.of(2L, 3L), ids(index.search("station", 2)));
+    }
+
+    @Test
+    void put_shouldReplaceTheIndexedCopyOfAnUpdatedProject() {
+        index.put(project(2L, "Radio", null));
+
+        assertEquals(List.of(3L, 1L, 5L), ids(index.search("station", 3)));
+        assertEquals(List.of(2L), ids(index.search("radio", 10)));
+        assertEquals(6, index.size());
+    }
+
+    @Test
+    void remove_shouldDropTheProjectFromResults() {
+        index.remove(3L);
+
+        assertFalse(ids(index.search("station", 10)).contains(3L));
+        assertEquals(5, index.size());
+    }
+
+    @Test
+    void search_shouldReturnCopiesThatDoNotChangeTheIndex() {
+        UserProject found = index.search("roof", 1).get(0);
+        found.setName("changed");
+
+        assertEquals("Weather station", index.search("roof", 1).get(0).getName());
+    }
+
+    @Test
+    void rebuild_shouldNotOverwriteWritesMadeWhileItStreams() {
+        ProjectSearchIndex rebuilding = new ProjectSearchIndex();
+        rebuilding.rebuild(scan -> {
+            scan.accept(project(1L, "Weather station", null));
+            // updated and deleted by requests while the table is being read
+            rebuilding.put(project(2L, "Updated name", null));
+            rebuilding.remove(3L);
+            scan.accept(project(2L, "Stale name", null));
+            scan.accept(project(3L, "Deleted project", null));
+        });
+
+        assertTrue(rebuilding.isReady());
+        assertEquals(List.of(2L), ids(rebuilding.search("updated", 10)));
+        assertTrue(rebuilding.search("stale", 10).isEmpty());
+        assertTrue(rebuilding.search("deleted", 10).isEmpty());
+    }
+
+    @Test
+    void put_shouldKeepResultsCorrectAcrossCompaction() {
+        for (int round = 0; round < 5; round++) {
+            for (long id = 100; id < 1100; id++) {
+                index.put(project(id, "bulk project " + id + " round " + round, null));
+            }
+        }
+
+        assertEquals(1006, index.size());
+        assertEquals(List.of(1099L), ids(index.search("project 1099 round 4", 10)));
+        assertTrue(index.search("round 3", 10).isEmpty());
+    }
+
+    private static List<Long> ids(List<UserProject> projects) {
+        return projects.stream().map(UserProject::getId).toList();
+    }
+
+    private static UserProject project(Long id, String name, String description) {
+        UserProject project = new UserProject();
+        project.setId(id);
+        project.setName(name);
+        project.setDescription(description);
+        return project;
+    }
+}
@@ -0,0 +1,42 @@
+package ru.anyline.repoapi;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// tests turn metrics export off unless asked
+@AutoConfigureObservability(tracing = false)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:prometheus",
+        // nothing listens there, so the lookup below fails fast instead of calling GitHub
+        "repoapi.github.base-url=http://127.0.0.1:9",
+        "repoapi.github.revalidation.enabled=false",
+        "repoapi.cache.redis-enabled=false"
+})
+class PrometheusEndpointTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Test
+    void prometheus_shouldBeScrapableWithoutLoggingIn() {
+        // a table lookup and a failed upstream call, so that their timers exist
+        restTemplate.getForEntity("/repos/octocat/hello-world", String.class);
+
+        ResponseEntity<String> response = restTemplate.getForEntity("/actuator/prometheus", String.class);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        String scrape = response.getBody();
+        assertTrue(scrape.contains("repoapi_github_in_flight{priority=\"interactive\""), scrape);
+        assertTrue(scrape.contains("repoapi_github_fetches_total"), scrape);
+        assertTrue(scrape.contains("spring_data_repository_invocations_seconds_bucket"), scrape);
+        assertTrue(scrape.contains("repoapi_github_requests_seconds_count{endpoint=\"repo\",priority=\"interactive\",status=\"IO_ERROR\""), scrape);
+    }
+}
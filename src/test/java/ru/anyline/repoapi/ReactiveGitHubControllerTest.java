@@ -0,0 +1,76 @@
+package ru.anyline.repoapi;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import ru.anyline.repoapi.controller.ReactiveGitHubController;
+import ru.anyline.repoapi.exceptions.RateLimitExceededException;
+import ru.anyline.repoapi.model.UserRepos;
+import ru.anyline.repoapi.service.GitHubBatchService;
+import ru.anyline.repoapi.service.GitHubMetrics;
+import ru.anyline.repoapi.service.GitHubServiceImpl;
+import ru.anyline.repoapi.service.ReactiveGitHubService;
+
+import java.net.ConnectException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ReactiveGitHubControllerTest {
+
+    private final ReactiveGitHubService reactiveGitHubService = mock(ReactiveGitHubService.class);
+    private final ReactiveGitHubController controller = new ReactiveGitHubController(reactiveGitHubService,
+            mock(GitHubServiceImpl.class), new ObjectMapper(), mock(GitHubMetrics.class), mock(GitHubBatchService.class));
+
+    @Test
+    void getRepositories_whenGitHubRateLimits_shouldReturnRetryAfter() {
+        when(reactiveGitHubService.getRepositories("octocat"))
+                .thenReturn(Mono.error(new RateLimitExceededException("GitHub rate limit exhausted", Duration.ofSeconds(30))));
+
+        ResponseEntity<List<UserRepos>> response = controller.getRepositories("octocat").block();
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, response.getStatusCode());
+        assertEquals("30", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+    }
+
+    @Test
+    void getRepositories_whenGitHubHasNoSuchUser_shouldReturnNotFound() {
+        when(reactiveGitHubService.getRepositories("ghost"))
+                .thenReturn(Mono.error(WebClientResponseException.create(404, "Not Found", null, null, null)));
+
+        ResponseEntity<List<UserRepos>> response = controller.getRepositories("ghost").block();
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        assertNull(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+    }
+
+    @Test
+    void getCustomRepository_whenGitHubAnswersWithServerError_shouldReturnBadGateway() {
+        when(reactiveGitHubService.getRepository("octocat", "Hello-World"))
+                .thenReturn(Mono.error(WebClientResponseException.create(500, "Internal Server Error", null, null, null)));
+
+        ResponseEntity<UserRepos> response = controller.getCustomRepository("octocat", "Hello-World").block();
+
+        assertEquals(HttpStatus.BAD_GATEWAY, response.getStatusCode());
+    }
+
+    @Test
+    void getRepositories_whenGitHubIsUnreachable_shouldReturnServiceUnavailable() {
+        when(reactiveGitHubService.getRepositories("octocat"))
+                .thenReturn(Mono.error(new WebClientRequestException(new ConnectException("Connection refused"),
+                        HttpMethod.GET, URI.create("https://api.github.com/users/octocat/repos"), new HttpHeaders())));
+
+        ResponseEntity<List<UserRepos>> response = controller.getRepositories("octocat").block();
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+    }
+}
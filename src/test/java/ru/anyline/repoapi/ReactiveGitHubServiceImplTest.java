@@ -0,0 +1,307 @@
+package ru.anyline.repoapi;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import ru.anyline.repoapi.config.GitHubProperties;
+import ru.anyline.repoapi.exceptions.RateLimitExceededException;
+import ru.anyline.repoapi.model.FetchState;
+import ru.anyline.repoapi.model.UserRepos;
+import ru.anyline.repoapi.repository.FetchStateRepository;
+import ru.anyline.repoapi.repository.Repository;
+import ru.anyline.repoapi.service.GitHubMetrics;
+import ru.anyline.repoapi.service.GitHubRateLimiter;
+import ru.anyline.repoapi.service.ReactiveGitHubClient;
+import ru.anyline.repoapi.service.ReactiveGitHubServiceImpl;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ReactiveGitHubServiceImplTest {
+
+    private static final int CALLERS = 32;
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    private final Map<String, List<UserRepos>> table = new ConcurrentHashMap<>();
+    private final Map<String, FetchState> fetchStates = new ConcurrentHashMap<>();
+    private final Set<String> tableThreads = ConcurrentHashMap.newKeySet();
+    private final Repository repository = mock(Repository.class);
+    private final FetchStateRepository fetchStateRepository = mock(FetchStateRepository.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicLong ids = new AtomicLong();
+    private final GitHubProperties properties = new GitHubProperties();
+
+    private GitHubStubServer gitHub;
+    private Scheduler persistenceScheduler;
+    private ReactiveGitHubServiceImpl gitHubService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        when(repository.findByUsernameKey(anyString()))
+                .thenAnswer(invocation -> table.getOrDefault(invocation.<String>getArgument(0), List.of()));
+        when(repository.readByUsernameKey(anyString())).thenAnswer(invocation -> {
+            tableThreads.add(Thread.currentThread().getName());
+            return table.getOrDefault(invocation.<String>getArgument(0), List.of());
+        });
+        when(repository.readByUsernameKeyAndRepoName(anyString(), anyString())).thenAnswer(invocation ->
+                table.getOrDefault(invocation.<String>getArgument(0), List.of()).stream()
+                        .filter(repo -> repo.getRepoName().equals(invocation.getArgument(1)))
+                        .findFirst()
+                        .orElse(null));
+        when(repository.saveAll(anyList())).thenAnswer(invocation -> {
+            tableThreads.add(Thread.currentThread().getName());
+            List<UserRepos> repos = invocation.getArgument(0);
+            repos.forEach(this::store);
+            return repos;
+        });
+        when(repository.save(any(UserRepos.class))).thenAnswer(invocation -> {
+            UserRepos repo = invocation.getArgument(0);
+            store(repo);
+            return repo;
+        });
+        when(repository.replaceListing(anyString(), anyList())).thenCallRealMethod();
+        when(fetchStateRepository.findById(anyString()))
+                .thenAnswer(invocation -> Optional.ofNullable(fetchStates.get(invocation.<String>getArgument(0))));
+        when(fetchStateRepository.save(any(FetchState.class))).thenAnswer(invocation -> {
+            FetchState state = invocation.getArgument(0);
+            fetchStates.put(state.getFetchKey(), state);
+            return state;
+        });
+
+        gitHub = new GitHubStubServer().latency(Duration.ofMillis(300));
+        properties.setBaseUrl(gitHub.baseUrl());
+        properties.setPageConcurrency(3);
+        persistenceScheduler = Schedulers.newBoundedElastic(4, 1000, "github-persistence");
+        WebClient webClient = WebClient.builder()
+                .clientConnector(new ReactorClientHttpConnector())
+                .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(16 * 1024 * 1024))
+                .build();
+        GitHubMetrics gitHubMetrics = new GitHubMetrics(meterRegistry);
+        gitHubService = new ReactiveGitHubServiceImpl(repository, fetchStateRepository,
+                new ReactiveGitHubClient(webClient, properties, new GitHubRateLimiter(properties), gitHubMetrics),
+                gitHubMetrics, properties, new ConcurrentMapCacheManager(), persistenceScheduler);
+    }
+
+    @AfterEach
+    void tearDown() {
+        gitHub.close();
+        persistenceScheduler.dispose();
+    }
+
+    @Test
+    void getRepositories_whenManyCallersMissConcurrently_shouldFetchUpstreamOnce() {
+        gitHub.stub("/users/octocat/repos",
+                "[{\"name\":\"hello-world\",\"html_url\":\"https://github.com/octocat/hello-world\"},"
+                        + "{\"name\":\"spoon-knife\",\"html_url\":\"https://github.com/octocat/spoon-knife\"}]");
+
+        List<List<UserRepos>> results = Flux.range(0, CALLERS)
+                .flatMap(i -> gitHubService.getRepositories("octocat"))
+                .collectList()
+                .block(TIMEOUT);
+
+        assertEquals(CALLERS, results.size());
+        assertEquals(1, gitHub.requestCount("/users/octocat/repos"));
+        verify(repository, times(1)).saveAll(anyList());
+        results.forEach(repos -> assertEquals(List.of("hello-world", "spoon-knife"),
+                repos.stream().map(UserRepos::getRepoName).toList()));
+    }
+
+    @Test
+    void getRepositories_whenListingSpansSeveralPages_shouldFetchRemainingPagesConcurrentlyAndKeepOrder() {
+        List<String> pages = IntStream.range(0, 7)
+                .mapToObj(page -> IntStream.range(page * 100, Math.min(page * 100 + 100, 650))
+                        .mapToObj(i -> "{\"name\":\"repo" + i + "\",\"html_url\":\"https://github.com/org/repo" + i + "\"}")
+                        .collect(Collectors.joining(",", "[", "]")))
+                .toList();
+        gitHub.stubPages("/users/org/repos", pages).latency(Duration.ofMillis(100));
+
+        List<UserRepos> repos = gitHubService.getRepositories("org").block(TIMEOUT);
+
+        assertEquals(IntStream.range(0, 650).mapToObj(i -> "repo" + i).toList(),
+                repos.stream().map(UserRepos::getRepoName).toList());
+        assertEquals(7, gitHub.requestCount("/users/org/repos"));
+        assertTrue(gitHub.maxConcurrentRequests() > 1);
+        assertTrue(gitHub.maxConcurrentRequests() <= 3);
+    }
+
+    @Test
+    void getRepositories_shouldRunTableWorkOnThePersistenceScheduler() {
+        stubHelloWorldListing();
+
+        gitHubService.getRepositories("octocat").block(TIMEOUT);
+
+        assertFalse(tableThreads.isEmpty());
+        tableThreads.forEach(thread -> assertTrue(thread.startsWith("github-persistence"), thread));
+    }
+
+    @Test
+    void getRepositories_whenCached_shouldNotReadTheTable() {
+        stubHelloWorldListing();
+        gitHubService.getRepositories("octocat").block(TIMEOUT);
+
+        gitHubService.getRepositories("OctoCat").block(TIMEOUT);
+
+        verify(repository, times(1)).readByUsernameKey("octocat");
+        assertEquals(1, gitHub.requestCount("/users/octocat/repos"));
+    }
+
+    @Test
+    void getRepositories_whenPastHardTtl_shouldRevalidateWithEtag() {
+        stubHelloWorldListing();
+        gitHubService.getRepositories("octocat").block(TIMEOUT);
+        ageFetch(FetchState.listingKey("octocat"), Duration.ofDays(2));
+        ReactiveGitHubServiceImpl uncached = serviceWithoutCache();
+
+        List<UserRepos> repos = uncached.getRepositories("octocat").block(TIMEOUT);
+
+        assertEquals(List.of("hello-world"), repos.stream().map(UserRepos::getRepoName).toList());
+        assertEquals(2, gitHub.requestCount("/users/octocat/repos"));
+        assertEquals(1, gitHub.notModifiedCount());
+        verify(repository, times(1)).saveAll(anyList());
+        assertTrue(Duration.between(fetchStates.get(FetchState.listingKey("octocat")).getFetchedAt(), Instant.now())
+                .compareTo(Duration.ofMinutes(1)) < 0);
+    }
+
+    @Test
+    void getRepositories_whenBetweenSoftAndHardTtl_shouldServeStaleAndRefreshInBackground() throws Exception {
+        stubHelloWorldListing();
+        List<UserRepos> fetched = gitHubService.getRepositories("octocat").block(TIMEOUT);
+        ageFetch(FetchState.listingKey("octocat"), Duration.ofHours(1));
+        ReactiveGitHubServiceImpl uncached = serviceWithoutCache();
+
+        assertEquals(fetched, uncached.getRepositories("octocat").block(TIMEOUT));
+
+        for (int i = 0; i < 50 && gitHub.notModifiedCount() == 0; i++) {
+            Thread.sleep(100);
+        }
+        assertEquals(2, gitHub.requestCount("/users/octocat/repos"));
+        assertEquals(1, gitHub.notModifiedCount());
+        assertEquals(1.0, fetchCount("stale_hit"));
+    }
+
+    @Test
+    void getRepository_whenManyCallersMissConcurrently_shouldFetchUpstreamOnce() {
+        gitHub.stub("/repos/octocat/hello-world",
+                "{\"name\":\"hello-world\",\"html_url\":\"https://github.com/octocat/hello-world\"}");
+
+        List<UserRepos> results = Flux.range(0, CALLERS)
+                .flatMap(i -> gitHubService.getRepository("octocat", "hello-world"))
+                .collectList()
+                .block(TIMEOUT);
+
+        assertEquals(CALLERS, results.size());
+        assertEquals(1, gitHub.requestCount("/repos/octocat/hello-world"));
+        verify(repository, times(1)).save(any(UserRepos.class));
+        results.forEach(repo -> assertEquals("https://github.com/octocat/hello-world", repo.getUrl()));
+    }
+
+    @Test
+    void getRepositories_whenOnlyASingleRepositoryIsStored_shouldFetchTheWholeListing() {
+        gitHub.stub("/repos/octocat/hello-world",
+                "{\"name\":\"hello-world\",\"html_url\":\"https://github.com/octocat/hello-world\"}")
+                .stub("/users/octocat/repos",
+                        "[{\"name\":\"hello-world\",\"html_url\":\"https://github.com/octocat/hello-world\"},"
+                                + "{\"name\":\"spoon-knife\",\"html_url\":\"https://github.com/octocat/spoon-knife\"}]")
+                .latency(Duration.ZERO);
+        gitHubService.getRepository("octocat", "hello-world").block(TIMEOUT);
+
+        List<UserRepos> repos = gitHubService.getRepositories("octocat").block(TIMEOUT);
+
+        assertEquals(List.of("hello-world", "spoon-knife"), repos.stream().map(UserRepos::getRepoName).toList());
+        assertEquals(1, gitHub.requestCount("/users/octocat/repos"));
+        assertEquals(0.0, fetchCount("stale_hit"));
+    }
+
+    @Test
+    void getRepositories_whenUpstreamFails_shouldPropagateErrorAndAllowRetry() {
+        gitHub.latency(Duration.ZERO);
+
+        Mono<List<UserRepos>> missing = gitHubService.getRepositories("ghost");
+        assertThrows(RuntimeException.class, () -> missing.block(TIMEOUT));
+        verify(repository, never()).saveAll(anyList());
+
+        gitHub.stub("/users/ghost/repos", "[]");
+        assertTrue(gitHubService.getRepositories("ghost").block(TIMEOUT).isEmpty());
+        assertEquals(2, gitHub.requestCount("/users/ghost/repos"));
+        assertEquals(1, upstreamCount("user_repos", "404"));
+    }
+
+    @Test
+    void getRepositories_whenGitHubRateLimits_shouldFailWithRetryAfter() throws Exception {
+        gitHub.secondaryRateLimit(Duration.ofSeconds(30)).latency(Duration.ZERO);
+
+        RateLimitExceededException e = assertThrows(RateLimitExceededException.class,
+                () -> gitHubService.getRepositories("octocat").block(TIMEOUT));
+
+        assertEquals(30, e.getRetryAfterSeconds());
+        // the call is finished once the error has been delivered
+        for (int i = 0; i < 50 && inFlight() > 0; i++) {
+            Thread.sleep(100);
+        }
+        assertEquals(0, inFlight());
+    }
+
+    private ReactiveGitHubServiceImpl serviceWithoutCache() {
+        GitHubMetrics gitHubMetrics = new GitHubMetrics(meterRegistry);
+        WebClient webClient = WebClient.builder().clientConnector(new ReactorClientHttpConnector()).build();
+        return new ReactiveGitHubServiceImpl(repository, fetchStateRepository,
+                new ReactiveGitHubClient(webClient, properties, new GitHubRateLimiter(properties), gitHubMetrics),
+                gitHubMetrics, properties, new ConcurrentMapCacheManager(), persistenceScheduler);
+    }
+
+    private void stubHelloWorldListing() {
+        gitHub.stub("/users/octocat/repos",
+                "[{\"name\":\"hello-world\",\"html_url\":\"https://github.com/octocat/hello-world\"}]")
+                .latency(Duration.ZERO);
+    }
+
+    private void ageFetch(String fetchKey, Duration age) {
+        fetchStates.get(fetchKey).setFetchedAt(Instant.now().minus(age));
+    }
+
+    private double fetchCount(String outcome) {
+        return meterRegistry.get("repoapi.github.fetches").tag("outcome", outcome).counter().count();
+    }
+
+    private double inFlight() {
+        return meterRegistry.get("repoapi.github.in.flight").tag("priority", "interactive").gauge().value();
+    }
+
+    private long upstreamCount(String endpoint, String status) {
+        return meterRegistry.get("repoapi.github.requests").tag("endpoint", endpoint).tag("status", status).timer().count();
+    }
+
+    private void store(UserRepos repo) {
+        if (repo.getId() == null) {
+            repo.setId(ids.incrementAndGet());
+        }
+        // keyed by (username, repo_name) like the table
+        table.merge(repo.getUsernameKey(), List.of(repo), (existing, added) -> {
+            List<UserRepos> merged = new ArrayList<>(existing);
+            merged.removeIf(stored -> stored.getRepoName().equals(repo.getRepoName()));
+            merged.addAll(added);
+            return merged;
+        });
+    }
+}
@@ -0,0 +1,97 @@
+package ru.anyline.repoapi;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import ru.anyline.repoapi.model.UserProject;
+import ru.anyline.repoapi.model.UserRepos;
+import ru.anyline.repoapi.repository.Repository;
+import ru.anyline.repoapi.repository.UserProjectRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class RepositoryBatchInsertTest {
+
+    @Autowired
+    private Repository repository;
+
+    @Autowired
+    private UserProjectRepository userProjectRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void saveAll_shouldInsertAThousandReposInBatches() {
+        List<UserRepos> repos = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            repos.add(new UserRepos(null, "octocat", "repository-" + i, "https://github.com/octocat/repository-" + i));
+        }
+
+        repository.saveAll(repos);
+        entityManager.flush();
+
+        assertEquals(1000, statistics.getEntityInsertCount());
+        // ten sequence round trips for the ids and ten 100-row insert batches
+        assertTrue(statistics.getPrepareStatementCount() <= 25,
+                "prepared " + statistics.getPrepareStatementCount() + " statements");
+        assertEquals(1000, repository.findByUsernameKey("octocat").size());
+    }
+
+    @Test
+    void saveAll_shouldBatchUpdatesOfLoadedRepos() {
+        List<UserRepos> repos = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            repos.add(new UserRepos(null, "octocat", "repository-" + i, "https://github.com/octocat/repository-" + i));
+        }
+        repository.saveAll(repos);
+        entityManager.flush();
+        statistics.clear();
+
+        repos.forEach(repo -> repo.setUrl(repo.getUrl() + "-renamed"));
+        repository.saveAll(repos);
+        entityManager.flush();
+
+        assertEquals(200, statistics.getEntityUpdateCount());
+        assertTrue(statistics.getPrepareStatementCount() <= 2,
+                "prepared " + statistics.getPrepareStatementCount() + " statements");
+    }
+
+    @Test
+    void saveAll_shouldInsertProjectsInBatches() {
+        List<UserProject> projects = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            UserProject project = new UserProject();
+            project.setName("project-" + i);
+            project.setUserId(1L);
+            projects.add(project);
+        }
+
+        userProjectRepository.saveAll(projects);
+        entityManager.flush();
+
+        assertEquals(100, statistics.getEntityInsertCount());
+        assertTrue(statistics.getPrepareStatementCount() <= 5,
+                "prepared " + statistics.getPrepareStatementCount() + " statements");
+    }
+}
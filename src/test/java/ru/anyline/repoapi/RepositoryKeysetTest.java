@@ -0,0 +1,70 @@
+package ru.anyline.repoapi;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import ru.anyline.repoapi.model.UserRepos;
+import ru.anyline.repoapi.repository.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+class RepositoryKeysetTest {
+
+    private static final int STORED = 250;
+
+    @Autowired
+    private Repository repository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @BeforeEach
+    void setUp() {
+        List<UserRepos> repos = new ArrayList<>();
+        for (int i = 0; i < STORED; i++) {
+            repos.add(new UserRepos(null, "user" + i % 7, "repository-" + i, "https://github.com/user/repository-" + i));
+        }
+        repository.saveAll(repos);
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void readPageAfter_shouldWalkTheTableInIdOrderWithoutGapsOrRepeats() {
+        List<Long> ids = new ArrayList<>();
+        List<Integer> pageSizes = new ArrayList<>();
+        long after = 0;
+        List<UserRepos> page;
+        do {
+            page = repository.readPageAfter(after, Limit.of(100));
+            pageSizes.add(page.size());
+            page.forEach(repo -> ids.add(repo.getId()));
+            if (!page.isEmpty()) {
+                after = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == 100);
+
+        assertEquals(List.of(100, 100, 50), pageSizes);
+        assertEquals(ids.stream().sorted().distinct().toList(), ids);
+        assertEquals(STORED, ids.size());
+    }
+
+    @Test
+    void forEachStored_shouldVisitEveryRowInIdOrder() {
+        List<UserRepos> visited = new ArrayList<>();
+
+        repository.forEachStored(visited::add);
+
+        assertEquals(STORED, visited.size());
+        assertEquals(visited.stream().map(UserRepos::getId).sorted().toList(),
+                visited.stream().map(UserRepos::getId).toList());
+        assertEquals("user0", visited.get(0).getUsernameKey());
+    }
+}
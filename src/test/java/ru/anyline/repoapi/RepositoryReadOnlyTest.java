@@ -0,0 +1,86 @@
+package ru.anyline.repoapi;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.anyline.repoapi.model.UserRepos;
+import ru.anyline.repoapi.repository.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// without the test transaction, so that every repository call runs in a transaction of its own as in production
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class RepositoryReadOnlyTest {
+
+    private static final int STORED = 300;
+
+    @Autowired
+    private Repository repository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        List<UserRepos> repos = new ArrayList<>();
+        for (int i = 0; i < STORED; i++) {
+            repos.add(new UserRepos(null, "Octocat", "repository-" + i, "https://github.com/octocat/repository-" + i));
+        }
+        repository.saveAll(repos);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        repository.deleteAllInBatch();
+    }
+
+    @Test
+    void readByUsernameKey_shouldNotLoadEntitiesOrFlush() {
+        List<UserRepos> read = repository.readByUsernameKey("octocat");
+
+        assertEquals(STORED, read.size());
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(0, statistics.getFlushCount());
+        assertEquals("Octocat", read.get(0).getUsername());
+        assertEquals("octocat", read.get(0).getUsernameKey());
+
+        // what the managed variant costs, for contrast
+        repository.findByUsernameKey("octocat");
+        assertEquals(STORED, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void readByUsernameKeyAndRepoName_shouldReturnADetachedCopy() {
+        UserRepos read = repository.readByUsernameKeyAndRepoName("octocat", "repository-7");
+        read.setUrl("https://example.com/changed");
+
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals("https://github.com/octocat/repository-7",
+                repository.readByUsernameKeyAndRepoName("octocat", "repository-7").getUrl());
+        assertNull(repository.readByUsernameKeyAndRepoName("octocat", "missing"));
+    }
+
+    @Test
+    void readPageAfter_shouldNotLoadEntities() {
+        List<UserRepos> page = repository.readPageAfter(0, Limit.of(100));
+
+        assertEquals(100, page.size());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+}
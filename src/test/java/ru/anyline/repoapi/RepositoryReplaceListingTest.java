@@ -0,0 +1,79 @@
+package ru.anyline.repoapi;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import ru.anyline.repoapi.model.UserRepos;
+import ru.anyline.repoapi.repository.Repository;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+class RepositoryReplaceListingTest {
+
+    @Autowired
+    private Repository repository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void replaceListing_shouldUpdateKeptRowsInPlaceAndDropMissingOnes() {
+        List<UserRepos> first = repository.replaceListing("octocat", List.of(
+                repo("hello-world", "https://github.com/octocat/hello-world"),
+                repo("spoon-knife", "https://github.com/octocat/spoon-knife")));
+        Long helloWorldId = first.get(0).getId();
+        entityManager.flush();
+        entityManager.clear();
+
+        List<UserRepos> second = repository.replaceListing("octocat", List.of(
+                repo("hello-world", "https://github.com/octo-org/hello-world"),
+                repo("linguist", "https://github.com/octocat/linguist")));
+        entityManager.flush();
+        entityManager.clear();
+
+        assertEquals(helloWorldId, second.get(0).getId());
+        assertEquals("https://github.com/octo-org/hello-world",
+                repository.readByUsernameKeyAndRepoName("octocat", "hello-world").getUrl());
+        assertNull(repository.readByUsernameKeyAndRepoName("octocat", "spoon-knife"));
+        assertEquals(2, repository.findByUsernameKey("octocat").size());
+    }
+
+    @Test
+    void replaceListing_whenGitHubRepeatsAnEntry_shouldStoreItOnce() {
+        repository.replaceListing("octocat", List.of(
+                repo("hello-world", "https://github.com/octocat/hello-world"),
+                repo("hello-world", "https://github.com/octocat/hello-world")));
+        entityManager.flush();
+
+        assertEquals(1, repository.findByUsernameKey("octocat").size());
+    }
+
+    @Test
+    void findByUsernameKey_shouldMatchLoginsInAnyCase() {
+        repository.saveAndFlush(new UserRepos(null, "Octocat", "hello-world", "https://github.com/octocat/hello-world"));
+
+        List<UserRepos> found = repository.findByUsernameKey(UserRepos.usernameKey("OCTOCAT"));
+
+        assertEquals(1, found.size());
+        assertEquals("Octocat", found.get(0).getUsername());
+        assertThrows(DataIntegrityViolationException.class, () -> repository.saveAndFlush(
+                new UserRepos(null, "octocat", "hello-world", "https://github.com/octocat/hello-world")));
+    }
+
+    @Test
+    void save_whenRepositoryIsAlreadyStored_shouldViolateTheUniqueKey() {
+        repository.saveAndFlush(repo("hello-world", "https://github.com/octocat/hello-world"));
+
+        assertThrows(DataIntegrityViolationException.class,
+                () -> repository.saveAndFlush(repo("hello-world", "https://github.com/octocat/hello-world")));
+    }
+
+    private static UserRepos repo(String name, String url) {
+        return new UserRepos(null, "octocat", name, url);
+    }
+}
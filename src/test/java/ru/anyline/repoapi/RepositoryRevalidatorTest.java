@@ -0,0 +1,83 @@
+package ru.anyline.repoapi;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.client.HttpClientErrorException;
+import ru.anyline.repoapi.config.GitHubProperties;
+import ru.anyline.repoapi.model.FetchState;
+import ru.anyline.repoapi.repository.FetchStateRepository;
+import ru.anyline.repoapi.service.GitHubCallPriority;
+import ru.anyline.repoapi.service.GitHubServiceImpl;
+import ru.anyline.repoapi.service.RepositoryRevalidator;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+// without the test transaction, so that the backoff the revalidator writes is what the next run reads
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class RepositoryRevalidatorTest {
+
+    @Autowired
+    private FetchStateRepository fetchStateRepository;
+
+    private final GitHubServiceImpl gitHubService = mock(GitHubServiceImpl.class);
+    private final GitHubProperties properties = new GitHubProperties();
+    private RepositoryRevalidator revalidator;
+
+    @BeforeEach
+    void setUp() {
+        properties.getRevalidation().setBatchSize(2);
+        revalidator = new RepositoryRevalidator(fetchStateRepository, gitHubService, properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        fetchStateRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void revalidate_whenEntriesKeepFailing_shouldBackThemOffAndReachTheRest() {
+        storeListing("broken", Duration.ofDays(3));
+        storeListing("flaky", Duration.ofDays(2));
+        storeListing("octocat", Duration.ofDays(1));
+        when(gitHubService.refreshRepositories(eq("broken"), any())).thenThrow(new IllegalStateException("boom"));
+        when(gitHubService.refreshRepositories(eq("flaky"), any())).thenThrow(new IllegalStateException("boom"));
+
+        revalidator.revalidate();
+        revalidator.revalidate();
+
+        verify(gitHubService, times(1)).refreshRepositories("broken", GitHubCallPriority.BACKGROUND);
+        verify(gitHubService, times(1)).refreshRepositories("flaky", GitHubCallPriority.BACKGROUND);
+        verify(gitHubService).refreshRepositories("octocat", GitHubCallPriority.BACKGROUND);
+        FetchState broken = fetchStateRepository.findById(FetchState.listingKey("broken")).orElseThrow();
+        assertTrue(broken.getRevalidateAfter().isAfter(Instant.now().plus(Duration.ofHours(5))));
+    }
+
+    @Test
+    void revalidate_whenGitHubAnswersNotFound_shouldForgetTheEntry() {
+        storeListing("ghost", Duration.ofDays(1));
+        when(gitHubService.refreshRepositories(eq("ghost"), any()))
+                .thenThrow(HttpClientErrorException.create(HttpStatus.NOT_FOUND, "Not Found", null, null, null));
+
+        revalidator.revalidate();
+
+        verify(gitHubService).forget("ghost", null);
+        assertNull(fetchStateRepository.findById(FetchState.listingKey("ghost")).orElseThrow().getRevalidateAfter());
+    }
+
+    private void storeListing(String username, Duration age) {
+        fetchStateRepository.save(new FetchState(FetchState.listingKey(username), username, null, "\"etag\"", null,
+                Instant.now().minus(age), null));
+    }
+}
@@ -0,0 +1,119 @@
+package ru.anyline.repoapi;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+import ru.anyline.repoapi.config.HttpClientProperties;
+import ru.anyline.repoapi.config.RestTemplateConfig;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RestTemplateConfigTest {
+
+    private static final String PATH = "/users/octocat/repos";
+    private static final String BODY = "[{\"name\":\"hello-world\",\"html_url\":\"https://github.com/octocat/hello-world\"}]";
+
+    private final RestTemplateConfig config = new RestTemplateConfig();
+    private final HttpClientProperties properties = new HttpClientProperties();
+
+    private GitHubStubServer gitHub;
+    private PoolingHttpClientConnectionManager connectionManager;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        gitHub = new GitHubStubServer().stub(PATH, BODY);
+    }
+
+    @AfterEach
+    void tearDown() {
+        gitHub.close();
+        if (connectionManager != null) {
+            connectionManager.close();
+        }
+    }
+
+    @Test
+    void restTemplate_shouldDecompressGzipResponses() {
+        RestTemplate restTemplate = restTemplate();
+
+        assertEquals(BODY, restTemplate.getForObject(gitHub.baseUrl() + PATH, String.class));
+        assertEquals(1, gitHub.gzippedCount());
+    }
+
+    @Test
+    void restTemplate_withCompressionDisabled_shouldNotAskForGzip() {
+        properties.setCompression(false);
+        RestTemplate restTemplate = restTemplate();
+
+        assertEquals(BODY, restTemplate.getForObject(gitHub.baseUrl() + PATH, String.class));
+        assertEquals(0, gitHub.gzippedCount());
+    }
+
+    @Test
+    void restTemplate_shouldNotOpenMoreConnectionsPerRouteThanConfigured() {
+        properties.setMaxConnectionsPerRoute(2);
+        gitHub.latency(Duration.ofMillis(200));
+        RestTemplate restTemplate = restTemplate();
+
+        List<CompletableFuture<String>> calls = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            calls.add(CompletableFuture.supplyAsync(() -> restTemplate.getForObject(gitHub.baseUrl() + PATH, String.class)));
+        }
+        calls.forEach(call -> assertEquals(BODY, call.join()));
+
+        assertEquals(2, gitHub.maxConcurrentRequests());
+    }
+
+    @Test
+    void restTemplate_whenPoolIsExhausted_shouldFailAfterConnectionRequestTimeout() {
+        properties.setMaxConnectionsPerRoute(1);
+        properties.setConnectionRequestTimeout(Duration.ofMillis(50));
+        gitHub.latency(Duration.ofMillis(500));
+        RestTemplate restTemplate = restTemplate();
+
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> restTemplate.getForObject(gitHub.baseUrl() + PATH, String.class));
+        awaitLeased(1);
+
+        assertThrows(ResourceAccessException.class, () -> restTemplate.getForObject(gitHub.baseUrl() + PATH, String.class));
+        assertEquals(BODY, first.join());
+    }
+
+    @Test
+    void httpConnectionPoolMetrics_shouldExposePoolGauges() {
+        properties.setMaxConnectionsPerRoute(7);
+        restTemplate();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+        config.httpConnectionPoolMetrics(connectionManager).bindTo(registry);
+
+        assertEquals(7, registry.get("httpcomponents.httpclient.pool.route.max.default").gauge().value());
+        assertNotNull(registry.get("httpcomponents.httpclient.pool.total.pending").gauge());
+        assertNotNull(registry.get("httpcomponents.httpclient.pool.total.connections").tag("state", "leased").gauge());
+    }
+
+    private RestTemplate restTemplate() {
+        connectionManager = config.httpConnectionManager(properties);
+        return config.restTemplate(new RestTemplateBuilder(), properties, connectionManager);
+    }
+
+    private void awaitLeased(int leased) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(2).toNanos();
+        while (connectionManager.getTotalStats().getLeased() < leased) {
+            if (System.nanoTime() > deadline) {
+                fail("connection was never leased");
+            }
+            Thread.onSpinWait();
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package ru.anyline.repoapi;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import ru.anyline.repoapi.cache.CacheInvalidationPublisher;
+import ru.anyline.repoapi.cache.CacheNames;
+import ru.anyline.repoapi.cache.TwoTierCacheManager;
+import ru.anyline.repoapi.config.RepoCacheProperties;
+import ru.anyline.repoapi.model.UserRepos;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Runs two "nodes" against an in-process stand-in for Redis: a shared map-backed cache as L2 and a
+ * synchronous bus in place of the pub/sub channel.
+ */
+class TwoTierCacheTest {
+
+    private final Map<String, Cache> sharedTier = new ConcurrentHashMap<>();
+    private final List<TwoTierCacheManager> nodes = new ArrayList<>();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private TwoTierCacheManager nodeA;
+    private TwoTierCacheManager nodeB;
+
+    @BeforeEach
+    void setUp() {
+        nodeA = startNode();
+        nodeB = startNode();
+    }
+
+    @Test
+    void get_whenOnlySharedTierHasEntry_shouldPopulateLocalTier() {
+        List<UserRepos> repos = repos("octocat", "hello-world");
+        nodeA.getCache(CacheNames.REPOS).put("octocat", repos);
+
+        assertEquals(repos, nodeB.getCache(CacheNames.REPOS).get("octocat").get());
+
+        sharedTier.get(CacheNames.REPOS).clear();
+        assertEquals(repos, nodeB.getCache(CacheNames.REPOS).get("octocat").get());
+    }
+
+    @Test
+    void put_shouldInvalidateLocalCopiesOnOtherNodes() {
+        nodeA.getCache(CacheNames.REPOS).put("octocat", repos("octocat", "hello-world"));
+        nodeB.getCache(CacheNames.REPOS).get("octocat");
+
+        List<UserRepos> updated = repos("octocat", "hello-world", "linguist");
+        nodeA.getCache(CacheNames.REPOS).put("octocat", updated);
+
+        assertEquals(updated, nodeB.getCache(CacheNames.REPOS).get("octocat").get());
+    }
+
+    @Test
+    void evict_shouldRemoveEntryFromBothTiersOnEveryNode() {
+        nodeA.getCache(CacheNames.REPOS).put("octocat", repos("octocat", "hello-world"));
+        nodeB.getCache(CacheNames.REPOS).get("octocat");
+
+        nodeA.getCache(CacheNames.REPOS).evict("octocat");
+
+        assertNull(sharedTier.get(CacheNames.REPOS).get("octocat"));
+        assertNull(nodeA.getCache(CacheNames.REPOS).get("octocat"));
+        assertNull(nodeB.getCache(CacheNames.REPOS).get("octocat"));
+    }
+
+    @Test
+    void clear_shouldClearLocalTiersOnOtherNodes() {
+        nodeA.getCache(CacheNames.REPOS).put("octocat", repos("octocat", "hello-world"));
+        nodeB.getCache(CacheNames.REPOS).get("octocat");
+
+        nodeA.getCache(CacheNames.REPOS).clear();
+
+        assertNull(nodeB.getCache(CacheNames.REPOS).get("octocat"));
+    }
+
+    @Test
+    void get_withValueLoader_shouldLoadOnceAndShareThroughSharedTier() {
+        List<UserRepos> repos = repos("octocat", "hello-world");
+
+        assertEquals(repos, nodeA.getCache(CacheNames.REPOS).get("octocat", () -> repos));
+
+        assertEquals(repos, nodeB.getCache(CacheNames.REPOS).get("octocat", () -> fail("should be served from L2")));
+    }
+
+    @Test
+    void get_withValueLoader_shouldRunOneLoaderForConcurrentCallers() throws Exception {
+        List<UserRepos> repos = repos("octocat", "hello-world");
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Cache cache = nodeA.getCache(CacheNames.REPOS);
+
+        CompletableFuture<Object> leader = CompletableFuture.supplyAsync(() -> cache.get("octocat", () -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            release.await();
+            return repos;
+        }));
+        loading.await();
+        CompletableFuture<Object> follower = CompletableFuture.supplyAsync(() -> cache.get("octocat", () -> {
+            loads.incrementAndGet();
+            return repos;
+        }));
+        release.countDown();
+
+        assertEquals(repos, leader.get(5, TimeUnit.SECONDS));
+        assertEquals(repos, follower.get(5, TimeUnit.SECONDS));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void get_whenValueLoaderThrows_shouldWrapInValueRetrievalException() {
+        Cache cache = nodeA.getCache(CacheNames.REPOS);
+
+        assertThrows(Cache.ValueRetrievalException.class, () -> cache.get("octocat", () -> {
+            throw new IOException("GitHub is down");
+        }));
+        assertNull(cache.get("octocat"));
+    }
+
+    @Test
+    void operations_whenSharedTierIsDown_shouldFallBackToLocalTier() {
+        Cache brokenTier = mock(Cache.class);
+        RedisConnectionFailureException down = new RedisConnectionFailureException("Connection refused");
+        when(brokenTier.get(any())).thenThrow(down);
+        doThrow(down).when(brokenTier).put(any(), any());
+        doThrow(down).when(brokenTier).evict(any());
+        TwoTierCacheManager node = new TwoTierCacheManager(new RepoCacheProperties(), name -> brokenTier,
+                (cacheName, key) -> { }, meterRegistry);
+        List<UserRepos> repos = repos("octocat", "hello-world");
+
+        node.getCache(CacheNames.REPOS).put("octocat", repos);
+        assertEquals(repos, node.getCache(CacheNames.REPOS).get("octocat").get());
+
+        node.getCache(CacheNames.REPOS).evict("octocat");
+        assertNull(node.getCache(CacheNames.REPOS).get("octocat"));
+        assertEquals(1, gets("l2", "error"));
+    }
+
+    @Test
+    void get_shouldCountReadsPerTier() {
+        TwoTierCacheManager node = new TwoTierCacheManager(new RepoCacheProperties(),
+                name -> sharedTier.computeIfAbsent(name, ConcurrentMapCache::new), (cacheName, key) -> { }, meterRegistry);
+        sharedTier.computeIfAbsent(CacheNames.REPOS, ConcurrentMapCache::new).put("octocat", repos("octocat", "hello-world"));
+
+        node.getCache(CacheNames.REPOS).get("octocat");
+        node.getCache(CacheNames.REPOS).get("octocat");
+        node.getCache(CacheNames.REPOS).get("ghost");
+
+        assertEquals(1, gets("l1", "hit"));
+        assertEquals(2, gets("l1", "miss"));
+        assertEquals(1, gets("l2", "hit"));
+        assertEquals(1, gets("l2", "miss"));
+    }
+
+    private double gets(String tier, String result) {
+        return meterRegistry.get("repoapi.cache.gets").tag("cache", CacheNames.REPOS).tag("tier", tier).tag("result", result)
+                .counter().count();
+    }
+
+    private TwoTierCacheManager startNode() {
+        int nodeIndex = nodes.size();
+        CacheInvalidationPublisher bus = (cacheName, key) -> {
+            for (int i = 0; i < nodes.size(); i++) {
+                if (i != nodeIndex) {
+                    nodes.get(i).onRemoteInvalidation(cacheName, key);
+                }
+            }
+        };
+        TwoTierCacheManager node = new TwoTierCacheManager(new RepoCacheProperties(),
+                name -> sharedTier.computeIfAbsent(name, ConcurrentMapCache::new), bus, new SimpleMeterRegistry());
+        nodes.add(node);
+        return node;
+    }
+
+    private static List<UserRepos> repos(String username, String... repoNames) {
+        List<UserRepos> repos = new ArrayList<>();
+        for (String repoName : repoNames) {
+            repos.add(new UserRepos(null, username, repoName, "https://github.com/" + username + "/" + repoName));
+        }
+        return repos;
+    }
+}
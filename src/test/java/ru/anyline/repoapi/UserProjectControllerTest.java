@@ -1,21 +1,29 @@
 package ru.anyline.repoapi;
 
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import ru.anyline.repoapi.controller.UserProjectController;
 import ru.anyline.repoapi.exceptions.ProjectNotFoundException;
 import ru.anyline.repoapi.model.UserProject;
+import ru.anyline.repoapi.repository.ProjectSort;
+import ru.anyline.repoapi.service.ParticipantPage;
+import ru.anyline.repoapi.service.ProjectPage;
 import ru.anyline.repoapi.service.UserProjectServiceImpl;
 
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
+import java.util.stream.LongStream;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
 
@@ -27,6 +35,11 @@ class UserProjectControllerTest {
     @InjectMocks
     private UserProjectController userProjectController;
 
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.initMocks(this);
+    }
+
     @Test
     void createProject_shouldReturnCreatedStatus() {
         UserProject project = new UserProject();
@@ -141,26 +154,124 @@ class UserProjectControllerTest {
     }
 
     @Test
-    void getAllProjects_shouldReturnAllProjects() {
-        List<UserProject> expectedProjects = Arrays.asList(new UserProject(), new UserProject());
-        when(userProjectService.getAllProjects()).thenReturn(expectedProjects);
+    void getAllProjects_shouldReturnFirstPageInIdOrderByDefault() {
+        ProjectPage expectedPage = new ProjectPage(Arrays.asList(new UserProject(), new UserProject()), "next");
+        when(userProjectService.getProjects(null, ProjectSort.ID, false, null, 100)).thenReturn(expectedPage);
 
-        ResponseEntity<List<UserProject>> response = userProjectController.getAllProjects();
+        ResponseEntity<ProjectPage> response = userProjectController.getAllProjects("id", "asc", null, 100);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
-        assertEquals(expectedProjects, response.getBody());
-        verify(userProjectService).getAllProjects();
+        assertEquals(expectedPage, response.getBody());
+        verify(userProjectService).getProjects(null, ProjectSort.ID, false, null, 100);
+    }
+
+    @Test
+    void getAllProjects_shouldPassSortOrderAndCursorToService() {
+        ProjectPage expectedPage = new ProjectPage(List.of(), null);
+        when(userProjectService.getProjects(null, ProjectSort.USER_ID, true, "cursor", 20)).thenReturn(expectedPage);
+
+        ResponseEntity<ProjectPage> response = userProjectController.getAllProjects("userId", "desc", "cursor", 20);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(expectedPage, response.getBody());
+    }
+
+    @Test
+    void getAllProjects_shouldReturnBadRequestForUnknownSortOrderOrLimit() {
+        assertEquals(HttpStatus.BAD_REQUEST, userProjectController.getAllProjects("description", "asc", null, 100).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, userProjectController.getAllProjects("name", "up", null, 100).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, userProjectController.getAllProjects("name", "asc", null, 0).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, userProjectController.getAllProjects("name", "asc", null, 1001).getStatusCode());
+
+        verify(userProjectService, never()).getProjects(any(), any(), anyBoolean(), any(), anyInt());
+    }
+
+    @Test
+    void getAllProjects_shouldReturnBadRequestWhenCursorIsRejected() {
+        when(userProjectService.getProjects(null, ProjectSort.NAME, false, "stale", 100))
+                .thenThrow(new IllegalArgumentException("Cursor was not issued for sort name.asc"));
+
+        ResponseEntity<ProjectPage> response = userProjectController.getAllProjects("name", "asc", "stale", 100);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertNull(response.getBody());
     }
 
     @Test
     void getAllProjects_shouldHandleExceptionWhenServiceThrowsException() {
-        when(userProjectService.getAllProjects()).thenThrow(new RuntimeException("Service error"));
+        when(userProjectService.getProjects(null, ProjectSort.ID, false, null, 100)).thenThrow(new RuntimeException("Service error"));
 
-        ResponseEntity<List<UserProject>> response = userProjectController.getAllProjects();
+        ResponseEntity<ProjectPage> response = userProjectController.getAllProjects("id", "asc", null, 100);
 
         assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
         assertNull(response.getBody());
-        verify(userProjectService).getAllProjects();
+        verify(userProjectService).getProjects(null, ProjectSort.ID, false, null, 100);
+    }
+
+    @Test
+    void searchProjects_shouldReturnRankedMatchesFromService() {
+        List<UserProject> expectedProjects = Arrays.asList(new UserProject(), new UserProject());
+        when(userProjectService.searchProjects("station", 20)).thenReturn(expectedProjects);
+
+        ResponseEntity<List<UserProject>> response = userProjectController.searchProjects("station", 20);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(expectedProjects, response.getBody());
+    }
+
+    @Test
+    void searchProjects_shouldReturnBadRequestForShortQueryOrLimitOutOfRange() {
+        assertEquals(HttpStatus.BAD_REQUEST, userProjectController.searchProjects(" a ", 20).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, userProjectController.searchProjects("station", 0).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, userProjectController.searchProjects("station", 101).getStatusCode());
+
+        verify(userProjectService, never()).searchProjects(any(), anyInt());
+    }
+
+    @Test
+    void addParticipants_shouldReportHowManyUsersWereAdded() {
+        List<Long> userIds = List.of(1L, 2L, 3L);
+        when(userProjectService.addParticipants(7L, userIds)).thenReturn(2);
+
+        ResponseEntity<Map<String, Integer>> response = userProjectController.addParticipants(7L, userIds);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(Map.of("added", 2), response.getBody());
+    }
+
+    @Test
+    void addParticipants_shouldReturnBadRequestForEmptyOversizedOrInvalidLists() {
+        List<Long> tooMany = LongStream.rangeClosed(1, 10_001).boxed().toList();
+
+        assertEquals(HttpStatus.BAD_REQUEST, userProjectController.addParticipants(7L, List.of()).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, userProjectController.addParticipants(7L, tooMany).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, userProjectController.addParticipants(7L, List.of(1L, -2L)).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, userProjectController.removeParticipants(7L, null).getStatusCode());
+
+        verify(userProjectService, never()).addParticipants(any(), any());
+        verify(userProjectService, never()).removeParticipants(any(), any());
+    }
+
+    @Test
+    void removeParticipants_shouldReturnNotFoundForUnknownProject() {
+        when(userProjectService.removeParticipants(7L, List.of(1L)))
+                .thenThrow(new ProjectNotFoundException("Project not found with id: 7"));
+
+        ResponseEntity<Map<String, Integer>> response = userProjectController.removeParticipants(7L, List.of(1L));
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+    }
+
+    @Test
+    void getParticipants_shouldReturnPageFromService() {
+        ParticipantPage expectedPage = new ParticipantPage(List.of(4L, 5L), 5L);
+        when(userProjectService.getProjectParticipants(7L, 3L, 2)).thenReturn(expectedPage);
+
+        ResponseEntity<ParticipantPage> response = userProjectController.getParticipants(7L, 3L, 2);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(expectedPage, response.getBody());
+        assertEquals(HttpStatus.BAD_REQUEST, userProjectController.getParticipants(7L, null, 0).getStatusCode());
     }
 
     @Test
@@ -516,127 +627,125 @@ class UserProjectControllerTest {
     }
 
     @Test
-    void getProjectsByUserId_shouldReturnOkStatusAndEmptyOptionalWhenNoProjectFound() {
+    void getProjectsByUserId_shouldReturnOkStatusAndEmptyPageWhenNoProjectFound() {
         Long userId = 1L;
-        when(userProjectService.getUserProjectById(userId)).thenReturn(Optional.empty());
+        when(userProjectService.getProjects(userId, ProjectSort.ID, false, null, 100)).thenReturn(new ProjectPage(List.of(), null));
 
-        ResponseEntity<Optional<UserProject>> response = userProjectController.getProjectsByUserId(userId);
+        ResponseEntity<ProjectPage> response = userProjectController.getProjectsByUserId(userId, "id", "asc", null, 100);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
-        assertTrue(Objects.requireNonNull(response.getBody()).isEmpty());
-        verify(userProjectService).getUserProjectById(userId);
+        assertTrue(Objects.requireNonNull(response.getBody()).items().isEmpty());
+        assertNull(response.getBody().nextCursor());
+        verify(userProjectService).getProjects(userId, ProjectSort.ID, false, null, 100);
     }
 
     @Test
     void getProjectsByUserId_shouldHandleServiceException() {
         Long userId = 1L;
-        when(userProjectService.getUserProjectById(userId)).thenThrow(new RuntimeException("Service error"));
+        when(userProjectService.getProjects(userId, ProjectSort.ID, false, null, 100)).thenThrow(new RuntimeException("Service error"));
 
-        ResponseEntity<Optional<UserProject>> response = userProjectController.getProjectsByUserId(userId);
+        ResponseEntity<ProjectPage> response = userProjectController.getProjectsByUserId(userId, "id", "asc", null, 100);
 
         assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
         assertNull(response.getBody());
-        verify(userProjectService).getUserProjectById(userId);
+        verify(userProjectService).getProjects(userId, ProjectSort.ID, false, null, 100);
     }
 
     @Test
     void getProjectsByUserId_shouldReturnBadRequestWhenUserIdIsNullOrNegative() {
-        ResponseEntity<Optional<UserProject>> responseNull = userProjectController.getProjectsByUserId(null);
+        ResponseEntity<ProjectPage> responseNull = userProjectController.getProjectsByUserId(null, "id", "asc", null, 100);
         assertEquals(HttpStatus.BAD_REQUEST, responseNull.getStatusCode());
         assertNull(responseNull.getBody());
 
-        ResponseEntity<Optional<UserProject>> responseNegative = userProjectController.getProjectsByUserId(-1L);
+        ResponseEntity<ProjectPage> responseNegative = userProjectController.getProjectsByUserId(-1L, "id", "asc", null, 100);
         assertEquals(HttpStatus.BAD_REQUEST, responseNegative.getStatusCode());
         assertNull(responseNegative.getBody());
 
-        verify(userProjectService, never()).getUserProjectById(any());
+        verify(userProjectService, never()).getProjects(any(), any(), anyBoolean(), any(), anyInt());
     }
 
     @Test
     void getProjectsByUserId_shouldReturnCorrectProjectData() {
         Long userId = 1L;
         UserProject expectedProject = new UserProject();
-        expectedProject.setId(userId);
+        expectedProject.setId(7L);
+        expectedProject.setUserId(userId);
         expectedProject.setName("Test Project");
         expectedProject.setDescription("Test Description");
 
-        when(userProjectService.getUserProjectById(userId)).thenReturn(Optional.of(expectedProject));
+        when(userProjectService.getProjects(userId, ProjectSort.NAME, false, null, 100))
+                .thenReturn(new ProjectPage(List.of(expectedProject), null));
 
-        ResponseEntity<Optional<UserProject>> response = userProjectController.getProjectsByUserId(userId);
+        ResponseEntity<ProjectPage> response = userProjectController.getProjectsByUserId(userId, "name", "asc", null, 100);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
-        assertTrue(Objects.requireNonNull(response.getBody()).isPresent());
-        UserProject actualProject = response.getBody().get();
+        assertEquals(1, Objects.requireNonNull(response.getBody()).items().size());
+        UserProject actualProject = response.getBody().items().get(0);
         assertEquals(expectedProject.getId(), actualProject.getId());
         assertEquals(expectedProject.getName(), actualProject.getName());
         assertEquals(expectedProject.getDescription(), actualProject.getDescription());
-        verify(userProjectService).getUserProjectById(userId);
+        verify(userProjectService).getProjects(userId, ProjectSort.NAME, false, null, 100);
     }
 
     @Test
     void getProjectsByUserId_shouldHandleVeryLargeUserIdValues() {
         Long veryLargeUserId = Long.MAX_VALUE;
         UserProject expectedProject = new UserProject();
-        expectedProject.setId(veryLargeUserId);
+        expectedProject.setId(1L);
+        expectedProject.setUserId(veryLargeUserId);
         expectedProject.setName("Large ID Project");
-        expectedProject.setDescription("Project with very large ID");
 
-        when(userProjectService.getUserProjectById(veryLargeUserId)).thenReturn(Optional.of(expectedProject));
+        when(userProjectService.getProjects(veryLargeUserId, ProjectSort.ID, false, null, 100))
+                .thenReturn(new ProjectPage(List.of(expectedProject), null));
 
-        ResponseEntity<Optional<UserProject>> response = userProjectController.getProjectsByUserId(veryLargeUserId);
+        ResponseEntity<ProjectPage> response = userProjectController.getProjectsByUserId(veryLargeUserId, "id", "asc", null, 100);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
-        assertTrue(Objects.requireNonNull(response.getBody()).isPresent());
-        UserProject actualProject = response.getBody().get();
-        assertEquals(veryLargeUserId, actualProject.getId());
-        assertEquals("Large ID Project", actualProject.getName());
-        assertEquals("Project with very large ID", actualProject.getDescription());
-        verify(userProjectService).getUserProjectById(veryLargeUserId);
+        assertEquals(veryLargeUserId, Objects.requireNonNull(response.getBody()).items().get(0).getUserId());
+        verify(userProjectService).getProjects(veryLargeUserId, ProjectSort.ID, false, null, 100);
     }
 
     @Test
-    void getProjectsByUserId_shouldHandleOptionalWithNullValue() {
+    void getProjectsByUserId_shouldReportTheNextCursor() {
         Long userId = 1L;
-        when(userProjectService.getUserProjectById(userId)).thenReturn(Optional.ofNullable(null));
+        when(userProjectService.getProjects(userId, ProjectSort.ID, true, "first", 2))
+                .thenReturn(new ProjectPage(List.of(new UserProject(), new UserProject()), "second"));
 
-        ResponseEntity<Optional<UserProject>> response = userProjectController.getProjectsByUserId(userId);
+        ResponseEntity<ProjectPage> response = userProjectController.getProjectsByUserId(userId, "id", "desc", "first", 2);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
-        assertTrue(Objects.requireNonNull(response.getBody()).isEmpty());
-        verify(userProjectService).getUserProjectById(userId);
+        assertEquals("second", Objects.requireNonNull(response.getBody()).nextCursor());
     }
 
     @Test
     void getProjectsByUserId_shouldNotModifyProjectDataBeforeReturning() {
         Long userId = 1L;
         UserProject originalProject = new UserProject();
-        originalProject.setId(userId);
+        originalProject.setId(3L);
+        originalProject.setUserId(userId);
         originalProject.setName("Original Project");
         originalProject.setDescription("Original Description");
 
-        when(userProjectService.getUserProjectById(userId)).thenReturn(Optional.of(originalProject));
+        when(userProjectService.getProjects(userId, ProjectSort.ID, false, null, 100))
+                .thenReturn(new ProjectPage(List.of(originalProject), null));
 
-        ResponseEntity<Optional<UserProject>> response = userProjectController.getProjectsByUserId(userId);
+        ResponseEntity<ProjectPage> response = userProjectController.getProjectsByUserId(userId, "id", "asc", null, 100);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
-        assertTrue(Objects.requireNonNull(response.getBody()).isPresent());
-        UserProject returnedProject = response.getBody().get();
+        UserProject returnedProject = Objects.requireNonNull(response.getBody()).items().get(0);
         assertEquals(originalProject.getId(), returnedProject.getId());
         assertEquals(originalProject.getName(), returnedProject.getName());
         assertEquals(originalProject.getDescription(), returnedProject.getDescription());
         assertSame(originalProject, returnedProject, "The returned project should be the same instance as the original");
-        verify(userProjectService).getUserProjectById(userId);
     }
 
     @Test
     void getProjectsByUserId_shouldHandleInvalidUserIdFormat() {
-        String invalidUserId = "abc";
-
-        ResponseEntity<Optional<UserProject>> response = userProjectController.getProjectsByUserId(null);
+        ResponseEntity<ProjectPage> response = userProjectController.getProjectsByUserId(null, "id", "asc", null, 100);
 
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
         assertNull(response.getBody());
-        verify(userProjectService, never()).getUserProjectById(any());
+        verify(userProjectService, never()).getProjects(any(), any(), anyBoolean(), any(), anyInt());
     }
 
     @Test
@@ -644,18 +753,19 @@ class UserProjectControllerTest {
         int numberOfRequests = 1000;
         CountDownLatch latch = new CountDownLatch(numberOfRequests);
         ExecutorService executorService = Executors.newFixedThreadPool(10);
-        List<Future<ResponseEntity<Optional<UserProject>>>> futures = new ArrayList<>();
+        List<Future<ResponseEntity<ProjectPage>>> futures = new ArrayList<>();
 
         UserProject mockProject = new UserProject();
         mockProject.setId(1L);
         mockProject.setName("Test Project");
-        when(userProjectService.getUserProjectById(anyLong())).thenReturn(Optional.of(mockProject));
+        when(userProjectService.getProjects(anyLong(), any(), anyBoolean(), any(), anyInt()))
+                .thenReturn(new ProjectPage(List.of(mockProject), null));
 
         long startTime = System.currentTimeMillis();
 
         for (int i = 0; i < numberOfRequests; i++) {
             futures.add(executorService.submit(() -> {
-                ResponseEntity<Optional<UserProject>> response = userProjectController.getProjectsByUserId(1L);
+                ResponseEntity<ProjectPage> response = userProjectController.getProjectsByUserId(1L, "id", "asc", null, 100);
                 latch.countDown();
                 return response;
             }));
@@ -664,16 +774,16 @@ class UserProjectControllerTest {
         latch.await(10, TimeUnit.SECONDS);
         long endTime = System.currentTimeMillis();
 
-        for (Future<ResponseEntity<Optional<UserProject>>> future : futures) {
-            ResponseEntity<Optional<UserProject>> response = future.get();
+        for (Future<ResponseEntity<ProjectPage>> future : futures) {
+            ResponseEntity<ProjectPage> response = future.get();
             assertEquals(HttpStatus.OK, response.getStatusCode());
-            assertTrue(Objects.requireNonNull(response.getBody()).isPresent());
+            assertFalse(Objects.requireNonNull(response.getBody()).items().isEmpty());
         }
 
         long duration = endTime - startTime;
         assertTrue(duration < 5000, "High volume concurrent requests took too long: " + duration + "ms");
 
-        verify(userProjectService, times(numberOfRequests)).getUserProjectById(anyLong());
+        verify(userProjectService, times(numberOfRequests)).getProjects(anyLong(), any(), anyBoolean(), any(), anyInt());
         executorService.shutdown();
     }
 
@@ -0,0 +1,134 @@
+package ru.anyline.repoapi;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import ru.anyline.repoapi.model.UserProject;
+import ru.anyline.repoapi.repository.ProjectCursor;
+import ru.anyline.repoapi.repository.ProjectParticipantRepository;
+import ru.anyline.repoapi.repository.ProjectSort;
+import ru.anyline.repoapi.repository.UserProjectRepository;
+import ru.anyline.repoapi.service.ProjectPage;
+import ru.anyline.repoapi.service.ProjectSearchIndex;
+import ru.anyline.repoapi.service.UserProjectServiceImpl;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+class UserProjectKeysetTest {
+
+    private static final int STORED = 230;
+    private static final int PAGE = 17;
+
+    @Autowired
+    private UserProjectRepository userProjectRepository;
+
+    @Autowired
+    private ProjectParticipantRepository projectParticipantRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private UserProjectServiceImpl userProjectService;
+    private List<UserProject> stored;
+
+    @BeforeEach
+    void setUp() {
+        List<UserProject> projects = new ArrayList<>();
+        for (int i = 0; i < STORED; i++) {
+            UserProject project = new UserProject();
+            // repeated and missing names and owners, so that ties and nulls cross page boundaries
+            project.setName(i % 11 == 0 ? null : "project-" + i % 13);
+            project.setUserId(i % 9 == 0 ? null : (long) (i % 4));
+            projects.add(project);
+        }
+        stored = userProjectRepository.saveAll(projects);
+        entityManager.flush();
+        entityManager.clear();
+        userProjectService = new UserProjectServiceImpl(userProjectRepository, projectParticipantRepository, new ProjectSearchIndex());
+    }
+
+    @Test
+    void getProjects_shouldWalkEveryOrderWithoutGapsOrRepeats() {
+        for (ProjectSort sort : ProjectSort.values()) {
+            for (boolean descending : new boolean[]{false, true}) {
+                for (Long userId : new Long[]{null, 2L}) {
+                    assertEquals(expected(userId, sort, descending), walk(userId, sort, descending),
+                            sort + (descending ? " desc" : " asc") + " for user " + userId);
+                }
+            }
+        }
+    }
+
+    @Test
+    void getProjects_shouldNotReportACursorOnTheLastPage() {
+        ProjectPage page = userProjectService.getProjects(3L, ProjectSort.ID, false, null, STORED);
+
+        assertNull(page.nextCursor());
+        assertEquals(expected(3L, ProjectSort.ID, false), page.items().stream().map(UserProject::getId).toList());
+    }
+
+    @Test
+    void getProjects_shouldRejectACursorIssuedForAnotherOrder() {
+        String cursor = userProjectService.getProjects(null, ProjectSort.NAME, false, null, PAGE).nextCursor();
+
+        assertThrows(IllegalArgumentException.class,
+                () -> userProjectService.getProjects(null, ProjectSort.NAME, true, cursor, PAGE));
+        assertThrows(IllegalArgumentException.class,
+                () -> userProjectService.getProjects(null, ProjectSort.USER_ID, false, cursor, PAGE));
+        assertThrows(IllegalArgumentException.class,
+                () -> userProjectService.getProjects(null, ProjectSort.NAME, false, "not a cursor", PAGE));
+    }
+
+    @Test
+    void projectCursor_shouldRoundTripNamesWithSeparators() {
+        ProjectCursor cursor = new ProjectCursor(ProjectSort.NAME, false, "a:b=-", 42);
+
+        assertEquals(cursor, ProjectCursor.decode(cursor.encode(), ProjectSort.NAME, false));
+    }
+
+    @Test
+    void perUserNamePage_shouldBeReadFromTheIndex() {
+        // the shape UserProjectPagesImpl queries a page after a cursor with
+        String plan = (String) entityManager.createNativeQuery("explain select * from user_project"
+                + " where user_id = 2 and name >= 'project-5' and (name > 'project-5' or id > 40)"
+                + " order by name nulls first, id fetch first 17 rows only").getSingleResult();
+
+        assertTrue(plan.contains("IX_USER_PROJECT_USER_ID_NAME: USER_ID = CAST(2 AS BIGINT)\n        AND NAME >= 'project-5'"), plan);
+    }
+
+    private List<Long> walk(Long userId, ProjectSort sort, boolean descending) {
+        List<Long> ids = new ArrayList<>();
+        String cursor = null;
+        do {
+            ProjectPage page = userProjectService.getProjects(userId, sort, descending, cursor, PAGE);
+            assertTrue(page.items().size() <= PAGE);
+            page.items().forEach(project -> ids.add(project.getId()));
+            cursor = page.nextCursor();
+        } while (cursor != null);
+        return ids;
+    }
+
+    private List<Long> expected(Long userId, ProjectSort sort, boolean descending) {
+        Function<UserProject, Comparable> key = switch (sort) {
+            case ID -> UserProject::getId;
+            case NAME -> UserProject::getName;
+            case USER_ID -> UserProject::getUserId;
+        };
+        @SuppressWarnings("unchecked")
+        Comparator<UserProject> order = Comparator.comparing(key, Comparator.nullsFirst(Comparator.naturalOrder()));
+        order = order.thenComparing(UserProject::getId);
+        return stored.stream()
+                .filter(project -> userId == null || userId.equals(project.getUserId()))
+                .sorted(descending ? order.reversed() : order)
+                .map(UserProject::getId)
+                .toList();
+    }
+}
@@ -2,27 +2,28 @@ package ru.anyline.repoapi;
 
 import org.junit.jupiter.api.Test;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.ResponseEntity;
 import org.springframework.ui.Model;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.HttpServerErrorException;
 import org.springframework.web.client.ResourceAccessException;
-import org.springframework.web.client.RestTemplate;
 import ru.anyline.repoapi.controller.UserReposController;
+import ru.anyline.repoapi.exceptions.UserReposException;
 import ru.anyline.repoapi.model.UserRepos;
+import ru.anyline.repoapi.service.GitHubService;
 
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.*;
 
 class UserReposControllerTest {
 
-    private RestTemplate restTemplate;
+    private final GitHubService gitHubService = mock(GitHubService.class);
 
-    private final Model model;
+    private final Model model = mock(Model.class);
 
-    private UserReposController userReposController;
+    private final UserReposController userReposController = new UserReposController(gitHubService);
 
 
     @Test
@@ -34,7 +35,7 @@ class UserReposControllerTest {
         assertEquals("repos", result);
         verify(model).addAttribute("error", "Username is required to fetch repositories.");
         verifyNoMoreInteractions(model);
-        verifyNoInteractions(restTemplate);
+        verifyNoInteractions(gitHubService);
     }
 
     @Test
@@ -44,131 +45,117 @@ class UserReposControllerTest {
         String result = userReposController.getUserRepos(username, model);
 
         assertEquals("repos", result);
-        verify(model).addAttribute("error", "Username is required.");
+        verify(model).addAttribute("error", "Username is required to fetch repositories.");
         verifyNoMoreInteractions(model);
-        verifyNoInteractions(restTemplate);
+        verifyNoInteractions(gitHubService);
     }
 
     @Test
     void getUserRepos_whenSuccessfulApiResponse_shouldPopulateModelWithRepos() {
         String username = "testUser";
-        String url = "http://localhost:8080/repos/" + username;
-        UserRepos[] mockReposArray = new UserRepos[]{new UserRepos(), new UserRepos()};
-        ResponseEntity<UserRepos[]> mockResponseEntity = new ResponseEntity<>(mockReposArray, HttpStatus.OK);
+        List<UserRepos> mockRepos = List.of(new UserRepos(), new UserRepos());
 
-        when(restTemplate.getForEntity(url, UserRepos[].class)).thenReturn(mockResponseEntity);
+        when(gitHubService.getRepositories(username)).thenReturn(mockRepos);
 
         String result = userReposController.getUserRepos(username, model);
 
         assertEquals("repos", result);
-        verify(model).addAttribute("repos", List.of(mockReposArray));
+        verify(model).addAttribute("repos", mockRepos);
         verify(model).addAttribute("username", username);
         verifyNoMoreInteractions(model);
     }
 
     @Test
-    void getUserRepos_when4xxClientError_shouldSetErrorMessage() {
+    void getUserRepos_whenUserNotFoundOnGitHub_shouldSetClientErrorMessage() {
         String username = "testUser";
-        String url = "http://localhost:8080/repos/" + username;
-        ResponseEntity<UserRepos[]> mockResponseEntity = new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        HttpClientErrorException mockException = HttpClientErrorException.create(HttpStatus.NOT_FOUND, "Not Found",
+                null, "{\"message\":\"Not Found\"}".getBytes(), null);
 
-        when(restTemplate.getForEntity(url, UserRepos[].class)).thenReturn(mockResponseEntity);
+        when(gitHubService.getRepositories(username)).thenThrow(mockException);
 
         String result = userReposController.getUserRepos(username, model);
 
         assertEquals("repos", result);
-        verify(model).addAttribute("error", "Error 404: User not found or rate limit exceeded.");
+        verify(model).addAttribute("error", "Client error: 404 NOT_FOUND - {\"message\":\"Not Found\"}");
         verifyNoMoreInteractions(model);
     }
 
     @Test
-    void getUserRepos_when5xxServerError_shouldSetErrorMessage() {
+    void getUserRepos_whenHttpClientErrorException_shouldSetClientErrorMessage() {
         String username = "testUser";
-        String url = "http://localhost:8080/repos/" + username;
-        ResponseEntity<UserRepos[]> mockResponseEntity = new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        HttpClientErrorException mockException = HttpClientErrorException.create(HttpStatus.BAD_REQUEST, "Bad Request",
+                null, "{\"message\":\"Bad Request\"}".getBytes(), null);
 
-        when(restTemplate.getForEntity(url, UserRepos[].class)).thenReturn(mockResponseEntity);
+        when(gitHubService.getRepositories(username)).thenThrow(mockException);
 
         String result = userReposController.getUserRepos(username, model);
 
         assertEquals("repos", result);
-        verify(model).addAttribute("error", "Error 404: User not found.");
+        verify(model).addAttribute("error", "Client error: 400 BAD_REQUEST - {\"message\":\"Bad Request\"}");
         verifyNoMoreInteractions(model);
     }
 
     @Test
-    void getUserRepos_whenHttpClientErrorException_shouldSetClientErrorMessage() {
+    void getUserRepos_whenHttpServerErrorException_shouldSetServerErrorMessage() {
         String username = "testUser";
-        String url = "http://localhost:8080/repos/" + username;
-        HttpClientErrorException mockException = new HttpClientErrorException(HttpStatus.BAD_REQUEST, "Bad Request");
+        HttpServerErrorException mockException = HttpServerErrorException.create(HttpStatus.INTERNAL_SERVER_ERROR,
+                "Internal Server Error", null, "Internal Server Error".getBytes(), null);
 
-        when(restTemplate.getForEntity(url, UserRepos[].class)).thenThrow(mockException);
+        when(gitHubService.getRepositories(username)).thenThrow(mockException);
 
         String result = userReposController.getUserRepos(username, model);
 
         assertEquals("repos", result);
-        verify(model).addAttribute("error", "Client error: 400 BAD_REQUEST");
+        verify(model).addAttribute("error", "Server error: 500 INTERNAL_SERVER_ERROR - Internal Server Error");
         verifyNoMoreInteractions(model);
     }
 
     @Test
-    void getUserRepos_whenHttpServerErrorException_shouldSetServerErrorMessage() {
+    void getUserRepos_whenResourceAccessException_shouldSetErrorMessage() {
         String username = "testUser";
-        String url = "http://localhost:8080/repos/" + username;
-        HttpServerErrorException mockException = new HttpServerErrorException(HttpStatus.INTERNAL_SERVER_ERROR, "Internal Server Error");
+        ResourceAccessException mockException = new ResourceAccessException("Unable to connect to the server");
 
-        when(restTemplate.getForEntity(url, UserRepos[].class)).thenThrow(mockException);
+        when(gitHubService.getRepositories(username)).thenThrow(mockException);
 
         String result = userReposController.getUserRepos(username, model);
 
         assertEquals("repos", result);
-        verify(model).addAttribute("error", "Server error: 500 INTERNAL_SERVER_ERROR - Internal Server Error");
+        verify(model).addAttribute("error", "Resource access error: Unable to connect to the server.");
         verifyNoMoreInteractions(model);
     }
 
     @Test
-    void getUserRepos_whenResourceAccessException_shouldSetErrorMessage() {
+    void getUserRepos_whenUnexpectedException_shouldThrowUserReposException() {
         String username = "testUser";
-        String url = "http://localhost:8080/repos/" + username;
-        ResourceAccessException mockException = new ResourceAccessException("Unable to connect to the server");
-
-        when(restTemplate.getForEntity(url, UserRepos[].class)).thenThrow(mockException);
 
-        String result = userReposController.getUserRepos(username, model);
+        when(gitHubService.getRepositories(username)).thenThrow(new IllegalStateException("boom"));
 
-        assertEquals("repos", result);
-        verify(model).addAttribute("error", "Resource access error: Unable to connect to the server. Please try again later.");
-        verifyNoMoreInteractions(model);
+        assertThrows(UserReposException.class, () -> userReposController.getUserRepos(username, model));
     }
 
     @Test
-    void getUserRepos_whenApiReturnsEmptyArray_shouldNotAddReposAttribute() {
+    void getUserRepos_whenApiReturnsEmptyArray_shouldAddEmptyRepos() {
         String username = "tU";
-        String url = "http://localhost:8080/repos/" + username;
-        UserRepos[] emptyReposArray = new UserRepos[0];
-        ResponseEntity<UserRepos[]> mockResponseEntity = new ResponseEntity<>(emptyReposArray, HttpStatus.OK);
 
-        when(restTemplate.getForEntity(url, UserRepos[].class)).thenReturn(mockResponseEntity);
+        when(gitHubService.getRepositories(username)).thenReturn(List.of());
 
         String result = userReposController.getUserRepos(username, model);
 
         assertEquals("repos", result);
+        verify(model).addAttribute("repos", List.of());
         verify(model).addAttribute("username", username);
-        verify(model, never()).addAttribute(eq("repos"), any());
         verifyNoMoreInteractions(model);
     }
 
     @Test
     void getUserRepos_whenMaxNumberOfReposReturned_shouldAddAllReposToModel() {
         String username = "testUser";
-        String url = "http://localhost:8080/repos/" + username;
-        UserRepos[] maxReposArray = new UserRepos[100]; 
+        UserRepos[] maxReposArray = new UserRepos[100];
         for (int i = 0; i < 100; i++) {
             maxReposArray[i] = new UserRepos();
         }
-        ResponseEntity<UserRepos[]> mockResponseEntity = new ResponseEntity<>(maxReposArray, HttpStatus.OK);
 
-        when(restTemplate.getForEntity(url, UserRepos[].class)).thenReturn(mockResponseEntity);
+        when(gitHubService.getRepositories(username)).thenReturn(List.of(maxReposArray));
 
         String result = userReposController.getUserRepos(username, model);
 
@@ -181,10 +168,8 @@ class UserReposControllerTest {
     @Test
     void getUserRepos_whenResponseBodyIsNull_shouldNotAddReposAttribute() {
         String username = "testUser";
-        String url = "http://localhost:8080/repos/" + username;
-        ResponseEntity<UserRepos[]> mockResponseEntity = new ResponseEntity<>(null, HttpStatus.OK);
 
-        when(restTemplate.getForEntity(url, UserRepos[].class)).thenReturn(mockResponseEntity);
+        when(gitHubService.getRepositories(username)).thenReturn(null);
 
         String result = userReposController.getUserRepos(username, model);
 
@@ -197,69 +182,32 @@ class UserReposControllerTest {
     @Test
     void getUserRepos_whenUsernameProvidedButNoReposFound_shouldVerifyModelAttributes() {
         String username = "testUser";
-        String url = "http://localhost:8080/repos/" + username;
-        UserRepos[] emptyReposArray = new UserRepos[0];
-        ResponseEntity<UserRepos[]> mockResponseEntity = new ResponseEntity<>(emptyReposArray, HttpStatus.OK);
 
-        when(restTemplate.getForEntity(url, UserRepos[].class)).thenReturn(mockResponseEntity);
+        when(gitHubService.getRepositories(username)).thenReturn(List.of());
 
         String result = userReposController.getUserRepos(username, model);
 
         assertEquals("repos", result);
+        verify(model).addAttribute("repos", List.of());
         verify(model).addAttribute("username", username);
-        verify(model, never()).addAttribute(eq("repos"), any());
         verify(model, never()).addAttribute(eq("error"), any());
         verifyNoMoreInteractions(model);
     }
 
     @Test
-    void getUserRepos_whenNonOkStatusCodeNot4xxOr5xx_shouldReturnReposView() {
-        String username = "testUser";
-        String url = "http://localhost:8080/repos/" + username;
-        ResponseEntity<UserRepos[]> mockResponseEntity = new ResponseEntity<>(HttpStatus.MULTIPLE_CHOICES);
-
-        when(restTemplate.getForEntity(url, UserRepos[].class)).thenReturn(mockResponseEntity);
-
-        String result = userReposController.getUserRepos(username, model);
-
-        assertEquals("repos", result);
-        verify(model).addAttribute("username", username);
-        verifyNoMoreInteractions(model);
-    }
-
-    @Test
-    void getUserRepos_whenUsernameContainsSpecialCharacters_shouldEncodeUrlCorrectly() {
+    void getUserRepos_whenUsernameContainsSpecialCharacters_shouldPassItUnchanged() {
         String username = "test@user#123";
-        String encodedUsername = "test%40user%23123";
-        String url = "http://localhost:8080/repos/" + encodedUsername;
-        UserRepos[] mockReposArray = new UserRepos[]{new UserRepos(), new UserRepos()};
-        ResponseEntity<UserRepos[]> mockResponseEntity = new ResponseEntity<>(mockReposArray, HttpStatus.OK);
+        List<UserRepos> mockRepos = List.of(new UserRepos(), new UserRepos());
 
-        when(restTemplate.getForEntity(url, UserRepos[].class)).thenReturn(mockResponseEntity);
+        when(gitHubService.getRepositories(username)).thenReturn(mockRepos);
 
         String result = userReposController.getUserRepos(username, model);
 
         assertEquals("repos", result);
-        verify(model).addAttribute("repos", List.of(mockReposArray));
+        verify(model).addAttribute("repos", mockRepos);
         verify(model).addAttribute("username", username);
         verifyNoMoreInteractions(model);
-        verify(restTemplate).getForEntity(url, UserRepos[].class);
-    }
-
-    @Test
-    void getUserRepos_whenResponseStatusCodeIsNull_shouldSetErrorMessage() {
-        String username = "testUser";
-        String url = "http://localhost:8080/repos/" + username;
-        ResponseEntity<UserRepos[]> mockResponseEntity = mock(ResponseEntity.class);
-
-        when(restTemplate.getForEntity(url, UserRepos[].class)).thenReturn(mockResponseEntity);
-        when(mockResponseEntity.getStatusCode()).thenReturn(null);
-
-        String result = userReposController.getUserRepos(username, model);
-
-        assertEquals("repos", result);
-        verify(model).addAttribute("error", "Error 404: User not found.");
-        verifyNoMoreInteractions(model);
+        verify(gitHubService).getRepositories(username);
     }
 
     @Test
@@ -269,9 +217,9 @@ class UserReposControllerTest {
         String result = userReposController.getUserRepos(username, model);
 
         assertEquals("repos", result);
-        verify(model).addAttribute("error", "Username is required.");
+        verify(model).addAttribute("error", "Username is required to fetch repositories.");
         verifyNoMoreInteractions(model);
-        verifyNoInteractions(restTemplate);
+        verifyNoInteractions(gitHubService);
     }
 
 }
@@ -0,0 +1,94 @@
+package ru.anyline.repoapi;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.support.NullValue;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+import ru.anyline.repoapi.cache.UserReposRedisSerializer;
+import ru.anyline.repoapi.model.UserRepos;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserReposRedisSerializerTest {
+
+    private final UserReposRedisSerializer serializer = new UserReposRedisSerializer(1024);
+
+    @Test
+    void roundTrip_shouldPreserveListIncludingNullsAndUnicode() {
+        List<UserRepos> repos = List.of(
+                new UserRepos(1L, "octocat", "hello-world", "https://github.com/octocat/hello-world"),
+                new UserRepos(null, "octocat", null, "https://github.com/octocat/привет"),
+                new UserRepos(300L, null, "linguist", null));
+
+        assertEquals(repos, serializer.deserialize(serializer.serialize(repos)));
+    }
+
+    @Test
+    void roundTrip_shouldPreserveSingleRepoAndCachedNull() {
+        UserRepos repo = new UserRepos(7L, "octocat", "hello-world", "https://github.com/octocat/hello-world");
+
+        assertEquals(repo, serializer.deserialize(serializer.serialize(repo)));
+        assertSame(NullValue.INSTANCE, serializer.deserialize(serializer.serialize(NullValue.INSTANCE)));
+        assertEquals(List.of(), serializer.deserialize(serializer.serialize(List.of())));
+        assertNull(serializer.deserialize(serializer.serialize(null)));
+    }
+
+    @Test
+    void serialize_largeListShouldBeCompressedAndMuchSmallerThanJson() {
+        List<UserRepos> repos = repos(1000);
+
+        byte[] binary = serializer.serialize(repos);
+        byte[] json = new GenericJackson2JsonRedisSerializer().serialize(repos);
+
+        assertEquals(1, binary[1], "expected the deflated flag to be set");
+        assertTrue(binary.length * 4 < json.length, binary.length + " bytes vs " + json.length + " bytes of JSON");
+        assertEquals(repos, serializer.deserialize(binary));
+    }
+
+    @Test
+    void serialize_smallListShouldNotBeCompressed() {
+        byte[] binary = serializer.serialize(repos(3));
+
+        assertEquals(0, binary[1]);
+    }
+
+    @Test
+    void deserialize_unknownVersionShouldFail() {
+        byte[] bytes = serializer.serialize(repos(3));
+        bytes[0] = 99;
+
+        assertThrows(SerializationException.class, () -> serializer.deserialize(bytes));
+    }
+
+    @Test
+    void deserialize_corruptLengthsShouldFailWithoutAllocatingThem() {
+        // list count beyond an int, list count beyond the entry, string length wrapped negative, huge inflated length
+        byte[][] corrupt = {
+                {1, 0, 1, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0x08},
+                {1, 0, 1, (byte) 0xC0, (byte) 0x84, 0x3D},
+                {1, 0, 0, 0, -1, -1, -1, -1, -1, -1, -1, -1, -1, 0x01},
+                {1, 1, -1, -1, -1, -1, 0x07, 0x78, (byte) 0x9C}
+        };
+
+        for (byte[] bytes : corrupt) {
+            assertThrows(SerializationException.class, () -> serializer.deserialize(bytes));
+        }
+    }
+
+    @Test
+    void serialize_foreignValueShouldFail() {
+        assertThrows(SerializationException.class, () -> serializer.serialize("octocat"));
+        assertThrows(SerializationException.class, () -> serializer.serialize(List.of("octocat")));
+    }
+
+    private static List<UserRepos> repos(int count) {
+        List<UserRepos> repos = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            repos.add(new UserRepos((long) i + 1, "octocat", "repo-" + i, "https://github.com/octocat/repo-" + i));
+        }
+        return repos;
+    }
+}